@@ -3638,6 +3638,7 @@ public class DatasetPage implements java.io.Serializable {
             if (restricted  != fmd.isRestricted()) {
                 cmd = new RestrictFileCommand(fmd.getDataFile(), dvRequestService.getDataverseRequest(), restricted);
                 commandEngine.submit(cmd);
+                dataFilesChanged = true;
             }
         }
     }
@@ -3669,6 +3670,9 @@ public class DatasetPage implements java.io.Serializable {
     }
 
     private List<FileMetadata> filesToBeDeleted = new ArrayList<>();
+    // Whether the DataFiles themselves were edited (embargo, restriction, 
+    // tabular tags), which calls for reindexing all the files on save
+    private boolean dataFilesChanged = false;
 
     public String deleteFiles() throws CommandException{
         List filesToDelete = new ArrayList();
@@ -3901,8 +3905,10 @@ public class DatasetPage implements java.io.Serializable {
                 }
                 cmd = new UpdateDatasetVersionCommand(dataset, dvRequestService.getDataverseRequest(), filesToBeDeleted, clone );
                 ((UpdateDatasetVersionCommand) cmd).setValidateLenient(true);
+                ((UpdateDatasetVersionCommand) cmd).setDataFilesChanged(dataFilesChanged);
             }
             dataset = commandEngine.submit(cmd);
+            dataFilesChanged = false;
             for (DatasetField df : dataset.getLatestVersion().getFlatDatasetFields()) {
                 logger.fine("Found id: " + df.getDatasetFieldType().getId());
                 if (fieldService.getCVocConf(true).containsKey(df.getDatasetFieldType().getId())) {
@@ -5092,6 +5098,7 @@ public class DatasetPage implements java.io.Serializable {
                             }
                         }
                         if (fmd.getDataFile().isTabularData()) {
+                            dataFilesChanged = true;
                             fmd.getDataFile().setTags(null);
                             for (String selectedTabFileTag : selectedTabFileTags) {
                                 DataFileTag tag = new DataFileTag();
@@ -6265,6 +6272,7 @@ public class DatasetPage implements java.io.Serializable {
                             logger.fine("After: " + emb.getDataFiles().size());
                         }
                         fmd.getDataFile().setEmbargo(selectionEmbargo);
+                        dataFilesChanged = true;
                     }
                 }
             }
@@ -259,6 +259,18 @@ public class DatasetServiceBean implements java.io.Serializable {
         return typedQuery.getResultList();
     }
 
+    /**
+     * @param afterId Exclusive lower bound of the ids.
+     * @param lastId Inclusive upper bound of the ids.
+     * @return The ids of the datasets in the range, in ascending order.
+     */
+    public List<Long> findIdsInRange(long afterId, long lastId) {
+        return em.createQuery("SELECT o.id FROM Dataset o WHERE o.id > :afterId AND o.id <= :lastId ORDER BY o.id", Long.class)
+                .setParameter("afterId", afterId)
+                .setParameter("lastId", lastId)
+                .getResultList();
+    }
+
         /**
      * For docs, see the equivalent method on the DataverseServiceBean.
      * @param numPartitions
@@ -313,6 +325,45 @@ public class DatasetServiceBean implements java.io.Serializable {
         return em.merge(ds);
     }
 
+    /**
+     * Looks up the datasets with the given global ids with one query, instead
+     * of one query per dataset. The datasets not found by their main global id
+     * are looked up one by one, by their alternative global ids.
+     *
+     * @return The datasets found, by the global id they were requested with.
+     */
+    public Map<String, Dataset> findByGlobalIds(Collection<String> globalIds) {
+        Map<String, Dataset> datasets = new HashMap<>();
+        Set<String> requested = new HashSet<>(globalIds);
+        Set<String> identifiers = new HashSet<>();
+        for (String globalId : globalIds) {
+            try {
+                identifiers.add(PidUtil.parseAsGlobalID(globalId).getIdentifier());
+            } catch (IllegalArgumentException iae) {
+                logger.fine("Invalid identifier: " + globalId);
+            }
+        }
+        if (!identifiers.isEmpty()) {
+            List<Dataset> found = em.createQuery("SELECT d FROM Dataset d WHERE d.identifier IN :identifiers", Dataset.class)
+                    .setParameter("identifiers", identifiers)
+                    .getResultList();
+            for (Dataset dataset : found) {
+                if (dataset.getGlobalId() != null && requested.contains(dataset.getGlobalId().asString())) {
+                    datasets.put(dataset.getGlobalId().asString(), dataset);
+                }
+            }
+        }
+        for (String globalId : requested) {
+            if (!datasets.containsKey(globalId)) {
+                Dataset dataset = (Dataset) dvObjectService.findByAltGlobalId(globalId, DvObject.DType.Dataset);
+                if (dataset != null) {
+                    datasets.put(globalId, dataset);
+                }
+            }
+        }
+        return datasets;
+    }
+
     public Dataset findByGlobalId(String globalId) {
         Dataset retVal = (Dataset) dvObjectService.findByGlobalId(globalId, DvObject.DType.Dataset);
         if (retVal != null){
@@ -214,6 +214,13 @@ public class DatasetVersion implements Serializable {
     
     @Transient 
     private JsonObject archivalStatus;
+
+    // sorted ids of the files in the version, see containsDataFile()
+    @Transient
+    private long[] dataFileIds;
+
+    @Transient
+    private int dataFileIdsSourceSize = -1;
     
     public Long getId() {
         return this.id;
@@ -311,6 +318,46 @@ public class DatasetVersion implements Serializable {
 
     public void setFileMetadatas(List<FileMetadata> fileMetadatas) {
         this.fileMetadatas = fileMetadatas;
+        this.dataFileIds = null;
+    }
+
+    /**
+     * Checks whether the file is in this version. Instead of scanning the
+     * file metadatas on every call - which makes checking all the files of a
+     * large version quadratic - the ids of the files are collected into a
+     * sorted array on the first call and binary-searched after that. The
+     * array is rebuilt whenever the number of file metadatas changes, so it
+     * should only be relied on for versions whose files are not being
+     * replaced in place, such as released versions.
+     *
+     * @param dataFile the file to look for
+     * @return true if one of the file metadatas of the version is for the file
+     */
+    public boolean containsDataFile(DataFile dataFile) {
+        if (fileMetadatas == null) {
+            return false;
+        }
+        if (dataFile.getId() == null) {
+            // new files can only be matched the old-fashioned way:
+            for (FileMetadata fm : fileMetadatas) {
+                if (dataFile.equals(fm.getDataFile())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long[] ids = dataFileIds;
+        if (ids == null || dataFileIdsSourceSize != fileMetadatas.size()) {
+            ids = fileMetadatas.stream()
+                    .map(FileMetadata::getDataFile)
+                    .filter(df -> df != null && df.getId() != null)
+                    .mapToLong(DataFile::getId)
+                    .sorted()
+                    .toArray();
+            dataFileIds = ids;
+            dataFileIdsSourceSize = fileMetadatas.size();
+        }
+        return Arrays.binarySearch(ids, dataFile.getId()) >= 0;
     }
     
     public TermsOfUseAndAccess getTermsOfUseAndAccess() {
@@ -9,6 +9,7 @@ import edu.harvard.iq.dataverse.search.IndexAsync;
 import edu.harvard.iq.dataverse.search.IndexResponse;
 import edu.harvard.iq.dataverse.search.IndexServiceBean;
 import edu.harvard.iq.dataverse.search.SolrIndexServiceBean;
+import edu.harvard.iq.dataverse.util.cache.CacheFactoryBean;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -46,6 +47,8 @@ public class DataverseRoleServiceBean implements java.io.Serializable {
     SolrIndexServiceBean solrIndexService;
     @EJB
     IndexAsync indexAsync;
+    @EJB
+    CacheFactoryBean cacheFactory;
 
     public DataverseRole save(DataverseRole aRole) {
         if (aRole.getId() == null) {
@@ -57,6 +60,8 @@ public class DataverseRoleServiceBean implements java.io.Serializable {
             return aRole;
         } else {
             DataverseRole merged = em.merge(aRole);
+            // the permissions of the role may have changed:
+            cacheFactory.invalidatePermissions();
             /**
              * @todo update permissionModificationTime here.
              */
@@ -76,6 +81,7 @@ public class DataverseRoleServiceBean implements java.io.Serializable {
         } else {
             assignment = em.merge(assignment);
         }
+        cacheFactory.invalidatePermissions();
         /**
          * @todo update permissionModificationTime here.
          */
@@ -106,6 +112,7 @@ public class DataverseRoleServiceBean implements java.io.Serializable {
         em.createNamedQuery("DataverseRole.deleteById", DataverseRole.class)
             .setParameter("id", id)
             .executeUpdate();
+        cacheFactory.invalidatePermissions();
     }
 
     public List<DataverseRole> findByOwnerId(Long ownerId) {
@@ -142,6 +149,7 @@ public class DataverseRoleServiceBean implements java.io.Serializable {
             em.refresh(role);
         }
         em.refresh(assignee);
+        cacheFactory.invalidatePermissions();
     }
 
     public void revoke(RoleAssignment ra) {
@@ -149,6 +157,7 @@ public class DataverseRoleServiceBean implements java.io.Serializable {
             ra = em.merge(ra);
         }
         em.remove(ra);
+        cacheFactory.invalidatePermissions();
         /**
          * @todo update permissionModificationTime here.
          */
@@ -170,6 +179,7 @@ public class DataverseRoleServiceBean implements java.io.Serializable {
 
             reindexSet.add(ra.getDefinitionPoint());
         }
+        cacheFactory.invalidatePermissions();
 
         indexAsync.indexRoles(reindexSet);
     }
@@ -6,6 +6,7 @@ import edu.harvard.iq.dataverse.pidproviders.PidProviderFactoryBean;
 import edu.harvard.iq.dataverse.pidproviders.PidUtil;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -66,6 +67,27 @@ public class DvObjectServiceBean implements java.io.Serializable {
         }
     }
 
+    /**
+     * Looks up several DvObjects at once, e.g. all the hits on a page of 
+     * search results, with a single query instead of one per object.
+     * 
+     * @param ids The ids of the objects.
+     * @return The objects found, by their ids; the ids that were not found are 
+     * missing from the map.
+     */
+    public Map<Long, DvObject> findDvObjects(Collection<Long> ids) {
+        Map<Long, DvObject> dvObjects = new HashMap<>();
+        if (ids.isEmpty()) {
+            return dvObjects;
+        }
+        for (DvObject dvObject : em.createNamedQuery("DvObject.findByIds", DvObject.class)
+                .setParameter("ids", ids)
+                .getResultList()) {
+            dvObjects.put(dvObject.getId(), dvObject);
+        }
+        return dvObjects;
+    }
+
     public List<DvObject> findAll() {
         return em.createNamedQuery("DvObject.findAll", DvObject.class).getResultList();
     }
@@ -178,6 +178,9 @@ public class EditDatafilesPage implements java.io.Serializable {
     private String dropBoxSelection = "";
     private String displayCitation;
     private boolean tabularDataTagsUpdated = false;
+    // Whether the DataFiles themselves were edited (restriction, tabular
+    // tags), which calls for reindexing all the files on save
+    private boolean dataFilesChanged = false;
 
     private String persistentId;
 
@@ -777,6 +780,9 @@ public class EditDatafilesPage implements java.io.Serializable {
                 // We do not really need to check that the working version is 
                 // a draft here - it must be a draft, if we've gotten this
                 // far. But just in case. -- L.A. 4.2.1
+                if (fmd.getDataFile().isRestricted() != restricted) {
+                    dataFilesChanged = true;
+                }
                 fmd.getDataFile().setRestricted(restricted);
             }
         }
@@ -1184,6 +1190,7 @@ public class EditDatafilesPage implements java.io.Serializable {
                 }
             }
             tabularDataTagsUpdated = false;
+            dataFilesChanged = true;
         }
 
         Map<Long, String> deleteStorageLocations = null;
@@ -1196,7 +1203,9 @@ public class EditDatafilesPage implements java.io.Serializable {
         try {
             cmd = new UpdateDatasetVersionCommand(dataset, dvRequestService.getDataverseRequest(), filesToBeDeleted, clone);
             ((UpdateDatasetVersionCommand) cmd).setValidateLenient(true);
+            ((UpdateDatasetVersionCommand) cmd).setDataFilesChanged(dataFilesChanged);
             dataset = commandEngine.submit(cmd);
+            dataFilesChanged = false;
 
         } catch (EJBException ex) {
             StringBuilder error = new StringBuilder();
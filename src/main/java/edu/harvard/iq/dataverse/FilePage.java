@@ -612,6 +612,9 @@ public class FilePage implements java.io.Serializable {
     }    
     
     private List<FileMetadata> filesToBeDeleted = new ArrayList<>();
+    // Whether the DataFile itself was edited (embargo), which calls for 
+    // reindexing all the files on save
+    private boolean dataFilesChanged = false;
 
     public String deleteFile() {
 
@@ -833,7 +836,9 @@ public class FilePage implements java.io.Serializable {
         
         try {
             cmd = new UpdateDatasetVersionCommand(editDataset, dvRequestService.getDataverseRequest(), filesToBeDeleted);
+            ((UpdateDatasetVersionCommand) cmd).setDataFilesChanged(dataFilesChanged);
             commandEngine.submit(cmd);
+            dataFilesChanged = false;
             updateCommandSuccess = true;
 
         } catch (EJBException ex) {
@@ -1337,6 +1342,7 @@ public class FilePage implements java.io.Serializable {
                 embargoService.merge(selectionEmbargo);
             }
             file.setEmbargo(selectionEmbargo);
+            dataFilesChanged = true;
             if (emb != null && !emb.getDataFiles().isEmpty()) {
                 emb = null;
             }
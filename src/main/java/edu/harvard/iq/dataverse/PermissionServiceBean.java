@@ -30,13 +30,16 @@ import edu.harvard.iq.dataverse.engine.command.exception.IllegalCommandException
 import edu.harvard.iq.dataverse.engine.command.impl.PublishDatasetCommand;
 import edu.harvard.iq.dataverse.engine.command.impl.UpdateDatasetVersionCommand;
 import edu.harvard.iq.dataverse.util.BundleUtil;
+import edu.harvard.iq.dataverse.util.cache.CacheFactoryBean;
 import edu.harvard.iq.dataverse.workflow.PendingWorkflowInvocation;
 import edu.harvard.iq.dataverse.workflow.WorkflowServiceBean;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import static java.util.stream.Collectors.toList;
@@ -97,6 +100,9 @@ public class PermissionServiceBean {
     @Inject
     DataverseRequestServiceBean dvRequestService;
 
+    @EJB
+    CacheFactoryBean cacheFactory;
+
     /**
      * A request-level permission query (e.g includes IP ras).
      */
@@ -355,9 +361,7 @@ public class PermissionServiceBean {
     }
     
     private boolean hasGroupPermissionsFor(Set<RoleAssignee> ras, DvObject dvo, Set<Permission> required) {
-        for (RoleAssignment asmnt : assignmentsFor(ras, dvo)) {
-            required.removeAll(asmnt.getRole().permissions());
-        }
+        required.removeAll(assignedPermissionsFor(ras, dvo));
         return required.isEmpty();
     }
 
@@ -414,9 +418,61 @@ public class PermissionServiceBean {
     }
     
     private void addGroupPermissionsFor(Set<RoleAssignee> ras, DvObject dvo, Set<Permission> permissions) {
-        for (RoleAssignment asmnt : assignmentsFor(ras, dvo)) {
-            permissions.addAll(asmnt.getRole().permissions());
+        permissions.addAll(assignedPermissionsFor(ras, dvo));
+    }
+
+    /**
+     * Returns the permissions granted to {@code ras} over {@code dvo} by their
+     * role assignments on {@code dvo} and its permission ancestors. These are
+     * looked up many times per page or API call, mostly for the same users
+     * and objects, so they are cached (see {@link CacheFactoryBean}).
+     * 
+     * The cache key consists of the identifiers of the role assignees and the
+     * ids of the permission ancestors - so a change in group membership or
+     * moving an object results in a different key, and only the changes of
+     * the role assignments and of the roles themselves need to invalidate
+     * the cache.
+     *
+     * @param ras The role assignees, i.e. the user and their groups.
+     * @param dvo The object whose permissions we look for.
+     * @return The permissions granted by the role assignments; may be shared, do not modify.
+     */
+    private Set<Permission> assignedPermissionsFor(Set<RoleAssignee> ras, DvObject dvo) {
+        Set<DvObject> permAncestors = getPermissionAncestors(dvo);
+        String key = permissionCacheKey(ras, permAncestors);
+        Set<Permission> permissions = cacheFactory.getCachedPermissions(key);
+        if (permissions == null) {
+            permissions = EnumSet.noneOf(Permission.class);
+            for (RoleAssignment asmnt : roleService.directRoleAssignments(ras, permAncestors)) {
+                permissions.addAll(asmnt.getRole().permissions());
+            }
+            cacheFactory.cachePermissions(key, permissions);
         }
+        return permissions;
+    }
+
+    static String permissionCacheKey(Set<? extends RoleAssignee> ras, Collection<DvObject> permAncestors) {
+        String assignees = ras.stream()
+                .map(RoleAssignee::getIdentifier)
+                .sorted()
+                .collect(Collectors.joining(","));
+        // Unsaved objects have no role assignments; same as in directRoleAssignments(), they are ignored
+        String ancestors = permAncestors.stream()
+                .map(DvObject::getId)
+                .filter(Objects::nonNull)
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return assignees + "|" + ancestors;
+    }
+
+    /**
+     * Drops the cached role assignment permissions, cluster-wide. Needs to be
+     * called by any code that changes role assignments directly, rather than
+     * through {@link DataverseRoleServiceBean}.
+     */
+    public void invalidatePermissionCache() {
+        cacheFactory.invalidatePermissions();
     }
 
 
@@ -450,15 +506,9 @@ public class PermissionServiceBean {
             DataFile df = (DataFile) dvo;
 
             if (!df.isRestricted()) {
-                if (df.getOwner().getReleasedVersion() != null) {
-                    List<FileMetadata> fileMetadatas = df.getOwner().getReleasedVersion().getFileMetadatas();
-                    if (fileMetadatas != null) {
-                        for (FileMetadata fm : fileMetadatas) {
-                            if (df.equals(fm.getDataFile())) {
-                                return true;
-                            }
-                        }
-                    }
+                DatasetVersion releasedVersion = df.getOwner().getReleasedVersion();
+                if (releasedVersion != null) {
+                    return releasedVersion.containsDataFile(df);
                 }
             }
         }
@@ -328,6 +328,7 @@ public class Access extends AbstractApiBean {
             dInfo.addServiceAvailable(new OptionalAccessService("R", "application/x-rlang-transport", "format=RData", "Data in R format"));
             dInfo.addServiceAvailable(new OptionalAccessService("preprocessed", "application/json", "format=prep", "Preprocessed data in JSON"));
             dInfo.addServiceAvailable(new OptionalAccessService("subset", "text/tab-separated-values", "variables=&lt;LIST&gt;", "Column-wise Subsetting"));
+            dInfo.addServiceAvailable(new OptionalAccessService("rows", "text/tab-separated-values", "rows=&lt;FIRST&gt;-&lt;LAST&gt;", "Row Range"));
         }
         String driverId = DataAccess.getStorageDriverFromIdentifier(df.getStorageIdentifier());
         if(systemConfig.isGlobusFileDownload() && (GlobusAccessibleStore.acceptsGlobusTransfers(driverId) || GlobusAccessibleStore.allowsGlobusReferences(driverId))) {
@@ -351,7 +352,7 @@ public class Access extends AbstractApiBean {
             logger.fine("is download service supported? key=" + key + ", value=" + value);
             // The loop goes through all query params (e.g. including key, gbrecs, persistentId, etc. )
             // So we need to identify when a service is being called and then let checkIfServiceSupportedAndSetConverter see if the required one exists
-            if (key.equals("imageThumb") || key.equals("format") || key.equals("variables") || key.equals("noVarHeader")) {
+            if (key.equals("imageThumb") || key.equals("format") || key.equals("variables") || key.equals("noVarHeader") || key.equals("rows")) {
                 serviceRequested = true;
                 //In the dataset file table context a user is allowed to select original as the format
                 //for download
@@ -835,11 +836,25 @@ public class Access extends AbstractApiBean {
         
         StreamingOutput stream = new StreamingOutput() {
 
+            private DataFileZipper zipper = null; 
+
             @Override
             public void write(OutputStream os) throws IOException,
                     WebApplicationException {
+                try {
+                    writeZippedFiles(os);
+                } catch (IOException | RuntimeException ex) {
+                    // close the streams on the files the zipper may be prefetching:
+                    if (zipper != null) {
+                        zipper.discardPendingFiles();
+                    }
+                    throw ex;
+                }
+            }
+
+            private void writeZippedFiles(OutputStream os) throws IOException,
+                    WebApplicationException {
                 String fileIdParams[] = fileIds.split(",");
-                DataFileZipper zipper = null; 
                 String fileManifest = "";
                 long sizeTotal = 0L;
                 
@@ -912,7 +927,10 @@ public class Access extends AbstractApiBean {
                                         size = file.getFilesize();
                                     }
                                     if (sizeTotal + size < zipDownloadSizeLimit) {
-                                        sizeTotal += zipper.addFileToZipStream(file, getOriginal);
+                                        // (the zipper may be fetching the file in the background,
+                                        // so we count the size we already know)
+                                        zipper.addFileToZipStream(file, getOriginal);
+                                        sizeTotal += size;
                                     } else {
                                         String fileName = file.getFileMetadata().getLabel();
                                         String mimeType = file.getContentType();
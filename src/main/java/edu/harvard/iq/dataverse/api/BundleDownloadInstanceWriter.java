@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.IOException;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.InternalServerErrorException;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.WebApplicationException;
@@ -36,6 +37,9 @@ public class BundleDownloadInstanceWriter implements MessageBodyWriter<BundleDow
     
     private static final Logger logger = Logger.getLogger(BundleDownloadInstanceWriter.class.getCanonicalName());
 
+    @Inject
+    FormatConversionMetrics formatConversionMetrics;
+
     
     @Override
     public boolean isWriteable(Class<?> clazz, Type type, Annotation[] annotation, MediaType mediaType) {
@@ -128,7 +132,7 @@ public class BundleDownloadInstanceWriter implements MessageBodyWriter<BundleDow
                     if (!"application/x-rlang-transport".equals(origFormat)) {
                         try {
                             StorageIO<DataFile> accessObjectRdata = DataConverter.performFormatConversion(sf, accessObject,
-                                                                                                           "RData", "application/x-rlang-transport");
+                                                                                                           "RData", "application/x-rlang-transport", formatConversionMetrics);
 
                             if (accessObjectRdata != null) {
                                 instream = accessObjectRdata.getInputStream();
@@ -133,6 +133,13 @@ public class DownloadInstance {
                         conversionParamValue = serviceArgValue; 
                         return true; 
                     }
+                } else if (serviceArg.equals("rows")) {
+                    // Row range of a tabular file (rows=<FIRST>-<LAST>):
+                    if ("rows".equals(dataService.getServiceName())) {
+                        conversionParam = "rows";
+                        conversionParamValue = serviceArgValue;
+                        return true;
+                    }
                 } else if (serviceArg.equals("noVarHeader")) {
                     // Another special case available for tabular ("subsettable") data files - 
                     // "do not add variable header" flag:
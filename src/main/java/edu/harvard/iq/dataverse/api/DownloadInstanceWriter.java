@@ -33,17 +33,29 @@ import edu.harvard.iq.dataverse.makedatacount.MakeDataCountLoggingServiceBean.Ma
 import edu.harvard.iq.dataverse.util.FileUtil;
 import edu.harvard.iq.dataverse.util.SystemConfig;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.RedirectionException;
@@ -66,9 +78,18 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
     SystemConfig systemConfig;
     @Inject
     GlobusServiceBean globusService;
+    @Inject
+    FormatConversionMetrics formatConversionMetrics;
 
     private static final Logger logger = Logger.getLogger(DownloadInstanceWriter.class.getCanonicalName());
 
+    // Max. number of ranges in a multi-range request:
+    private static final int MAX_RANGES = 100;
+    private static final int TRANSFER_BUFFER_SIZE = 256 * 1024;
+    // (a plain ThreadLocal holding a byte[], so that nothing from the
+    // application class loader is left attached to the container threads)
+    private static final ThreadLocal<byte[]> transferBuffer = new ThreadLocal<>();
+
     @Override
     public boolean isWriteable(Class<?> clazz, Type type, Annotation[] annotation, MediaType mediaType) {
         return clazz == DownloadInstance.class;
@@ -333,7 +354,7 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
                                 storageIO
                                         = DataConverter.performFormatConversion(dataFile,
                                                 storageIO,
-                                                di.getConversionParamValue(), requestedMimeType);
+                                                di.getConversionParamValue(), requestedMimeType, formatConversionMetrics);
                             }
                         } else if (di.getConversionParam().equals("subset")) {
                             logger.fine("processing subset request.");
@@ -376,11 +397,31 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
                                             numberOfLines++;
                                         }
                                         
-                                        tabularSubsetGenerator.subsetFile(storageIO.getInputStream(), 
-                                                tempSubsetFile.getAbsolutePath(), 
-                                                variablePositionIndex, 
-                                                numberOfLines, 
-                                                "\t");
+                                        // If the file has a columnar copy, only
+                                        // the requested columns need to be read:
+                                        ColumnarTabFile columnarFile = null;
+                                        try {
+                                            columnarFile = ColumnarTabFile.open(storageIO);
+                                        } catch (IOException ioex) {
+                                            logger.warning("Failed to open the columnar copy of the tabular file; subsetting the tab file instead. " + ioex.getMessage());
+                                        }
+                                        
+                                        if (columnarFile != null && columnarFile.getNumRows() == numberOfLines) {
+                                            logger.fine("subsetting the columnar copy of the tabular file.");
+                                            columnarFile.subsetFile(variablePositionIndex, tempSubsetFile.getAbsolutePath());
+                                        } else {
+                                            // For local files, read the FileChannel 
+                                            // directly, rather than the InputStream:
+                                            ReadableByteChannel tabularChannel = storageIO.getChannel() instanceof FileChannel
+                                                    ? (FileChannel) storageIO.getChannel()
+                                                    : Channels.newChannel(storageIO.getInputStream());
+
+                                            tabularSubsetGenerator.subsetFile(tabularChannel, 
+                                                    tempSubsetFile.getAbsolutePath(), 
+                                                    variablePositionIndex, 
+                                                    numberOfLines, 
+                                                    "\t");
+                                        }
 
                                         if (tempSubsetFile.exists()) {
                                             FileInputStream subsetStream = new FileInputStream(tempSubsetFile);
@@ -418,6 +459,14 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
                                 logger.fine("empty list of extra arguments.");
                             }
                             // end of tab. data subset case
+                        } else if (di.getConversionParam().equals("rows")) {
+                            logger.fine("processing row range request.");
+                            try {
+                                storageIO = getRowRange(dataFile, storageIO, di.getConversionParamValue());
+                            } catch (IOException ioex) {
+                                logger.warning("Failed to serve the row range of the tabular file: " + ioex.getMessage());
+                                storageIO = null;
+                            }
                         } else if (dataFile.getDataTable().isStoredWithVariableHeader()) {
                             logger.fine("tabular file stored with the var header included, no need to generate it on the fly");
                             storageIO.setNoVarHeader(Boolean.TRUE);
@@ -448,7 +497,15 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
 
                 } 
 
-                try (InputStream instream = storageIO.getInputStream()) {
+                // For range requests, the storage drivers that can fetch byte
+                // ranges from the storage (S3, remote overlay stores) are asked for
+                // the requested bytes only; so we don't open the stream on the
+                // entire object at all:
+                HttpHeaders requestHeaders = di.getRequestHttpHeaders();
+                boolean rangedReads = storageIO.isRangedReadPreferred()
+                        && requestHeaders != null && requestHeaders.getHeaderString("Range") != null;
+
+                try (InputStream instream = rangedReads ? InputStream.nullInputStream() : storageIO.getInputStream()) {
                     if (instream != null) {
                         // headers:
 
@@ -470,18 +527,22 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
                         // stream is known (i.e., it's not a dynamically generated 
                         // stream. 
                         List<Range> ranges = new ArrayList<>();
+                        List<byte[]> multipartHeaders = null;
+                        byte[] multipartEnd = null;
                         String rangeHeader = null;
                         HttpHeaders headers = di.getRequestHttpHeaders();
                         if (headers != null) {
                             rangeHeader = headers.getHeaderString("Range");
                         }
-                        long offset = 0;
-                        long leftToRead = -1L; 
-                        // Moving the "left to read" var. here; - since we may need 
-                        // to start counting our rangeHeader bytes outside the main .write()
-                        // loop, if it's a tabular file with a header. 
+                        // The variable header, if any; the bytes are the same
+                        // for the whole request, so we only produce them once:
+                        byte[] varHeaderBytes = storageIO.getVarHeader() != null ? storageIO.getVarHeader().getBytes() : new byte[0];
+                        // For a range request, the ranges are written out of the
+                        // variable header (if any) and the body of the physical file,
+                        // as the requested ranges may span any portion of the combined
+                        // stream.
                         
-                        if ((contentSize = getContentSize(storageIO)) > 0) {
+                        if ((contentSize = getContentSize(storageIO, varHeaderBytes)) > 0) {
                             try {
                                 ranges = getRanges(rangeHeader, contentSize);
                             } catch (Exception ex) {
@@ -492,17 +553,34 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
                             if (ranges.isEmpty()) {
                                 logger.fine("Content size (retrieved from the AccessObject): " + contentSize);
                                 httpHeaders.add("Content-Length", contentSize);
-                            } else  {
-                                // For now we only support a single rangeHeader.
+                            } else if (ranges.size() == 1) {
                                 long rangeContentSize = ranges.get(0).getLength();
                                 logger.fine("Content size (Range header in use): " + rangeContentSize);
                                 httpHeaders.add("Content-Length", rangeContentSize);
                                 
-                                offset = ranges.get(0).getStart();
-                                leftToRead = rangeContentSize;
                                 httpHeaders.add("Accept-Ranges", "bytes");
-                                httpHeaders.add("Content-Range", "bytes "+offset+"-"+(offset+rangeContentSize-1)+"/"+contentSize);
+                                httpHeaders.add("Content-Range", getContentRange(ranges.get(0), contentSize));
 
+                            } else {
+                                // Multiple ranges; served as a multipart/byteranges
+                                // response, each part with its own Content-Range.
+                                String boundary = UUID.randomUUID().toString().replace("-", "");
+                                multipartHeaders = new ArrayList<>();
+                                long multipartContentSize = 0;
+                                for (Range range : ranges) {
+                                    byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                                            + "Content-Type: " + mimeType + "\r\n"
+                                            + "Content-Range: " + getContentRange(range, contentSize) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+                                    multipartHeaders.add(partHeader);
+                                    multipartContentSize += partHeader.length + range.getLength();
+                                }
+                                multipartEnd = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+                                multipartContentSize += multipartEnd.length;
+                                logger.fine("Content size (" + ranges.size() + " ranges): " + multipartContentSize);
+
+                                httpHeaders.putSingle("Content-Type", "multipart/byteranges; boundary=" + boundary);
+                                httpHeaders.add("Content-Length", multipartContentSize);
+                                httpHeaders.add("Accept-Ranges", "bytes");
                             }
                         } else {
                             // Content size unknown, must be a dynamically
@@ -516,91 +594,32 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
 
                         // (the httpHeaders map must be modified *before* writing any
                         // data in the output stream!)
-                        int bufsize;
-                        byte[] bffr = new byte[4 * 8192];
-
-                        // Before writing out any bytes from the input stream, write
-                        // any extra content, such as the variable header for the 
-                        // subsettable files: 
-                        if (storageIO.getVarHeader() != null) {
-                            logger.fine("storageIO.getVarHeader().getBytes().length: " + storageIO.getVarHeader().getBytes().length);
-                            if (storageIO.getVarHeader().getBytes().length > 0) {
-                                // If a rangeHeader is not being requested, let's call that the normal case.
-                                // Write the entire line of variable headers. Later, the rest of the file
-                                // will be written.
-                                if (ranges.isEmpty()) {
-                                    logger.fine("writing the entire variable header");
-                                    outstream.write(storageIO.getVarHeader().getBytes());
-                                } else {
-                                    // Range requested. Since the output stream of a 
-                                    // tabular file is made up of the varHeader and the body of 
-                                    // the physical file, we should assume that the requested 
-                                    // rangeHeader may span any portion of the combined stream.
-                                    // Thus we may or may not have to write the header, or a 
-                                    // portion thereof. 
-                                    int headerLength = storageIO.getVarHeader().getBytes().length;
-                                    if (offset >= headerLength) {
-                                        // We can skip the entire header. 
-                                        // All we need to do is adjust the byte offset 
-                                        // in the physical file; the number of bytes
-                                        // left to write stays unchanged, since we haven't
-                                        // written anything.
-                                        logger.fine("Skipping the variable header completely.");
-                                        offset -= headerLength;
-                                    } else {
-                                        // We need to write some portion of the header; 
-                                        // Once we are done, we may or may not still have 
-                                        // some bytes left to write from the main physical file.
-                                        if (offset + leftToRead <= headerLength) {
-                                            // This is a more straightforward case - we just need to 
-                                            // write a portion of the header, and then we are done!
-                                            logger.fine("Writing this many bytes of the variable header line: " + leftToRead);
-                                            outstream.write(Arrays.copyOfRange(storageIO.getVarHeader().getBytes(), (int)offset, (int)offset + (int)leftToRead));
-                                            // set "left to read" to zero, indicating that we are done:
-                                            leftToRead = 0; 
-                                        } else {
-                                            // write the requested portion of the header:
-                                            logger.fine("Writing this many bytes of the variable header line: " + (headerLength - offset));
-                                            outstream.write(Arrays.copyOfRange(storageIO.getVarHeader().getBytes(), (int)offset, headerLength));
-                                            // and adjust the file offset and remaining number of bytes accordingly: 
-                                            leftToRead -= (headerLength - offset);
-                                            offset = 0;
-                                        }
-                                        
-                                    }
-                                }
-                            }
-                        }
 
-                        // Dynamic streams, etc. Normal operation. No leftToRead.
+                        // Dynamic streams, etc. Normal operation.
                         if (ranges.isEmpty()) {
                             logger.fine("Normal, non-range request of file id " + dataFile.getId());
-                            while ((bufsize = instream.read(bffr)) != -1) {
-                                outstream.write(bffr, 0, bufsize);
+                            // Before writing out any bytes from the input stream, write
+                            // any extra content, such as the variable header for the 
+                            // subsettable files: 
+                            if (varHeaderBytes.length > 0) {
+                                logger.fine("writing the entire variable header");
+                                outstream.write(varHeaderBytes);
                             }
-                        } else if (leftToRead > 0) {
-                            // This is a rangeHeader request, and we still have bytes to read 
-                            // (for a tabular file, we may have already written enough
-                            // bytes from the variable header!)
-                            storageIO.setOffset(offset);
-                            // Thinking about it, we could just do instream.skip(offset) 
-                            // here... But I would like to have this offset functionality 
-                            // in StorageIO, for any future cases where we may not 
-                            // be able to do that on the stream directly (?) -- L.A.
-                            logger.fine("Range request of file id " + dataFile.getId());
-                            // Read a rangeHeader of bytes instead of the whole file. We'll count down as we write.
-                            // For now we only support a single rangeHeader.
-                            while ((bufsize = instream.read(bffr)) != -1) {
-                                if ((leftToRead -= bufsize) > 0) {
-                                    // Just do a normal write. Potentially lots to go. Don't break.
-                                    outstream.write(bffr, 0, bufsize);
-                                } else {
-                                    // Get those last bytes or bytes equal to bufsize. Last one. Then break.
-                                    outstream.write(bffr, 0, (int) leftToRead + bufsize);
-                                    break;
+                            transferData(storageIO, instream, -1L, outstream);
+                        } else {
+                            logger.fine("Range request of file id " + dataFile.getId() + ", " + ranges.size() + " range(s)");
+                            // (the ranges are in ascending order and do not overlap,
+                            // so we can read them all from the same stream, if need be)
+                            long position = 0;
+                            for (int i = 0; i < ranges.size(); i++) {
+                                if (multipartHeaders != null) {
+                                    outstream.write(multipartHeaders.get(i));
                                 }
+                                position = writeRange(storageIO, instream, position, varHeaderBytes, ranges.get(i), rangedReads, outstream);
+                            }
+                            if (multipartEnd != null) {
+                                outstream.write(multipartEnd);
                             }
-
                         }
 
                         logger.fine("di conversion param: " + di.getConversionParam() + ", value: " + di.getConversionParamValue());
@@ -632,6 +651,91 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
 
     }
 
+    /*
+     * Serves a range of rows (observations, 1-based, inclusive) of a tabular 
+     * file. If the file has a row index and the storage driver supports ranged 
+     * reads, the range is located using the index and served as a single byte 
+     * range of the physical file; otherwise the file is read sequentially up 
+     * to the last requested row. 
+     */
+    private StorageIO<DataFile> getRowRange(DataFile dataFile, StorageIO<DataFile> storageIO, String rowRange) throws IOException {
+        long caseQuantity = dataFile.getDataTable().getCaseQuantity();
+        long firstRow;
+        long lastRow;
+        try {
+            String[] rows = rowRange.split("-", 2);
+            firstRow = Long.parseLong(rows[0].trim());
+            lastRow = rows.length > 1 && !rows[1].trim().isEmpty() ? Long.parseLong(rows[1].trim()) : caseQuantity;
+        } catch (NumberFormatException nfe) {
+            throw new BadRequestException("Invalid row range: " + rowRange);
+        }
+        if (firstRow < 1 || lastRow < firstRow) {
+            throw new BadRequestException("Invalid row range: " + rowRange);
+        }
+        lastRow = Math.min(lastRow, caseQuantity);
+        
+        // lines of the physical file; line 0 is the variable header, if 
+        // the file is stored with it:
+        long headerLines = dataFile.getDataTable().isStoredWithVariableHeader() ? 1 : 0;
+        long firstLine = Math.min(firstRow - 1, caseQuantity) + headerLines;
+        long endLine = lastRow + headerLines;
+        
+        InputStreamIO rowsStreamIO = null; 
+        
+        TabRowIndex rowIndex = null;
+        try {
+            rowIndex = TabRowIndex.open(storageIO);
+        } catch (IOException ioex) {
+            logger.warning("Failed to open the row index of the tabular file; reading the file sequentially instead. " + ioex.getMessage());
+        }
+        
+        if (rowIndex != null && rowIndex.getNumLines() == caseQuantity + headerLines) {
+            try {
+                long[] byteRange = rowIndex.locateLines(storageIO, firstLine, endLine);
+                long rangeSize = byteRange[1] - byteRange[0];
+                rowsStreamIO = new InputStreamIO(storageIO.getRangeInputStream(byteRange[0], rangeSize), rangeSize);
+                // we are not going to use the stream opened on the whole file: 
+                storageIO.closeInputStream();
+                logger.fine("serving bytes " + byteRange[0] + "-" + byteRange[1] + " of the tabular file.");
+            } catch (UnsupportedDataAccessOperationException uoex) {
+                logger.fine("ranged reads not supported by the storage driver; reading the file sequentially.");
+            } catch (IOException ioex) {
+                // e.g. an index that doesn't match the file (anymore)
+                logger.warning("Failed to locate the rows with the row index of the tabular file; reading the file sequentially instead. " + ioex.getMessage());
+            }
+        }
+        
+        if (rowsStreamIO == null) {
+            File tempRowsFile = File.createTempFile("tempRowsFile", ".tmp");
+            try (OutputStream rowsOut = new BufferedOutputStream(new FileOutputStream(tempRowsFile))) {
+                TabRowIndex.copyLines(storageIO.getInputStream(), firstLine, endLine, rowsOut);
+            } catch (IOException ioex) {
+                tempRowsFile.delete();
+                throw ioex;
+            } finally {
+                // (the rows are served from the temp file)
+                storageIO.closeInputStream();
+            }
+            // the temp file is deleted once the rows have been written to the response: 
+            rowsStreamIO = new InputStreamIO(Files.newInputStream(tempRowsFile.toPath(), StandardOpenOption.DELETE_ON_CLOSE), tempRowsFile.length());
+        }
+        
+        rowsStreamIO.setVarHeader(storageIO.generateVariableHeader(dataFile.getDataTable().getDataVariables()));
+        
+        String tabularFileName = storageIO.getFileName();
+        if (tabularFileName != null && tabularFileName.endsWith(".tab")) {
+            tabularFileName = tabularFileName.replaceAll("\\.tab$", "-rows.tab");
+        } else if (tabularFileName != null && !"".equals(tabularFileName)) {
+            tabularFileName = tabularFileName.concat("-rows.tab");
+        } else {
+            tabularFileName = "rows.tab";
+        }
+        rowsStreamIO.setFileName(tabularFileName);
+        rowsStreamIO.setMimeType(storageIO.getMimeType());
+        
+        return rowsStreamIO;
+    }
+
     private boolean isAuxiliaryObjectCached(StorageIO storageIO, String auxiliaryTag) {
         try {
             return storageIO.isAuxObjectCached(auxiliaryTag);
@@ -686,19 +790,126 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
         return downloadInstance.getConversionParam().equals("format") && downloadInstance.getConversionParamValue().equals("prep");
     }
 
-    private long getContentSize(StorageIO<?> accessObject) {
-        long contentSize = 0;
-
+    private long getContentSize(StorageIO<?> accessObject, byte[] varHeaderBytes) {
         if (accessObject.getSize() > -1) {
-            contentSize += accessObject.getSize();
-            if (accessObject.getVarHeader() != null) {
-                if (accessObject.getVarHeader().getBytes().length > 0) {
-                    contentSize += accessObject.getVarHeader().getBytes().length;
+            return accessObject.getSize() + varHeaderBytes.length;
+        }
+        return -1;
+    }
+
+    /*
+     * Copies the content of the access object to the output stream - all of
+     * it, if length is negative, or the next "length" bytes. For local files we
+     * read from the FileChannel of the file rather than from its InputStream:
+     * the channel reads through a direct buffer cached by the JVM, whereas
+     * FileInputStream allocates a native buffer on every read larger than 8K.
+     * Either way the data goes through one large buffer, reused by all the
+     * downloads served by the same (pooled) container thread, instead of a new
+     * small buffer per request.
+     */
+    private static void transferData(StorageIO<?> storageIO, InputStream instream, long length, OutputStream outstream) throws IOException {
+        Channel channel = storageIO.getChannel();
+        if (!(channel instanceof FileChannel)) {
+            copyStream(instream, length, outstream);
+            return;
+        }
+
+        // (the channel shares its position with the InputStream, so any
+        // offset already applied to the stream is applied to the channel)
+        FileChannel fileChannel = (FileChannel) channel;
+        byte[] buffer = getTransferBuffer();
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long leftToRead = length < 0 ? Long.MAX_VALUE : length;
+        while (leftToRead > 0) {
+            byteBuffer.clear();
+            byteBuffer.limit((int) Math.min(buffer.length, leftToRead));
+            int read = fileChannel.read(byteBuffer);
+            if (read == -1) {
+                break;
+            }
+            outstream.write(buffer, 0, read);
+            leftToRead -= read;
+        }
+    }
+
+    private static void copyStream(InputStream instream, long length, OutputStream outstream) throws IOException {
+        byte[] buffer = getTransferBuffer();
+        long leftToRead = length < 0 ? Long.MAX_VALUE : length;
+        while (leftToRead > 0) {
+            int read = instream.read(buffer, 0, (int) Math.min(buffer.length, leftToRead));
+            if (read == -1) {
+                break;
+            }
+            outstream.write(buffer, 0, read);
+            leftToRead -= read;
+        }
+    }
+
+    /*
+     * Writes one range of the combined stream made up of the variable header
+     * and the body of the physical file. We may or may not have to write the
+     * header, or a portion thereof; and then some or none of the body. With
+     * rangedReads, the body portion is fetched from the storage driver as a
+     * byte range; otherwise it is read from the stream on the entire file,
+     * skipping forward from its current position.
+     *
+     * @return the position in the stream on the entire file after the range
+     */
+    private static long writeRange(StorageIO<?> storageIO, InputStream instream, long position, byte[] varHeaderBytes, Range range, boolean rangedReads, OutputStream outstream) throws IOException {
+        int headerLength = varHeaderBytes.length;
+        long start = range.getStart();
+        long end = range.getEnd() + 1;
+
+        if (start < headerLength) {
+            int headerEnd = (int) Math.min(end, headerLength);
+            logger.fine("Writing this many bytes of the variable header line: " + (headerEnd - start));
+            outstream.write(varHeaderBytes, (int) start, headerEnd - (int) start);
+            start = headerEnd;
+        }
+        if (start == end) {
+            return position;
+        }
+
+        long bodyOffset = start - headerLength;
+        long bodyLength = end - start;
+        if (rangedReads) {
+            try (InputStream rangeStream = storageIO.getRangeInputStream(bodyOffset, bodyLength)) {
+                copyStream(rangeStream, bodyLength, outstream);
+            }
+            return position;
+        }
+
+        skipBytes(instream, bodyOffset - position);
+        transferData(storageIO, instream, bodyLength, outstream);
+        return bodyOffset + bodyLength;
+    }
+
+    private static void skipBytes(InputStream instream, long count) throws IOException {
+        // (InputStream.skip() on a local file is a seek, so we don't want to
+        // use IOUtils.skipFully(), which reads the bytes)
+        while (count > 0) {
+            long skipped = instream.skip(count);
+            if (skipped <= 0) {
+                if (instream.read() == -1) {
+                    throw new IOException("Unexpected end of stream while skipping to the requested range");
                 }
+                skipped = 1;
             }
-            return contentSize;
+            count -= skipped;
         }
-        return -1;
+    }
+
+    private static String getContentRange(Range range, long contentSize) {
+        return "bytes " + range.getStart() + "-" + range.getEnd() + "/" + contentSize;
+    }
+
+    private static byte[] getTransferBuffer() {
+        byte[] buffer = transferBuffer.get();
+        if (buffer == null) {
+            buffer = new byte[TRANSFER_BUFFER_SIZE];
+            transferBuffer.set(buffer);
+        }
+        return buffer;
     }
 
     private long getFileSize(DownloadInstance di) {
@@ -743,6 +954,8 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
 
     /**
      * @param range "bytes 0-10" for example. Found in the "Range" HTTP header.
+     * Multiple ranges ("bytes=0-10,90-99") are supported; they are returned
+     * in ascending order, with the overlapping and adjacent ranges merged.
      * @param fileSize File size in bytes.
      * @throws RunTimeException on any problems processing the Range header.
      */
@@ -754,19 +967,15 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
         if (range != null) {
             logger.fine("Range header supplied: " + range);
 
-            // Technically this regex supports multiple ranges.
-            // Below we have a check to enforce a single range.
             if (!range.matches("^bytes=\\d*-\\d*(,\\d*-\\d*)*$")) {
                 throw new RuntimeException("The format is bytes=<range-start>-<range-end> where start and end are optional.");
             }
 
             // The 6 is to remove "bytes="
             String[] parts = range.substring(6).split(",");
-            if (parts.length > 1) {
-                // Only allow a single range.
-                throw new RuntimeException("Only one range is allowed.");
+            if (parts.length > MAX_RANGES) {
+                throw new RuntimeException("No more than " + MAX_RANGES + " ranges are allowed.");
             }
-            // This loop is here in case we ever want to support multiple ranges.
             for (String part : parts) {
 
                 long start = getRangeStart(part);
@@ -792,9 +1001,29 @@ public class DownloadInstanceWriter implements MessageBodyWriter<DownloadInstanc
             }
         }
 
+        if (ranges.size() > 1) {
+            ranges = mergeRanges(ranges);
+        }
         return ranges;
     }
 
+    private static List<Range> mergeRanges(List<Range> ranges) {
+        List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(Range::getStart));
+        List<Range> merged = new ArrayList<>();
+        Range current = sorted.get(0);
+        for (Range range : sorted.subList(1, sorted.size())) {
+            if (range.getStart() <= current.getEnd() + 1) {
+                current = new Range(current.getStart(), Math.max(current.getEnd(), range.getEnd()));
+            } else {
+                merged.add(current);
+                current = range;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
     /**
      * @return Return a positive long or -1 if start does not exist.
      */
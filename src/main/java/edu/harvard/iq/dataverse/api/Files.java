@@ -915,7 +915,9 @@ public class Files extends AbstractApiBean {
                         return badRequest(iax.getMessage());
                     }
                 }
-                execCommand(new UpdateDatasetVersionCommand(dataFile.getOwner(), req));
+                UpdateDatasetVersionCommand cmd = new UpdateDatasetVersionCommand(dataFile.getOwner(), req);
+                cmd.setDataFilesChanged(true);
+                execCommand(cmd);
                 return ok("Tabular tags of file " + dataFileId + " updated.");
             } catch (JsonParsingException jpe) {
                 return badRequest("Error parsing Json: " + jpe.getMessage());
@@ -31,6 +31,8 @@ import edu.harvard.iq.dataverse.search.IndexBatchServiceBean;
 import edu.harvard.iq.dataverse.search.IndexResponse;
 import edu.harvard.iq.dataverse.search.IndexServiceBean;
 import edu.harvard.iq.dataverse.search.IndexUtil;
+import edu.harvard.iq.dataverse.search.ReindexJobServiceBean;
+import edu.harvard.iq.dataverse.search.ReindexPartition;
 import edu.harvard.iq.dataverse.search.SearchException;
 import edu.harvard.iq.dataverse.search.SearchFields;
 import edu.harvard.iq.dataverse.search.SearchFilesServiceBean;
@@ -96,6 +98,8 @@ public class Index extends AbstractApiBean {
     DatasetFieldServiceBean datasetFieldService;
     @EJB
     SearchFilesServiceBean searchFilesService;
+    @EJB
+    ReindexJobServiceBean reindexJobService;
 
     public static String contentChanged = "contentChanged";
     public static String contentIndexed = "contentIndexed";
@@ -205,6 +209,60 @@ public class Index extends AbstractApiBean {
         }
     }
 
+    /**
+     * Starts a parallel reindex of all the datasets (and dataverses), divided
+     * into partitions that are indexed side by side.
+     */
+    @GET
+    @Path("parallel")
+    public Response indexParallel(@QueryParam("partitions") Integer numPartitionsSelected) {
+        if (reindexJobService.isRunning()) {
+            return error(Status.CONFLICT, "A parallel reindex is already running.");
+        }
+        int numPartitions = reindexJobService.getDefaultNumPartitions();
+        if (numPartitionsSelected != null) {
+            if (numPartitionsSelected < 1) {
+                return error(Status.BAD_REQUEST, "partitions must be 1 or higher but was " + numPartitionsSelected);
+            }
+            numPartitions = numPartitionsSelected;
+        }
+        List<ReindexPartition> partitions = reindexJobService.createPartitions(numPartitions);
+        indexBatchService.indexAllDataverses();
+        for (ReindexPartition partition : partitions) {
+            indexBatchService.indexPartition(partition);
+        }
+        return ok("parallel reindex has begun of " + partitions.size() + " partitions. See /api/admin/index/parallel/status for its progress.");
+    }
+
+    /**
+     * Resumes the partitions of the last parallel reindex that did not finish
+     * (e.g. because the server was restarted), from their last checkpoint.
+     */
+    @GET
+    @Path("parallel/resume")
+    public Response resumeIndexParallel() {
+        if (reindexJobService.isRunning()) {
+            return error(Status.CONFLICT, "A parallel reindex is already running.");
+        }
+        int resumed = 0;
+        for (ReindexPartition partition : reindexJobService.findPartitions()) {
+            if (!partition.isFinished()) {
+                indexBatchService.indexPartition(partition);
+                resumed++;
+            }
+        }
+        if (resumed == 0) {
+            return error(Status.BAD_REQUEST, "There is no unfinished parallel reindex to resume.");
+        }
+        return ok("parallel reindex has resumed " + resumed + " partitions");
+    }
+
+    @GET
+    @Path("parallel/status")
+    public Response indexParallelStatus() {
+        return ok(reindexJobService.getProgress());
+    }
+
     @GET
     @Path("clear")
     public Response clearSolrIndex() {
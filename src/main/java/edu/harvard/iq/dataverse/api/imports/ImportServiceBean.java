@@ -30,6 +30,7 @@ import edu.harvard.iq.dataverse.engine.command.impl.CreateDataverseCommand;
 import edu.harvard.iq.dataverse.engine.command.impl.CreateHarvestedDatasetCommand;
 import edu.harvard.iq.dataverse.engine.command.impl.CreateNewDatasetCommand;
 import edu.harvard.iq.dataverse.engine.command.impl.DestroyDatasetCommand;
+import edu.harvard.iq.dataverse.harvest.client.HarvestedRecord;
 import edu.harvard.iq.dataverse.harvest.client.HarvestingClient;
 import edu.harvard.iq.dataverse.search.IndexServiceBean;
 import edu.harvard.iq.dataverse.settings.SettingsServiceBean;
@@ -201,6 +202,32 @@ public class ImportServiceBean {
 
     @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
     public Dataset doImportHarvestedDataset(DataverseRequest dataverseRequest, HarvestingClient harvestingClient, String harvestIdentifier, String metadataFormat, File metadataFile, Date oaiDateStamp, PrintWriter cleanupLog) throws ImportException, IOException {
+        return importHarvestedDataset(dataverseRequest, harvestingClient, harvestIdentifier, metadataFormat, metadataFile, oaiDateStamp, cleanupLog, true);
+    }
+
+    /**
+     * Imports several harvested records in a single transaction. The datasets
+     * are not indexed; the caller indexes them once the transaction has been
+     * committed. If any of the records fails to import, the whole transaction
+     * is rolled back, and an EJBException is thrown; the caller can then
+     * import the records one by one, to find the failing ones.
+     *
+     * @return The imported datasets, in the order of the records.
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public List<Dataset> doImportHarvestedDatasets(DataverseRequest dataverseRequest, HarvestingClient harvestingClient, String metadataFormat, List<HarvestedRecord> records, PrintWriter cleanupLog) {
+        List<Dataset> importedDatasets = new ArrayList<>();
+        for (HarvestedRecord record : records) {
+            try {
+                importedDatasets.add(importHarvestedDataset(dataverseRequest, harvestingClient, record.getIdentifier(), metadataFormat, record.getMetadataFile(), record.getDateStamp(), cleanupLog, false));
+            } catch (ImportException | IOException ex) {
+                throw new EJBException("Failed to import " + record.getIdentifier() + ": " + ex.getMessage(), ex);
+            }
+        }
+        return importedDatasets;
+    }
+
+    private Dataset importHarvestedDataset(DataverseRequest dataverseRequest, HarvestingClient harvestingClient, String harvestIdentifier, String metadataFormat, File metadataFile, Date oaiDateStamp, PrintWriter cleanupLog, boolean indexed) throws ImportException, IOException {
         if (harvestingClient == null || harvestingClient.getDataverse() == null) {
             throw new ImportException("importHarvestedDataset called wiht a null harvestingClient, or an invalid harvestingClient.");
         }
@@ -371,7 +398,7 @@ public class ImportServiceBean {
                 engineSvc.submit(new DestroyDatasetCommand(merged, dataverseRequest));
             }
             
-            importedDataset = engineSvc.submit(new CreateHarvestedDatasetCommand(ds, dataverseRequest));
+            importedDataset = engineSvc.submit(new CreateHarvestedDatasetCommand(ds, dataverseRequest, indexed));
 
         } catch (JsonParseException | ImportException | CommandException ex) {
             logger.fine("Failed to import harvested dataset: " + ex.getClass() + ": " + ex.getMessage());
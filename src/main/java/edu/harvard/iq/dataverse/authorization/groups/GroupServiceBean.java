@@ -111,7 +111,7 @@ public class GroupServiceBean {
         // for everything, so we need to perform some extra hacky steps in 
         // order to obtain the ancestors for the shib groups as well:
         
-        Set<ExplicitGroup> directAncestorsOfShibGroups = new HashSet<>();
+        Set<Group> nonExplicitGroups = new HashSet<>();
         for (Group group : ret) {
 
             if (group instanceof ShibGroup 
@@ -119,22 +119,17 @@ public class GroupServiceBean {
                     || group instanceof MailDomainGroup) {
                 // if this is one of the non-explicit group types above, we 
                 // need to find if it is included in some explicit group; i.e., 
-                // if it has direct ancestors that happen to be explicit groups:
+                // if it has ancestors that happen to be explicit groups:
                 
-                directAncestorsOfShibGroups.addAll(explicitGroupService.findDirectlyContainingGroups(group));
+                nonExplicitGroups.add(group);
             }
         }
         
-        if (!directAncestorsOfShibGroups.isEmpty()) {
-            // ... and now we can run the Monster Query in the ExplicitServiceBean
-            // that will find ALL the hierarchical explicit group ancestors of 
-            // these groups that include the shib groups fond
+        if (!nonExplicitGroups.isEmpty()) {
+            // ... and now we can look up ALL the hierarchical explicit group 
+            // ancestors of these groups in the ExplicitGroupServiceBean:
             
-            Set<ExplicitGroup> allAncestorsOfShibGroups = explicitGroupService.findClosure(directAncestorsOfShibGroups);
-            
-            if (allAncestorsOfShibGroups != null) {
-                ret.addAll(allAncestorsOfShibGroups);
-            }
+            ret.addAll(explicitGroupService.findAncestors(nonExplicitGroups));
         }
         
         // Perhaps the code above should be moved into the ShibGroupProvider (??)
@@ -228,23 +223,10 @@ public class GroupServiceBean {
      * @return {@code groups} and their ancestors.
      */
     public Set<Group> collectAncestors( Collection<Group> groups ) {
-        // Ancestors will be collected here.
-        Set<Group> retVal = new HashSet<>(); 
-        
-         // Groups whose ancestors were not collected yet.
-        Set<Group> perimeter = new HashSet<>(groups);
-        
-        while ( ! perimeter.isEmpty() ) {
-            Group next = perimeter.iterator().next();
-            retVal.add(next);
-            perimeter.remove(next);
-            explicitGroupService.findDirectlyContainingGroups(next).forEach( g -> {
-                if ( ! retVal.contains(g) ) {
-                    perimeter.add( g );
-                }
-            });
+        Set<Group> retVal = new HashSet<>(groups);
+        if ( ! groups.isEmpty() ) {
+            retVal.addAll( explicitGroupService.findAncestors(groups) );
         }
-        
         return retVal;
     }
     
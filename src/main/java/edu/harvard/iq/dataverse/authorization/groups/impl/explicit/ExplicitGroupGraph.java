@@ -0,0 +1,89 @@
+package edu.harvard.iq.dataverse.authorization.groups.impl.explicit;
+
+import edu.harvard.iq.dataverse.authorization.RoleAssignee;
+import edu.harvard.iq.dataverse.authorization.users.AuthenticatedUser;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory copy of the containment relation of the {@link ExplicitGroup}s:
+ * for each explicit group, and for each of the other role assignees (e.g. IP
+ * or Shibboleth groups) that are members of explicit groups, the ids of the
+ * explicit groups that directly contain it. With it, all the ancestors of a
+ * set of groups are found without a query per level of nesting.
+ *
+ * {@link AuthenticatedUser}s are not part of the graph; their direct
+ * memberships are looked up in the database, and can then be fed to
+ * {@link #findClosure(java.util.Collection)}.
+ *
+ * The graph is populated once, by the {@code add...} methods, and is read-only
+ * after that.
+ */
+public class ExplicitGroupGraph {
+
+    private final Map<Long, Set<Long>> groupContainers = new HashMap<>();
+    private final Map<String, Set<Long>> roleAssigneeContainers = new HashMap<>();
+
+    public void addGroupContainment( long containedGroupId, long containerGroupId ) {
+        groupContainers.computeIfAbsent(containedGroupId, id -> new HashSet<>()).add(containerGroupId);
+    }
+
+    public void addRoleAssigneeContainment( String containedIdentifier, long containerGroupId ) {
+        roleAssigneeContainers.computeIfAbsent(containedIdentifier, idtf -> new HashSet<>()).add(containerGroupId);
+    }
+
+    /**
+     * @param ra A group, or any other role assignee that is not an {@link AuthenticatedUser}.
+     * @return The ids of the explicit groups that directly contain {@code ra}.
+     */
+    public Set<Long> findDirectContainerIds( RoleAssignee ra ) {
+        Set<Long> containers = ( ra instanceof ExplicitGroup )
+                ? groupContainers.get(((ExplicitGroup) ra).getId())
+                : roleAssigneeContainers.get(ra.getIdentifier());
+        return ( containers != null ) ? containers : Collections.emptySet();
+    }
+
+    /**
+     * Finds the ids of the groups in {@code seed}, the groups that contain them,
+     * the groups that contain these groups, and so on.
+     *
+     * @param seed Ids of explicit groups.
+     * @return The transitive closure of {@code seed}, based on group containment.
+     */
+    public Set<Long> findClosure( Collection<Long> seed ) {
+        Set<Long> closure = new HashSet<>(seed);
+        Deque<Long> perimeter = new ArrayDeque<>(seed);
+        while ( ! perimeter.isEmpty() ) {
+            Set<Long> containers = groupContainers.get(perimeter.pop());
+            if ( containers != null ) {
+                for ( Long container : containers ) {
+                    // The closure set also guards against cycles, in case someone
+                    // got too smart on the SQL console.
+                    if ( closure.add(container) ) {
+                        perimeter.push(container);
+                    }
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * @param ras Groups, or other role assignees that are not {@link AuthenticatedUser}s.
+     * @return The ids of all the explicit groups that contain any of {@code ras},
+     *         directly or indirectly.
+     */
+    public Set<Long> findAncestorIds( Collection<? extends RoleAssignee> ras ) {
+        Set<Long> direct = new HashSet<>();
+        for ( RoleAssignee ra : ras ) {
+            direct.addAll(findDirectContainerIds(ra));
+        }
+        return findClosure(direct);
+    }
+}
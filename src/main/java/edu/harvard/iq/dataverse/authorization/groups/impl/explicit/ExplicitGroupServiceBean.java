@@ -4,6 +4,8 @@ import edu.harvard.iq.dataverse.DvObject;
 import edu.harvard.iq.dataverse.RoleAssigneeServiceBean;
 import edu.harvard.iq.dataverse.authorization.RoleAssignee;
 import edu.harvard.iq.dataverse.authorization.users.AuthenticatedUser;
+import edu.harvard.iq.dataverse.util.cache.CacheFactoryBean;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -12,7 +14,6 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import static java.util.stream.Collectors.joining;
 import jakarta.annotation.PostConstruct;
 import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
@@ -34,37 +35,14 @@ public class ExplicitGroupServiceBean {
     private static final Logger logger = Logger.getLogger(ExplicitGroupServiceBean.class.getName());
     @EJB
     private RoleAssigneeServiceBean roleAssigneeSvc;
+    @EJB
+    CacheFactoryBean cacheFactory;
     
     @PersistenceContext(unitName = "VDCNet-ejbPU")
     protected EntityManager em;
 	
     ExplicitGroupProvider provider;
     
-    /**
-     * A PostgreSQL-specific query that returns a group and all the groups
-     * that contain it, and their parents too (-> recourse up teh containment
-     * hierarchy of the explicit groups). Takes the group id as a parameter.
-     */
-    private static final String FIND_ALL_PARENTS_QUERY_TEMPLATE = "WITH RECURSIVE\n" +
-        "explicit_group_graph AS (\n" +
-        "  SELECT\n" +
-        "     eg.id as id,\n" +
-        "     ee.explicitgroup_id as parent_group_id\n" +
-        "  FROM explicitgroup eg \n" +
-        "    LEFT JOIN explicitgroup_explicitgroup ee \n" +
-        "      ON eg.id=ee.containedexplicitgroups_id\n" +
-        "),\n" +
-        "parents AS (\n" +
-        "  SELECT * FROM explicit_group_graph\n" +
-        "  WHERE \n" +
-        "    id IN (@IDS)\n" +
-        "  UNION ALL\n" +
-        "  SELECT egg.*\n" +
-        "  FROM explicit_group_graph egg, parents\n" +
-        "  WHERE parents.parent_group_id = egg.id\n" +
-        ") SELECT * from explicitgroup \n" +
-        "WHERE id IN (SELECT distinct id FROM parents);";
-    
     @PostConstruct
     void setup() {
         provider = new ExplicitGroupProvider(this, roleAssigneeSvc);
@@ -75,6 +53,7 @@ public class ExplicitGroupServiceBean {
     }
     
     public ExplicitGroup persist( ExplicitGroup g ) {
+        invalidateGraph();
         if ( g.getId() == null ) {
             em.persist( g );
             return g;
@@ -125,6 +104,7 @@ public class ExplicitGroupServiceBean {
     }
 
     public void removeGroup(ExplicitGroup explicitGroup) {
+        invalidateGraph();
         em.remove( explicitGroup );
     }
     
@@ -255,14 +235,65 @@ public class ExplicitGroupServiceBean {
         
         if ( seed.isEmpty() ) return Collections.emptySet();
         
-        String ids = seed.stream().map(eg->Long.toString(eg.getId())).collect( joining(",") );
-        
-        // PSQL driver has issues with arrays and collections as parameters, so we're using 
-        // string manipulation to create the query here. Not ideal, but seems to be
-        // the only solution at the Java Persistence level (i.e. without downcasting to org.postgresql.*)
-        String sqlCode = FIND_ALL_PARENTS_QUERY_TEMPLATE.replace("@IDS", ids);
-        return new HashSet<>(em.createNativeQuery(sqlCode, ExplicitGroup.class)
-            .getResultList());
+        Set<Long> ids = seed.stream().map(ExplicitGroup::getId).collect( Collectors.toSet() );
+        return findByIds( getGraph().findClosure(ids) );
+    }
+    
+    /**
+     * Finds all the explicit groups that contain any of the passed groups, and the 
+     * groups that contain these groups, and so on. Unlike calling 
+     * {@link #findDirectlyContainingGroups(edu.harvard.iq.dataverse.authorization.RoleAssignee)}
+     * level by level, this takes a single query, whatever the nesting depth.
+     * 
+     * @param ras Groups, or other role assignees that are not {@link AuthenticatedUser}s.
+     * @return The explicit groups that contain, directly or indirectly, any of {@code ras}.
+     */
+    public Set<ExplicitGroup> findAncestors( Collection<? extends RoleAssignee> ras ) {
+        return findByIds( getGraph().findAncestorIds(ras) );
+    }
+    
+    protected Set<ExplicitGroup> findByIds( Collection<Long> ids ) {
+        if ( ids.isEmpty() ) return new HashSet<>();
+        return provider.updateProvider( new HashSet<>(
+                em.createNamedQuery("ExplicitGroup.findByIds", ExplicitGroup.class)
+                  .setParameter("ids", ids)
+                  .getResultList()));
+    }
+    
+    /**
+     * Returns the containment graph of the explicit groups, reloading it if 
+     * it was invalidated, or is too old.
+     * @return The containment graph of the explicit groups.
+     */
+    protected ExplicitGroupGraph getGraph() {
+        return cacheFactory.getExplicitGroupGraph(() -> {
+            ExplicitGroupGraph loaded = new ExplicitGroupGraph();
+            List<Object[]> groupEdges = em.createNativeQuery(
+                    "SELECT containedexplicitgroups_id, explicitgroup_id FROM explicitgroup_explicitgroup")
+                    .getResultList();
+            for ( Object[] edge : groupEdges ) {
+                loaded.addGroupContainment(((Number) edge[0]).longValue(), ((Number) edge[1]).longValue());
+            }
+            List<Object[]> roleAssigneeEdges = em.createNativeQuery(
+                    "SELECT containedroleassignees, explicitgroup_id FROM explicitgroup_containedroleassignees")
+                    .getResultList();
+            for ( Object[] edge : roleAssigneeEdges ) {
+                loaded.addRoleAssigneeContainment((String) edge[0], ((Number) edge[1]).longValue());
+            }
+            logger.fine("Reloaded the explicit group graph (" + groupEdges.size() + " group and " 
+                    + roleAssigneeEdges.size() + " other memberships)");
+            return loaded;
+        });
+    }
+    
+    /**
+     * Drops the graph (see {@link CacheFactoryBean#invalidateExplicitGroupGraph()});
+     * it will be reloaded on the next lookup.
+     */
+    private void invalidateGraph() {
+        cacheFactory.invalidateExplicitGroupGraph();
+        // the search permission filters list the groups of the users
+        cacheFactory.invalidatePermissionFilters();
     }
     
     /**
@@ -272,6 +303,7 @@ public class ExplicitGroupServiceBean {
      * @param assignee User or Group 
      */
     public void revokeAllGroupsForAssignee(RoleAssignee assignee) {
+        invalidateGraph();
         if (assignee instanceof AuthenticatedUser) {
             em.createNativeQuery("DELETE FROM explicitgroup_authenticateduser WHERE containedauthenticatedusers_id=" + ((AuthenticatedUser) assignee).getId()).executeUpdate();
         } else if (assignee instanceof ExplicitGroup) {
@@ -90,6 +90,23 @@ public class IpGroup extends PersistedGlobalGroup {
     public GroupProvider getGroupProvider() {
         return provider;
     }
+    
+    /**
+     * Returns an unmanaged copy of this group, with its provider set to {@code prv}.
+     * The copy shares the ranges of this group, and must not be stored.
+     * @param prv The provider of the copy.
+     * @return A copy of this group.
+     */
+    IpGroup copyWithProvider( IpGroupProvider prv ) {
+        IpGroup copy = new IpGroup(prv);
+        copy.setId(getId());
+        copy.setPersistedGroupAlias(getPersistedGroupAlias());
+        copy.setDisplayName(getDisplayName());
+        copy.setDescription(getDescription());
+        copy.ipv4Ranges = ipv4Ranges;
+        copy.ipv6Ranges = ipv6Ranges;
+        return copy;
+    }
 
     /**
      * Returns a <strong>read only</strong> set of all the ranges  in the group,
@@ -0,0 +1,149 @@
+package edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress;
+
+import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IPv4Address;
+import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IPv4Range;
+import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IPv6Address;
+import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IPv6Range;
+import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IpAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable, in-memory index of the address ranges of all the {@link IpGroup}s,
+ * for finding the groups containing an address without querying the database.
+ *
+ * Each address family is kept in an interval tree laid over an array of the
+ * ranges sorted by their bottom address: every node of the (implicit, balanced)
+ * tree holds the highest top address in its subtree, so that lookups skip the
+ * subtrees that end below the address. A lookup takes O(log n + k) for k matching
+ * ranges.
+ */
+public class IpGroupIndex {
+
+    private final IntervalTree<IPv4Address> ipv4Ranges;
+    private final IntervalTree<IPv6Address> ipv6Ranges;
+
+    private IpGroupIndex(IntervalTree<IPv4Address> ipv4Ranges, IntervalTree<IPv6Address> ipv6Ranges) {
+        this.ipv4Ranges = ipv4Ranges;
+        this.ipv6Ranges = ipv6Ranges;
+    }
+
+    /**
+     * Builds the index of the ranges of the passed groups. The ranges are read
+     * here, so it is safe to use the index once the groups are detached.
+     * @param groups The groups to index.
+     * @return The index.
+     */
+    public static IpGroupIndex build( Collection<IpGroup> groups ) {
+        List<Interval<IPv4Address>> ipv4 = new ArrayList<>();
+        List<Interval<IPv6Address>> ipv6 = new ArrayList<>();
+        for ( IpGroup grp : groups ) {
+            if ( grp.getIpv4Ranges() != null ) {
+                for ( IPv4Range r : grp.getIpv4Ranges() ) {
+                    ipv4.add( new Interval<>(r.getBottom(), r.getTop(), grp) );
+                }
+            }
+            if ( grp.getIpv6Ranges() != null ) {
+                for ( IPv6Range r : grp.getIpv6Ranges() ) {
+                    ipv6.add( new Interval<>(r.getBottom(), r.getTop(), grp) );
+                }
+            }
+        }
+        return new IpGroupIndex(new IntervalTree<>(ipv4), new IntervalTree<>(ipv6));
+    }
+
+    /**
+     * @param ipa The address.
+     * @return All the indexed groups that have a range containing {@code ipa}.
+     */
+    public Set<IpGroup> findAllIncludingIp( IpAddress ipa ) {
+        Set<IpGroup> groups = new HashSet<>();
+        if ( ipa instanceof IPv4Address ) {
+            ipv4Ranges.collect((IPv4Address) ipa, groups);
+        } else if ( ipa instanceof IPv6Address ) {
+            ipv6Ranges.collect((IPv6Address) ipa, groups);
+        } else {
+            throw new IllegalArgumentException( "Unknown IpAddress type: " + ipa.getClass() + " (for IpAddress:" + ipa + ")" );
+        }
+        return groups;
+    }
+
+    private static class Interval<T extends Comparable<T>> {
+        final T bottom;
+        final T top;
+        final IpGroup group;
+
+        Interval(T bottom, T top, IpGroup group) {
+            this.bottom = bottom;
+            this.top = top;
+            this.group = group;
+        }
+    }
+
+    private static class IntervalTree<T extends Comparable<T>> {
+
+        private final List<Interval<T>> intervals;
+        // maxTop.get(i) is the highest top in the subtree rooted at intervals.get(i)
+        private final List<T> maxTop;
+
+        IntervalTree(List<Interval<T>> unsorted) {
+            intervals = new ArrayList<>(unsorted);
+            intervals.sort(Comparator.comparing(i -> i.bottom));
+            maxTop = new ArrayList<>(intervals.size());
+            for ( Interval<T> i : intervals ) {
+                maxTop.add(i.top);
+            }
+            if ( !intervals.isEmpty() ) {
+                computeMaxTop(0, intervals.size() - 1);
+            }
+        }
+
+        private T computeMaxTop(int lo, int hi) {
+            int mid = (lo + hi) >>> 1;
+            T max = intervals.get(mid).top;
+            if ( lo < mid ) {
+                max = maxOf(max, computeMaxTop(lo, mid - 1));
+            }
+            if ( mid < hi ) {
+                max = maxOf(max, computeMaxTop(mid + 1, hi));
+            }
+            maxTop.set(mid, max);
+            return max;
+        }
+
+        void collect(T address, Set<IpGroup> out) {
+            if ( !intervals.isEmpty() ) {
+                collect(address, 0, intervals.size() - 1, out);
+            }
+        }
+
+        private void collect(T address, int lo, int hi, Set<IpGroup> out) {
+            if ( lo > hi ) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if ( maxTop.get(mid).compareTo(address) < 0 ) {
+                // everything in this subtree ends before the address
+                return;
+            }
+            collect(address, lo, mid - 1, out);
+            Interval<T> interval = intervals.get(mid);
+            if ( interval.bottom.compareTo(address) <= 0 ) {
+                if ( interval.top.compareTo(address) >= 0 ) {
+                    out.add(interval.group);
+                }
+                // the intervals to the right start after this one, so they are
+                // only worth looking at if this one starts at or before the address
+                collect(address, mid + 1, hi, out);
+            }
+        }
+
+        private static <T extends Comparable<T>> T maxOf(T a, T b) {
+            return a.compareTo(b) >= 0 ? a : b;
+        }
+    }
+}
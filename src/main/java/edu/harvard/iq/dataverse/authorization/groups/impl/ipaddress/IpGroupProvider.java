@@ -48,7 +48,12 @@ public class IpGroupProvider implements GroupProvider<IpGroup> {
     @Override
     public Set<IpGroup> groupsFor( DataverseRequest req) {
         if ( req.getSourceAddress() != null ) {
-            return updateProvider( ipGroupsService.findAllIncludingIp(req.getSourceAddress()) );
+            // the groups are shared through the index of the service, so we hand out copies
+            Set<IpGroup> groups = new HashSet<>();
+            for ( IpGroup g : ipGroupsService.findAllIncludingIp(req.getSourceAddress()) ) {
+                groups.add( g.copyWithProvider(this) );
+            }
+            return groups;
         } else {
             return Collections.emptySet();
         }
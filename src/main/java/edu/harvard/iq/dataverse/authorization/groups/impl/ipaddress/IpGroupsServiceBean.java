@@ -3,10 +3,8 @@ package edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress;
 import edu.harvard.iq.dataverse.RoleAssigneeServiceBean;
 import edu.harvard.iq.dataverse.actionlogging.ActionLogRecord;
 import edu.harvard.iq.dataverse.actionlogging.ActionLogServiceBean;
-import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IPv4Address;
-import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IPv6Address;
 import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IpAddress;
-import java.util.HashSet;
+import edu.harvard.iq.dataverse.util.cache.CacheFactoryBean;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -37,12 +35,16 @@ public class IpGroupsServiceBean {
     @EJB
     RoleAssigneeServiceBean roleAssigneeSvc;
     
+    @EJB
+    CacheFactoryBean cacheFactory;
+    
     /**
      * Stores (inserts/updates) the passed IP group.
      * @param grp The group to store.
      * @return Managed version of the group. The provider might be un-set.
      */
     public IpGroup store( IpGroup grp ) {
+        invalidateIndex();
         ActionLogRecord alr = new ActionLogRecord(ActionLogRecord.ActionType.GlobalGroups, "ipCreate");
         if ( grp.getGroupProvider() != null ) {
             alr.setInfo( grp.getIdentifier());
@@ -97,27 +99,35 @@ public class IpGroupsServiceBean {
         return em.createNamedQuery("IpGroup.findAll", IpGroup.class).getResultList();
     }
     
+    /**
+     * Finds the groups containing the address. This is called for nearly every
+     * request, so rather than querying the ranges, we look the address up in an
+     * in-memory index of all the groups (see {@link IpGroupIndex}). The groups
+     * returned are shared by the requests, and must not be modified.
+     * 
+     * @param ipa The address.
+     * @return The groups whose ranges include {@code ipa}.
+     */
     public Set<IpGroup> findAllIncludingIp( IpAddress ipa ) {
-        if ( ipa instanceof IPv4Address ) {
-            IPv4Address ip4 = (IPv4Address) ipa;
-            List<IpGroup> groupList = em.createNamedQuery("IPv4Range.findGroupsContainingAddressAsLong", IpGroup.class)
-                    .setParameter("addressAsLong", ip4.toBigInteger()).getResultList();
-            return new HashSet<>(groupList);
-
-        } else if ( ipa instanceof IPv6Address ) {
-            IPv6Address ip6 = (IPv6Address) ipa;
-            long[] ip6arr = ip6.toLongArray();
-            List<IpGroup> groupList = em.createNamedQuery("IPv6Range.findGroupsContainingABCD", IpGroup.class)
-                    .setParameter("a", ip6arr[0])
-                    .setParameter("b", ip6arr[1])
-                    .setParameter("c", ip6arr[2])
-                    .setParameter("d", ip6arr[3])
-                    .getResultList();
-            return new HashSet<>(groupList);
-
-        } else {
-            throw new IllegalArgumentException( "Unknown IpAddress type: " + ipa.getClass() + " (for IpAddress:" + ipa + ")" );
-        }
+        return getIndex().findAllIncludingIp(ipa);
+    }
+    
+    private IpGroupIndex getIndex() {
+        return cacheFactory.getIpGroupIndex(() -> {
+            List<IpGroup> groups = findAll();
+            logger.fine("Rebuilding the IP group index (" + groups.size() + " groups)");
+            return IpGroupIndex.build(groups);
+        });
+    }
+    
+    /**
+     * Drops the index of the IP group ranges (see {@link CacheFactoryBean#invalidateIpGroupIndex()});
+     * it will be rebuilt on the next lookup. Also drops the search permission
+     * filters, which list the groups of the users.
+     */
+    private void invalidateIndex() {
+        cacheFactory.invalidateIpGroupIndex();
+        cacheFactory.invalidatePermissionFilters();
     }
     
     /**
@@ -130,6 +140,7 @@ public class IpGroupsServiceBean {
         ActionLogRecord alr = new ActionLogRecord(ActionLogRecord.ActionType.GlobalGroups, "ipDelete");
         alr.setInfo( grp.getIdentifier() );
         if ( roleAssigneeSvc.getAssignmentsFor(grp.getIdentifier()).isEmpty() ) {
+            invalidateIndex();
             em.remove( grp );
             actionLogSvc.log(alr);
             
@@ -4,6 +4,7 @@ import edu.harvard.iq.dataverse.actionlogging.ActionLogRecord;
 import edu.harvard.iq.dataverse.actionlogging.ActionLogServiceBean;
 import edu.harvard.iq.dataverse.authorization.users.AuthenticatedUser;
 import edu.harvard.iq.dataverse.confirmemail.ConfirmEmailServiceBean;
+import edu.harvard.iq.dataverse.util.cache.CacheFactoryBean;
 
 import java.util.*;
 import java.util.logging.Logger;
@@ -37,6 +38,8 @@ public class MailDomainGroupServiceBean {
     ConfirmEmailServiceBean confirmEmailSvc;
     @Inject
     ActionLogServiceBean actionLogSvc;
+    @EJB
+    CacheFactoryBean cacheFactory;
     
     MailDomainGroupProvider provider;
     List<MailDomainGroup> simpleGroups = Collections.EMPTY_LIST;
@@ -143,6 +146,7 @@ public class MailDomainGroupServiceBean {
     public MailDomainGroup saveOrUpdate(Optional<String> groupAlias, MailDomainGroup grp ) {
         ActionLogRecord alr = new ActionLogRecord(ActionLogRecord.ActionType.GlobalGroups, "mailDomainCreate");
         alr.setInfo(grp.getIdentifier());
+        cacheFactory.invalidatePermissionFilters();
         
         // groupAlias present means PUT means idempotence.
         if (groupAlias.isPresent()) {
@@ -184,6 +188,7 @@ public class MailDomainGroupServiceBean {
     
         Optional<MailDomainGroup> tbd = findByAlias(groupAlias);
         em.remove(tbd.orElseThrow(() -> new NotFoundException("Cannot find a group with alias "+groupAlias)));
+        cacheFactory.invalidatePermissionFilters();
         actionLogSvc.log( alr );
     }
     
@@ -6,6 +6,7 @@ import edu.harvard.iq.dataverse.actionlogging.ActionLogRecord;
 import edu.harvard.iq.dataverse.actionlogging.ActionLogServiceBean;
 import edu.harvard.iq.dataverse.authorization.groups.GroupServiceBean;
 import edu.harvard.iq.dataverse.authorization.users.AuthenticatedUser;
+import edu.harvard.iq.dataverse.util.cache.CacheFactoryBean;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -39,6 +40,8 @@ public class ShibGroupServiceBean {
     GroupServiceBean groupService;
     @EJB
     ActionLogServiceBean actionLogSvc;
+    @EJB
+    CacheFactoryBean cacheFactory;
 
     /**
      * @return A ShibGroup or null.
@@ -66,6 +69,7 @@ public class ShibGroupServiceBean {
         ShibGroup institutionalGroup = new ShibGroup(name, shibIdpAttribute, shibIdp, groupService.getShibGroupProvider());
         em.persist(institutionalGroup);
         em.flush();
+        cacheFactory.invalidatePermissionFilters();
         ShibGroup merged = em.merge(institutionalGroup);
 
         actionLogSvc.log(alr);
@@ -102,6 +106,7 @@ public class ShibGroupServiceBean {
         List<RoleAssignment> assignments = roleAssigneeSvc.getAssignmentsFor(doomed.getIdentifier());
         if (assignments.isEmpty()) {
             em.remove(doomed);
+            cacheFactory.invalidatePermissionFilters();
             actionLogSvc.log(alr);
             return true;
         } else {
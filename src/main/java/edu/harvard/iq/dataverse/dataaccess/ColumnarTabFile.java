@@ -0,0 +1,255 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import edu.harvard.iq.dataverse.DataFile;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * A "90 deg. rotated", column-wise copy of an ingested tab-delimited file,
+ * saved as an auxiliary object of the datafile. The values of each column
+ * are stored sequentially, one per line, exactly as they appear in the tab
+ * file; so that a subset of the columns can be read without scanning the
+ * whole file - only the bytes of the requested columns are read.
+ *
+ * The format is: the magic string "DVCOLS01"; the number of columns (int);
+ * the number of rows (long) - every line of the tab file, including the
+ * variable name header, if the file is stored with one; followed by
+ * (number of columns + 1) absolute byte offsets (long) of the beginnings of
+ * the columns and of the end of the last column; followed by the columns.
+ *
+ * The copy is optional, produced during ingest if enabled (see
+ * dataverse.ingest.columnar-copy). The code using it must fall back to the
+ * tab file when it's not there.
+ */
+public class ColumnarTabFile {
+
+    private static final Logger logger = Logger.getLogger(ColumnarTabFile.class.getCanonicalName());
+
+    public static final String AUX_TAG = "columnar";
+
+    private static final byte[] MAGIC = {'D', 'V', 'C', 'O', 'L', 'S', '0', '1'};
+    // the magic string, the number of columns and the number of rows:
+    private static final int FIXED_HEADER_LENGTH = MAGIC.length + Integer.BYTES + Long.BYTES;
+    // max. number of column files we write at the same time when transposing:
+    private static final int MAX_COLUMNS_PER_PASS = 256;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * Opens an input stream on a byte range of the underlying columnar file.
+     */
+    interface RangeOpener {
+        InputStream open(long offset, long length) throws IOException;
+    }
+
+    private final int numColumns;
+    private final long numRows;
+    private final long[] offsets;
+    private final RangeOpener rangeOpener;
+
+    private ColumnarTabFile(int numColumns, long numRows, long[] offsets, RangeOpener rangeOpener) {
+        this.numColumns = numColumns;
+        this.numRows = numRows;
+        this.offsets = offsets;
+        this.rangeOpener = rangeOpener;
+    }
+
+    /**
+     * @return the columnar copy of the tabular file, or null if the file
+     * does not have one, or if the storage driver can't read the columns
+     * without reading the whole copy (in which case reading the tab file is
+     * faster).
+     */
+    public static ColumnarTabFile open(StorageIO<DataFile> storageIO) throws IOException {
+        if (!storageIO.isAuxRangedReadSupported() || !storageIO.isAuxObjectCached(AUX_TAG)) {
+            return null;
+        }
+        // (only the header is read here, not the whole copy)
+        return readHeader((offset, length) -> storageIO.getAuxRangeInputStream(AUX_TAG, offset, length));
+    }
+
+    static ColumnarTabFile open(File columnarFile) throws IOException {
+        return readHeader((offset, length) -> {
+            FileChannel channel = new FileInputStream(columnarFile).getChannel();
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length);
+        });
+    }
+
+    /*
+     * Reads the fixed part of the header first, then the table of the offsets,
+     * whose length depends on the number of columns.
+     */
+    private static ColumnarTabFile readHeader(RangeOpener rangeOpener) throws IOException {
+        int numColumns;
+        long numRows;
+        try (DataInputStream header = new DataInputStream(rangeOpener.open(0, FIXED_HEADER_LENGTH))) {
+            byte[] magic = new byte[MAGIC.length];
+            header.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a columnar tab file (or an unsupported version).");
+            }
+            numColumns = header.readInt();
+            numRows = header.readLong();
+        }
+        if (numColumns < 0) {
+            throw new IOException("Invalid number of columns in the columnar file: " + numColumns);
+        }
+        long[] offsets = new long[numColumns + 1];
+        try (DataInputStream header = new DataInputStream(rangeOpener.open(FIXED_HEADER_LENGTH, (long) offsets.length * Long.BYTES))) {
+            for (int i = 0; i <= numColumns; i++) {
+                offsets[i] = header.readLong();
+            }
+        }
+        return new ColumnarTabFile(numColumns, numRows, offsets, rangeOpener);
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public long getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * @return the values of the column, one per line - i.e., a single-column
+     * tab file.
+     */
+    public InputStream openColumn(int column) throws IOException {
+        if (column < 0 || column >= numColumns) {
+            throw new IOException("No column " + column + " in the columnar file (" + numColumns + " columns)");
+        }
+        return rangeOpener.open(offsets[column], offsets[column + 1] - offsets[column]);
+    }
+
+    /**
+     * Same as TabularSubsetGenerator.subsetFile(), but only the requested
+     * columns are read.
+     */
+    public void subsetFile(List<Integer> columns, String outfile) throws IOException {
+        List<DelimitedLineReader> readers = new ArrayList<>();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outfile), OUTPUT_BUFFER_SIZE)) {
+            for (Integer column : columns) {
+                readers.add(new DelimitedLineReader(openColumn(column), 0));
+            }
+            for (long row = 0; row < numRows; row++) {
+                for (int c = 0; c < readers.size(); c++) {
+                    if (!readers.get(c).nextLine()) {
+                        throw new IOException("Column " + columns.get(c) + " has fewer rows than the columnar file (" + numRows + ")");
+                    }
+                    if (c > 0) {
+                        out.write('\t');
+                    }
+                    readers.get(c).writeField(0, out);
+                }
+                out.write('\n');
+            }
+        } finally {
+            for (DelimitedLineReader reader : readers) {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+    }
+
+    /**
+     * Same as TabularSubsetGenerator.subsetVectors(), but only the requested
+     * columns are read.
+     */
+    public Object[] subsetVectors(int[] columns, TabularSubsetGenerator.VectorType[] types, int numCases, boolean skipHeader) throws IOException {
+        Object[] retVectors = new Object[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            retVectors[j] = TabularSubsetGenerator.subsetVectors(openColumn(columns[j]),
+                    new int[]{0},
+                    new TabularSubsetGenerator.VectorType[]{types[j]},
+                    numCases,
+                    skipHeader)[0];
+        }
+        return retVectors;
+    }
+
+    /**
+     * Produces the columnar copy of a tab-delimited file.
+     *
+     * @param tabFile the tab file
+     * @param numColumns the number of columns (variables) in the file
+     * @param numRows the number of lines in the tab file (number of cases,
+     * plus the header line if the file has one)
+     * @param columnarFile where to save the columnar copy
+     */
+    public static void generate(File tabFile, int numColumns, long numRows, File columnarFile) throws IOException {
+        List<File> columnFiles = new ArrayList<>(numColumns);
+
+        try {
+            // We transpose the file in passes, writing up to MAX_COLUMNS_PER_PASS
+            // column files at a time, so that we don't run out of file handles
+            // on very wide files:
+            for (int start = 0; start < numColumns; start += MAX_COLUMNS_PER_PASS) {
+                int end = Math.min(start + MAX_COLUMNS_PER_PASS, numColumns);
+                OutputStream[] columnOuts = new OutputStream[end - start];
+
+                try (DelimitedLineReader reader = new DelimitedLineReader(new FileInputStream(tabFile), end - 1)) {
+                    for (int i = start; i < end; i++) {
+                        File columnFile = File.createTempFile("tempColumnFile", ".tmp");
+                        columnFiles.add(columnFile);
+                        columnOuts[i - start] = new BufferedOutputStream(new FileOutputStream(columnFile));
+                    }
+
+                    for (long row = 0; row < numRows; row++) {
+                        if (!reader.nextLine()) {
+                            throw new IOException("Tab file has fewer rows than the stored number of cases!");
+                        }
+                        for (int i = start; i < end; i++) {
+                            reader.writeField(i, columnOuts[i - start]);
+                            columnOuts[i - start].write('\n');
+                        }
+                    }
+                } finally {
+                    for (OutputStream columnOut : columnOuts) {
+                        IOUtils.closeQuietly(columnOut);
+                    }
+                }
+            }
+
+            long[] offsets = new long[numColumns + 1];
+            offsets[0] = MAGIC.length + 4 + 8 + 8L * (numColumns + 1);
+            for (int i = 0; i < numColumns; i++) {
+                offsets[i + 1] = offsets[i] + columnFiles.get(i).length();
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(columnarFile), OUTPUT_BUFFER_SIZE))) {
+                out.write(MAGIC);
+                out.writeInt(numColumns);
+                out.writeLong(numRows);
+                for (long offset : offsets) {
+                    out.writeLong(offset);
+                }
+                for (File columnFile : columnFiles) {
+                    Files.copy(columnFile.toPath(), out);
+                }
+            }
+            logger.fine("Generated a columnar copy of " + numColumns + " columns, " + columnarFile.length() + " bytes");
+        } finally {
+            for (File columnFile : columnFiles) {
+                columnFile.delete();
+            }
+        }
+    }
+}
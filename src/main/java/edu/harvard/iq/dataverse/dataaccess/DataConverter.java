@@ -52,6 +52,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
 
@@ -75,9 +78,17 @@ public class DataConverter {
     public static String FILE_TYPE_RDATA = "RData";
     
     public static String SERVICE_REQUEST_CONVERT = "convert";
+
+    // The conversions running right now, by datafile id and format; the
+    // future completes with true if the result was cached:
+    private static final ConcurrentMap<String, CompletableFuture<Boolean>> conversionsInProgress = new ConcurrentHashMap<>();
     
     
-    public static StorageIO<DataFile> performFormatConversion(DataFile file, StorageIO<DataFile> storageIO, String formatRequested, String formatType) {
+    /**
+     * @param metrics Where to count the cache hits and misses, and the
+     * conversions; may be null.
+     */
+    public static StorageIO<DataFile> performFormatConversion(DataFile file, StorageIO<DataFile> storageIO, String formatRequested, String formatType, FormatConversionMetrics metrics) {
         if (!file.isTabularData()) {
             return null;
         }
@@ -97,44 +108,40 @@ public class DataConverter {
         try {
             convertedFileStream = Channels.newInputStream((ReadableByteChannel) storageIO.openAuxChannel(formatRequested));
             convertedFileSize = storageIO.getAuxObjectSize(formatRequested);
+            if (metrics != null) {
+                metrics.countCacheHit();
+            }
         } catch (IOException ioex) {
             logger.fine("No cached copy for file format "+formatRequested+", file "+file.getStorageIdentifier());
             convertedFileStream = null;
+            if (metrics != null) {
+                metrics.countCacheMiss();
+            }
         }
 
         // If not cached, run the conversion:
         if (convertedFileStream == null) {
+            File formatConvertedFile = convertAndCache(file, storageIO, formatRequested, metrics);
 
-            File tabFile = downloadFromStorageIO(storageIO);
-
-            if (tabFile == null) {
-                return null;
-            }
-
-            if (tabFile.length() > 0) {
-                File formatConvertedFile = runFormatConversion(file, tabFile, formatRequested);
-
-                // cache the result for future use:
-                if (formatConvertedFile != null && formatConvertedFile.exists()) {
-
-                    try {
-                        storageIO.savePathAsAux(Paths.get(formatConvertedFile.getAbsolutePath()), formatRequested);
-
-                    } catch (IOException ex) {
-                        logger.warning("failed to save cached format " + formatRequested + " for " + file.getStorageIdentifier());
-                        // We'll assume that this is a non-fatal condition.
-                    }
-
-                    // re-open the generated file:
-                    try {
-                        convertedFileStream = new FileInputStream(formatConvertedFile);
-                        convertedFileSize = formatConvertedFile.length();
-                    } catch (FileNotFoundException ioex) {
-                        logger.warning("Failed to open generated format " + formatRequested + " for " + file.getStorageIdentifier());
-                        return null;
-                    }
+            if (formatConvertedFile == null) {
+                // Either the conversion failed, or another request has just 
+                // run it - in which case it should be cached now:
+                try {
+                    convertedFileStream = Channels.newInputStream((ReadableByteChannel) storageIO.openAuxChannel(formatRequested));
+                    convertedFileSize = storageIO.getAuxObjectSize(formatRequested);
+                } catch (IOException ioex) {
+                    logger.fine("No converted copy for file format " + formatRequested + ", file " + file.getStorageIdentifier());
+                    return null;
+                }
+            } else {
+                // re-open the generated file:
+                try {
+                    convertedFileStream = new FileInputStream(formatConvertedFile);
+                    convertedFileSize = formatConvertedFile.length();
+                } catch (FileNotFoundException ioex) {
+                    logger.warning("Failed to open generated format " + formatRequested + " for " + file.getStorageIdentifier());
+                    return null;
                 }
-
             }
         }
 
@@ -163,6 +170,90 @@ public class DataConverter {
         return null;
     }
 
+    /*
+     * Runs the conversion and caches the result as an aux object. Only one
+     * conversion of the same file to the same format runs at a time (on this
+     * node): if it's already running, we wait for it to finish instead, and,
+     * if it succeeded, return null - meaning "the result should be in the
+     * cache now".
+     *
+     * @return the converted file, or null if the conversion failed, or was
+     * run by another request
+     */
+    private static File convertAndCache(DataFile file, StorageIO<DataFile> storageIO, String formatRequested, FormatConversionMetrics metrics) {
+        String conversionKey = file.getId() + ":" + formatRequested;
+        CompletableFuture<Boolean> conversion = new CompletableFuture<>();
+        CompletableFuture<Boolean> conversionInProgress;
+
+        while ((conversionInProgress = conversionsInProgress.putIfAbsent(conversionKey, conversion)) != null) {
+            logger.fine("Waiting for the conversion to " + formatRequested + " already running for " + file.getStorageIdentifier());
+            if (metrics != null) {
+                metrics.countConversionWait();
+            }
+            if (conversionInProgress.join()) {
+                return null;
+            }
+            // The other conversion failed to produce (or to cache) the 
+            // result; we'll try again ourselves - once our own conversion is
+            // registered, so that the other requests wait for it in turn.
+        }
+
+        boolean cached = false;
+        long startTime = System.nanoTime();
+        try {
+            File tabFile = downloadFromStorageIO(storageIO);
+
+            if (tabFile == null || tabFile.length() == 0) {
+                return null;
+            }
+
+            File formatConvertedFile = runFormatConversion(file, tabFile, formatRequested);
+
+            if (formatConvertedFile == null || !formatConvertedFile.exists()) {
+                return null;
+            }
+
+            // cache the result for future use:
+            try {
+                storageIO.savePathAsAux(Paths.get(formatConvertedFile.getAbsolutePath()), formatRequested);
+                cached = true;
+            } catch (IOException ex) {
+                logger.warning("failed to save cached format " + formatRequested + " for " + file.getStorageIdentifier());
+                // We'll assume that this is a non-fatal condition.
+            }
+            return formatConvertedFile;
+        } finally {
+            if (metrics != null) {
+                metrics.recordConversionTime(System.nanoTime() - startTime);
+            }
+            conversionsInProgress.remove(conversionKey, conversion);
+            conversion.complete(cached);
+        }
+    }
+
+    /**
+     * Converts the tabular file to the format specified, and caches the 
+     * result, unless it's already cached; so that it's ready when requested 
+     * for the first time. Failures are only logged. 
+     * 
+     * Runs in the background, after the ingest (see 
+     * edu.harvard.iq.dataverse.ingest.PreConversionServiceBean). 
+     */
+    public static void preConvert(DataFile file, String format, FormatConversionMetrics metrics) {
+        try {
+            StorageIO<DataFile> storageIO = file.getStorageIO();
+            storageIO.open();
+            if (storageIO.isAuxObjectCached(format)) {
+                return;
+            }
+            if (convertAndCache(file, storageIO, format, metrics) == null && !storageIO.isAuxObjectCached(format)) {
+                logger.warning("Pre-conversion to " + format + " failed for " + file.getStorageIdentifier());
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.warning("Pre-conversion to " + format + " failed for " + file.getStorageIdentifier() + ": " + ex.getMessage());
+        }
+    }
+
     public static File downloadFromStorageIO(StorageIO<DataFile> storageIO) {
         if (storageIO.isLocalFile()){
             try {
@@ -24,14 +24,24 @@ import java.io.IOException;
 
 
 import edu.harvard.iq.dataverse.DataFile;
+import edu.harvard.iq.dataverse.settings.JvmSettings;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.IOUtils;
 
 
 /**
@@ -42,6 +52,31 @@ public class DataFileZipper {
     
     private static final Logger logger = Logger.getLogger(DataFileZipper.class.getCanonicalName());
     private static final String MANIFEST_FILE_NAME = "MANIFEST.TXT";
+
+    private static final int DEFAULT_PREFETCH_COUNT = 8;
+    // How much of each prefetched file is read into memory ahead of writing
+    // it; with the default number of files prefetched, the memory used by a
+    // zipped download is capped at around 8MB:
+    private static final int PREFETCH_BUFFER_SIZE = 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final Set<String> COMPRESSED_TYPES = Set.of(
+            "application/zip",
+            "application/gzip",
+            "application/x-gzip",
+            "application/x-bzip2",
+            "application/x-xz",
+            "application/x-7z-compressed",
+            "application/x-rar-compressed",
+            "application/vnd.rar",
+            "application/zstd",
+            "image/jpeg",
+            "image/png",
+            "image/gif",
+            "image/webp",
+            "audio/mpeg",
+            "audio/mp4",
+            "audio/ogg");
     
     private OutputStream outputStream = null; 
     private ZipOutputStream zipOutputStream = null;
@@ -53,6 +88,11 @@ public class DataFileZipper {
     
     private Set<String> zippedFolders = null; 
 
+    // The files queued for writing, being fetched in the background, in order:
+    private final Deque<PendingEntry> pendingEntries = new ArrayDeque<>();
+    private ExecutorService prefetchExecutor = null;
+    private Integer prefetchCount = null;
+
     public DataFileZipper() {
         fileNameList = new ArrayList<>();
         zippedFilesList = new ArrayList<>(); 
@@ -93,30 +133,118 @@ public class DataFileZipper {
         return addFileToZipStream(dataFile, false);
     }
     
+    /**
+     * Adds the file to the zip stream. If prefetching is enabled (see
+     * dataverse.files.zip-prefetch), the file is only queued here and fetched
+     * from the storage in the background, while the files queued before it are
+     * written; the entries are always written in the order in which the files
+     * were added.
+     *
+     * @return the number of bytes written to the zip stream by this call - for
+     * this file, or, with prefetching, for the files queued earlier
+     */
     public long addFileToZipStream(DataFile dataFile, boolean getOriginal) throws IOException {
         if (zipOutputStream == null) {
             openZipStream();
         }
 
-        boolean createManifest = fileManifest != null;
-        
+        if (prefetchCount == null) {
+            prefetchCount = JvmSettings.FILES_ZIP_PREFETCH.lookupOptional(Integer.class).orElse(DEFAULT_PREFETCH_COUNT);
+        }
+        if (prefetchCount < 1) {
+            return writeZipEntry(dataFile, fetchFile(dataFile, getOriginal, 0));
+        }
+
+        if (prefetchExecutor == null) {
+            prefetchExecutor = Executors.newFixedThreadPool(prefetchCount);
+        }
+        // Make sure the entity relationships the storage driver will need are
+        // loaded here, rather than lazily, from the prefetching thread:
+        dataFile.getFileMetadata();
+        dataFile.getOwner();
+        if (dataFile.isTabularData() && dataFile.getDataTable() != null) {
+            dataFile.getDataTable().getDataVariables().size();
+        }
+
+        PendingEntry entry = new PendingEntry(dataFile, null);
+        entry.future = prefetchExecutor.submit(() -> {
+            entry.setFetchedFile(fetchFile(dataFile, getOriginal, PREFETCH_BUFFER_SIZE));
+            return null;
+        });
+        pendingEntries.add(entry);
+
+        long byteSize = 0L;
+        while (pendingEntries.size() > prefetchCount) {
+            byteSize += writeNextPendingEntry();
+        }
+        return byteSize;
+    }
+
+    /*
+     * Opens the file on its storage driver, and reads up to headSize bytes of
+     * it into memory. This is the part that is done in the background when
+     * prefetching: it takes care of the latency of getting the first byte from
+     * a remote store - and small files are read completely.
+     */
+    private static FetchedFile fetchFile(DataFile dataFile, boolean getOriginal, int headSize) throws IOException {
         DataAccessRequest daReq = new DataAccessRequest();
         StorageIO<DataFile> accessObject = DataAccess.getStorageIO(dataFile, daReq);
 
-        if (accessObject != null) {
-            Boolean gotOriginal = false;
-            if(getOriginal) {
-                StoredOriginalFile sof = new StoredOriginalFile();
-                StorageIO<DataFile> tempAccessObject = sof.retreive(accessObject);
-                if(null != tempAccessObject) { //If there is an original, use it
-                    gotOriginal = true;
-                    accessObject = tempAccessObject; 
-                } 
+        if (accessObject == null) {
+            return new FetchedFile(null, null);
+        }
+
+        Boolean gotOriginal = false;
+        if(getOriginal) {
+            StoredOriginalFile sof = new StoredOriginalFile();
+            StorageIO<DataFile> tempAccessObject = sof.retreive(accessObject);
+            if(null != tempAccessObject) { //If there is an original, use it
+                gotOriginal = true;
+                accessObject = tempAccessObject; 
+            } 
+        }
+        if(!gotOriginal) { //if we didn't get this from sof.retreive we have to open it
+            accessObject.open();
+        }
+
+        FetchedFile fetched = new FetchedFile(accessObject, accessObject.getInputStream());
+        if (fetched.instream != null && headSize > 0) {
+            try {
+                fetched.readHead(headSize);
+            } catch (IOException ioex) {
+                fetched.close();
+                throw ioex;
             }
-            if(!gotOriginal) { //if we didn't get this from sof.retreive we have to open it
-                accessObject.open();
+        }
+        return fetched;
+    }
+
+    private long writeNextPendingEntry() throws IOException {
+        PendingEntry entry = pendingEntries.poll();
+        if (entry.manifestEntry != null) {
+            appendToManifest(entry.manifestEntry);
+            return 0L;
+        }
+        try {
+            entry.future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching file " + entry.dataFile.getId(), ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
             }
+            throw new IOException("Failed to fetch file " + entry.dataFile.getId(), ee.getCause());
+        }
+        return writeZipEntry(entry.dataFile, entry.fetchedFile);
+    }
+
+    private long writeZipEntry(DataFile dataFile, FetchedFile fetched) throws IOException {
+        boolean createManifest = fileManifest != null;
+
+        StorageIO<DataFile> accessObject = fetched.accessObject;
 
+        if (accessObject != null) {
             long byteSize = 0;
 
             String fileName = accessObject.getFileName();
@@ -128,10 +256,10 @@ public class DataFileZipper {
             //if (sizeTotal + fileSize < sizeLimit) {
             Boolean Success = true;
 
-            InputStream instream = accessObject.getInputStream();
-            if (instream == null) {
+            InputStream instream = fetched.instream;
+            if (instream == null && !fetched.complete) {
                 if (createManifest) {
-                    addToManifest(fileName
+                    appendToManifest(fileName
                             + " (" + mimeType
                             + ") COULD NOT be downloaded because an I/O error has occured. \r\n");
                 }
@@ -164,33 +292,54 @@ public class DataFileZipper {
                 ZipEntry e = new ZipEntry(zipEntryName);
                 logger.fine("created new zip entry for " + zipEntryName);
 
-                zipOutputStream.putNextEntry(e);
-
                 // before writing out any bytes from the input stream, flush
                 // any extra content, such as the variable header for the 
                 // subsettable files:
                 String varHeaderLine = accessObject.getVarHeader();
-                if (varHeaderLine != null) {
-                    zipOutputStream.write(varHeaderLine.getBytes());
-                    byteSize += (varHeaderLine.getBytes().length);
+                byte[] varHeaderBytes = varHeaderLine != null ? varHeaderLine.getBytes() : new byte[0];
+
+                // There is no point in trying to compress the files that are
+                // already compressed. The ones that we have in memory in their
+                // entirety are STORED; the others are "deflated" with no
+                // compression, which also costs next to nothing.
+                boolean compressed = isCompressedType(mimeType);
+                if (compressed && fetched.complete) {
+                    long size = varHeaderBytes.length + fetched.headLength;
+                    CRC32 crc = new CRC32();
+                    crc.update(varHeaderBytes);
+                    crc.update(fetched.head, 0, fetched.headLength);
+                    e.setMethod(ZipEntry.STORED);
+                    e.setSize(size);
+                    e.setCompressedSize(size);
+                    e.setCrc(crc.getValue());
                 }
+                zipOutputStream.setLevel(compressed ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
 
-                byte[] data = new byte[8192];
+                zipOutputStream.putNextEntry(e);
 
-                int i = 0;
-                while ((i = instream.read(data)) > 0) {
-                    zipOutputStream.write(data, 0, i);
-                    logger.fine("wrote " + i + " bytes;");
+                zipOutputStream.write(varHeaderBytes);
+                byteSize += varHeaderBytes.length;
 
-                    byteSize += i;
-                    zipOutputStream.flush();
+                if (fetched.headLength > 0) {
+                    zipOutputStream.write(fetched.head, 0, fetched.headLength);
+                    byteSize += fetched.headLength;
+                }
+
+                if (instream != null) {
+                    byte[] data = new byte[COPY_BUFFER_SIZE];
+
+                    int i = 0;
+                    while ((i = instream.read(data)) > 0) {
+                        zipOutputStream.write(data, 0, i);
+                        byteSize += i;
+                    }
+                    instream.close();
                 }
-                instream.close();
                 zipOutputStream.closeEntry();
-                logger.fine("closed zip entry for " + zipEntryName);
+                logger.fine("closed zip entry for " + zipEntryName + ", " + byteSize + " bytes");
 
                 if (createManifest) {
-                    addToManifest(zipEntryName + " (" + mimeType + ") " + byteSize + " bytes.\r\n");
+                    appendToManifest(zipEntryName + " (" + mimeType + ") " + byteSize + " bytes.\r\n");
                 }
 
                 if (byteSize > 0) {
@@ -204,13 +353,37 @@ public class DataFileZipper {
         }
         return 0L;
     }
-    
+
+    /**
+     * Discards the files queued for prefetching, closing the streams already
+     * opened on them. To be called when the zip stream is abandoned before
+     * it is finalized.
+     */
+    public void discardPendingFiles() {
+        for (PendingEntry entry : pendingEntries) {
+            entry.discard();
+        }
+        pendingEntries.clear();
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdown();
+            prefetchExecutor = null;
+        }
+    }
+
     public void finalizeZipStream() throws IOException {
         boolean createManifest = fileManifest != null;
         
         if (zipOutputStream == null) {
             openZipStream();
         }
+
+        try {
+            while (!pendingEntries.isEmpty()) {
+                writeNextPendingEntry();
+            }
+        } finally {
+            discardPendingFiles();
+        }
         
         if (createManifest) {
             String manifestEntry = MANIFEST_FILE_NAME; 
@@ -219,6 +392,7 @@ public class DataFileZipper {
             }
             
             ZipEntry e = new ZipEntry(manifestEntry);
+            zipOutputStream.setLevel(Deflater.DEFAULT_COMPRESSION);
 
             zipOutputStream.putNextEntry(e);
             zipOutputStream.write(fileManifest.getBytes());
@@ -230,9 +404,33 @@ public class DataFileZipper {
     }
     
     public void addToManifest(String manifestEntry) {
+        if (!pendingEntries.isEmpty()) {
+            // keep the manifest in the same order as the files were added: 
+            pendingEntries.add(new PendingEntry(null, manifestEntry));
+            return;
+        }
+        appendToManifest(manifestEntry);
+    }
+
+    private void appendToManifest(String manifestEntry) {
         this.fileManifest = this.fileManifest + manifestEntry; 
     }
     
+    /*
+     * The formats that are compressed already, and do not benefit from
+     * another round of compression.
+     */
+    static boolean isCompressedType(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        // (strip the parameters, if any, e.g. "; charset=...")
+        String type = mimeType.split(";")[0].trim().toLowerCase();
+        return COMPRESSED_TYPES.contains(type)
+                || type.startsWith("video/")
+                || type.startsWith("application/vnd.openxmlformats-officedocument.");
+    }
+
     // check for and process duplicates:
     private String checkZipEntryName(String originalName) {
         String name = originalName;
@@ -249,4 +447,74 @@ public class DataFileZipper {
         fileNameList.add(name);
         return name;
     }
+
+    /*
+     * A file opened on its storage driver, with the first bytes (or all of
+     * it, if "complete") read into memory.
+     */
+    private static class FetchedFile {
+        final StorageIO<DataFile> accessObject;
+        InputStream instream;
+        byte[] head = new byte[0];
+        int headLength = 0;
+        boolean complete = false;
+
+        FetchedFile(StorageIO<DataFile> accessObject, InputStream instream) {
+            this.accessObject = accessObject;
+            this.instream = instream;
+        }
+
+        void readHead(int headSize) throws IOException {
+            head = new byte[headSize];
+            int read;
+            while (headLength < headSize && (read = instream.read(head, headLength, headSize - headLength)) != -1) {
+                headLength += read;
+            }
+            if (headLength < headSize) {
+                // we've got the whole file:
+                complete = true;
+                instream.close();
+                instream = null;
+            }
+        }
+
+        void close() {
+            IOUtils.closeQuietly(instream);
+        }
+    }
+
+    /*
+     * A file queued for writing - or a line of the manifest, written after
+     * the files queued before it.
+     */
+    private static class PendingEntry {
+        final DataFile dataFile;
+        final String manifestEntry;
+        Future<?> future;
+        private FetchedFile fetchedFile;
+        private boolean discarded = false;
+
+        PendingEntry(DataFile dataFile, String manifestEntry) {
+            this.dataFile = dataFile;
+            this.manifestEntry = manifestEntry;
+        }
+
+        synchronized void setFetchedFile(FetchedFile fetchedFile) {
+            if (discarded) {
+                fetchedFile.close();
+            } else {
+                this.fetchedFile = fetchedFile;
+            }
+        }
+
+        synchronized void discard() {
+            discarded = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+            if (fetchedFile != null) {
+                fetchedFile.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,236 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A byte-level reader of delimited (tab-delimited, by default) data files,
+ * such as the tab files produced by ingest. It reads the file through a
+ * single reusable buffer, line by line, and only locates the fields of each
+ * line up to the highest column the caller is interested in; the located
+ * fields can then be decoded as Strings or copied as raw bytes, without
+ * materializing (or even finding) the other fields of the line.
+ *
+ * No regular expressions, Scanners or String.split() are involved. The
+ * semantics are the same as those of the Scanner/split("\t", -1) combination
+ * used by the older subsetting code: lines are separated by '\n' (a '\r', if
+ * present, stays part of the last field of the line), an empty trailing line
+ * is not a line, and empty fields are preserved. There is no special handling
+ * of quotes - delimiters and new lines inside the values are escaped in our
+ * tab files. The delimiter and the new line are single bytes, so it is safe
+ * to use on UTF-8 encoded data.
+ */
+public class DelimitedLineReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final byte NEWLINE = '\n';
+
+    private final ReadableByteChannel channel;
+    private final byte delimiter;
+    private final int maxColumn;
+
+    private byte[] buffer;
+    private int bufferPosition = 0;
+    private int bufferLimit = 0;
+    private boolean endOfInput = false;
+    // the number of bytes of input that have been discarded from the buffer:
+    private long bufferOffset = 0L;
+
+    private int lineStart = -1;
+    private int lineLength = 0;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+
+    /**
+     * @param channel the data to read; a FileChannel, for a local file,
+     * or any other channel
+     * @param delimiter the field delimiter byte
+     * @param maxColumn the highest (0-based) column index the caller is
+     * going to request; the fields past this column are not located.
+     */
+    public DelimitedLineReader(ReadableByteChannel channel, byte delimiter, int maxColumn) {
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.maxColumn = maxColumn;
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    public DelimitedLineReader(InputStream in, byte delimiter, int maxColumn) {
+        this(Channels.newChannel(in), delimiter, maxColumn);
+    }
+
+    public DelimitedLineReader(InputStream in, int maxColumn) {
+        this(in, (byte) '\t', maxColumn);
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return false if there are no more lines
+     */
+    public boolean nextLine() throws IOException {
+        if (lineStart >= 0) {
+            // skip past the previous line and its new line character:
+            bufferPosition = lineStart + lineLength + 1;
+        }
+        lineStart = -1;
+        fieldCount = 0;
+
+        int scanned = 0;
+        int fieldStart = 0;
+
+        while (true) {
+            int pos = bufferPosition + scanned;
+            while (pos < bufferLimit) {
+                byte b = buffer[pos];
+                if (b == NEWLINE) {
+                    break;
+                }
+                if (b == delimiter && fieldCount <= maxColumn) {
+                    addField(fieldStart, pos - bufferPosition);
+                    fieldStart = pos - bufferPosition + 1;
+                }
+                pos++;
+            }
+            scanned = pos - bufferPosition;
+
+            if (pos < bufferLimit) {
+                // found the end of the line:
+                break;
+            }
+            if (endOfInput) {
+                if (scanned == 0) {
+                    return false;
+                }
+                // the last line, with no new line at the end:
+                break;
+            }
+            fillBuffer();
+        }
+
+        lineStart = bufferPosition;
+        lineLength = scanned;
+        if (fieldCount <= maxColumn) {
+            addField(fieldStart, scanned);
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of fields located on the current line; i.e., the
+     * number of fields on the line, or maxColumn + 1, whichever is lower.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isLineEmpty() {
+        return lineLength == 0;
+    }
+
+    /**
+     * @return the byte offset of the beginning of the current line, from the
+     * beginning of the input.
+     */
+    public long getLineOffset() {
+        return bufferOffset + lineStart;
+    }
+
+    /**
+     * @return the length of the current line in bytes, not counting the
+     * new line.
+     */
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    public String getLine() {
+        return new String(buffer, lineStart, lineLength, StandardCharsets.UTF_8);
+    }
+
+    public String getField(int column) {
+        checkColumn(column);
+        return new String(buffer, lineStart + fieldStarts[column], fieldEnds[column] - fieldStarts[column], StandardCharsets.UTF_8);
+    }
+
+    public boolean isFieldEmpty(int column) {
+        checkColumn(column);
+        return fieldEnds[column] == fieldStarts[column];
+    }
+
+    /**
+     * Copies the raw bytes of the field to the output stream, without decoding
+     * them.
+     */
+    public void writeField(int column, OutputStream out) throws IOException {
+        checkColumn(column);
+        out.write(buffer, lineStart + fieldStarts[column], fieldEnds[column] - fieldStarts[column]);
+    }
+
+    /**
+     * Copies the raw bytes of the entire current line, without the new line,
+     * to the output stream.
+     */
+    public void writeLine(OutputStream out) throws IOException {
+        out.write(buffer, lineStart, lineLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= fieldCount) {
+            throw new IndexOutOfBoundsException("Column " + column + " is not available on this line (" + fieldCount + " fields located)");
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            int newLength = fieldStarts.length * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, newLength);
+            fieldEnds = Arrays.copyOf(fieldEnds, newLength);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /*
+     * Moves the unprocessed part of the current line to the beginning of the
+     * buffer (growing the buffer, if the line is longer than the buffer) and
+     * reads more data after it.
+     */
+    private void fillBuffer() throws IOException {
+        int remaining = bufferLimit - bufferPosition;
+        if (bufferPosition > 0) {
+            System.arraycopy(buffer, bufferPosition, buffer, 0, remaining);
+            bufferOffset += bufferPosition;
+            bufferPosition = 0;
+            bufferLimit = remaining;
+        }
+        if (bufferLimit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, bufferLimit, buffer.length - bufferLimit);
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(byteBuffer);
+        }
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            bufferLimit += read;
+        }
+    }
+}
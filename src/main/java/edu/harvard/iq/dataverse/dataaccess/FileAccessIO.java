@@ -45,10 +45,15 @@ import edu.harvard.iq.dataverse.DvObject;
 import edu.harvard.iq.dataverse.datavariable.DataVariable;
 import java.io.FileNotFoundException;
 import java.nio.channels.Channel;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 
+import org.apache.commons.io.input.BoundedInputStream;
+
 
 public class FileAccessIO<T extends DvObject> extends StorageIO<T> {
 
@@ -633,6 +638,25 @@ public class FileAccessIO<T extends DvObject> extends StorageIO<T> {
         return auxItems;
     }
 
+    @Override
+    public InputStream getRangeInputStream(long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(getFileSystemPath(), StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public boolean isAuxRangedReadSupported() {
+        return true;
+    }
+
+    @Override
+    public InputStream getAuxRangeInputStream(String auxItemTag, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(getAuxObjectAsPath(auxItemTag), StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
     @Override
     public InputStream getAuxFileAsInputStream(String auxItemTag) throws IOException {
         InputStream in = null;
@@ -0,0 +1,53 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import java.time.Duration;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+import org.eclipse.microprofile.metrics.annotation.Metric;
+
+/**
+ * The metrics of the conversions of tabular files to alternative formats
+ * (see {@link DataConverter}), reported through MicroProfile Metrics.
+ */
+@ApplicationScoped
+public class FormatConversionMetrics {
+
+    @Inject
+    @Metric(name = "format_conversion_cache_hits", absolute = true,
+            description = "Counts the requests for alternative formats served from the cache")
+    Counter cacheHits;
+
+    @Inject
+    @Metric(name = "format_conversion_cache_misses", absolute = true,
+            description = "Counts the requests for alternative formats that had to run (or wait for) a conversion")
+    Counter cacheMisses;
+
+    @Inject
+    @Metric(name = "format_conversion_waits", absolute = true,
+            description = "Counts the requests that waited for the same conversion already running for another request")
+    Counter conversionWaits;
+
+    @Inject
+    @Metric(name = "format_conversion_time", absolute = true, unit = MetricUnits.NANOSECONDS,
+            description = "Displays how long does it take to convert a tabular file to an alternative format")
+    Timer conversionTimer;
+
+    public void countCacheHit() {
+        cacheHits.inc();
+    }
+
+    public void countCacheMiss() {
+        cacheMisses.inc();
+    }
+
+    public void countConversionWait() {
+        conversionWaits.inc();
+    }
+
+    public void recordConversionTime(long nanos) {
+        conversionTimer.update(Duration.ofNanos(nanos));
+    }
+}
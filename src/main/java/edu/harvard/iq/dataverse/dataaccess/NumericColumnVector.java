@@ -0,0 +1,151 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import java.util.BitSet;
+
+/**
+ * A numeric variable vector subsetted from a tab file, stored in a primitive
+ * array (double[], float[] or long[], depending on the type), with the missing
+ * values recorded in a bitmap; instead of a Double[]/Float[]/Long[] array with
+ * one boxed object per value and nulls for the missing values.
+ *
+ * Note that a NaN is a legitimate (non-missing) value in a vector of doubles
+ * or floats.
+ */
+public class NumericColumnVector {
+
+    private final TabularSubsetGenerator.VectorType type;
+    private final int size;
+    private final BitSet missing;
+    private double[] doubleValues;
+    private float[] floatValues;
+    private long[] longValues;
+
+    private NumericColumnVector(TabularSubsetGenerator.VectorType type, int size) {
+        this.type = type;
+        this.size = size;
+        this.missing = new BitSet(size);
+    }
+
+    public static NumericColumnVector ofDoubles(int size) {
+        NumericColumnVector vector = new NumericColumnVector(TabularSubsetGenerator.VectorType.DOUBLE, size);
+        vector.doubleValues = new double[size];
+        return vector;
+    }
+
+    public static NumericColumnVector ofFloats(int size) {
+        NumericColumnVector vector = new NumericColumnVector(TabularSubsetGenerator.VectorType.FLOAT, size);
+        vector.floatValues = new float[size];
+        return vector;
+    }
+
+    public static NumericColumnVector ofLongs(int size) {
+        NumericColumnVector vector = new NumericColumnVector(TabularSubsetGenerator.VectorType.LONG, size);
+        vector.longValues = new long[size];
+        return vector;
+    }
+
+    public TabularSubsetGenerator.VectorType getType() {
+        return type;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isMissing(int i) {
+        return missing.get(i);
+    }
+
+    public void setMissing(int i) {
+        missing.set(i);
+    }
+
+    public int getMissingCount() {
+        return missing.cardinality();
+    }
+
+    public void setDouble(int i, double value) {
+        doubleValues[i] = value;
+    }
+
+    public void setFloat(int i, float value) {
+        floatValues[i] = value;
+    }
+
+    public void setLong(int i, long value) {
+        longValues[i] = value;
+    }
+
+    public float getFloat(int i) {
+        return floatValues[i];
+    }
+
+    /**
+     * @return the i-th value as a double, whatever the type of the vector;
+     * the value is undefined for missing values.
+     */
+    public double getDouble(int i) {
+        switch (type) {
+            case FLOAT:
+                return floatValues[i];
+            case LONG:
+                return longValues[i];
+            default:
+                return doubleValues[i];
+        }
+    }
+
+    /**
+     * @return all the values that are neither missing nor NaN, as doubles,
+     * in the order in which they appear in the vector. This is what the
+     * summary statistics are calculated on.
+     */
+    public double[] getValidValues() {
+        double[] validValues = new double[size - missing.cardinality()];
+        int c = 0;
+        for (int i = 0; i < size; i++) {
+            if (!missing.get(i)) {
+                double value = getDouble(i);
+                if (!Double.isNaN(value)) {
+                    validValues[c++] = value;
+                }
+            }
+        }
+        if (c < validValues.length) {
+            double[] trimmed = new double[c];
+            System.arraycopy(validValues, 0, trimmed, 0, c);
+            return trimmed;
+        }
+        return validValues;
+    }
+
+    /*
+     * The UNF calculator only accepts boxed vectors, with nulls for missing
+     * values; so we have to box the values at this point, but only one vector
+     * at a time, and only for as long as the UNF calculation takes.
+     */
+
+    public Double[] toBoxedDoubles() {
+        Double[] boxed = new Double[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = missing.get(i) ? null : getDouble(i);
+        }
+        return boxed;
+    }
+
+    public Float[] toBoxedFloats() {
+        Float[] boxed = new Float[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = missing.get(i) ? null : floatValues[i];
+        }
+        return boxed;
+    }
+
+    public Long[] toBoxedLongs() {
+        Long[] boxed = new Long[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = missing.get(i) ? null : longValues[i];
+        }
+        return boxed;
+    }
+}
@@ -7,7 +7,9 @@ import edu.harvard.iq.dataverse.DvObject;
 import edu.harvard.iq.dataverse.datavariable.DataVariable;
 import edu.harvard.iq.dataverse.util.UrlSignerUtil;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -20,6 +22,8 @@ import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.http.Header;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
@@ -45,6 +49,13 @@ public class RemoteOverlayAccessIO<T extends DvObject> extends AbstractRemoteOve
     static final String BASE_URL = "base-url";
     String baseUrl = null;
 
+    // Set once the remote server answered a range request with the whole
+    // file: the ranges that follow are read from one sequential stream on the
+    // file instead (see getRangeInputStream())
+    private boolean rangesIgnored = false;
+    // Where the stream on the whole file is, when reading ranges from it
+    private long sequentialPosition = 0;
+
     public RemoteOverlayAccessIO() {
         super();
     }
@@ -195,7 +206,7 @@ public class RemoteOverlayAccessIO<T extends DvObject> extends AbstractRemoteOve
                 int code = response.getStatusLine().getStatusCode();
                 switch (code) {
                 case 200:
-                    setInputStream(response.getEntity().getContent());
+                    setInputStream(new ResponseInputStream(response, response.getEntity().getContent(), false));
                     break;
                 default:
                     logger.warning("Response from " + get.getURI().toString() + " was " + code);
@@ -227,6 +238,136 @@ public class RemoteOverlayAccessIO<T extends DvObject> extends AbstractRemoteOve
         return super.getReadChannel();
     }
 
+    @Override
+    public boolean isRangedReadPreferred() {
+        return !rangesIgnored;
+    }
+
+    @Override
+    public InputStream getRangeInputStream(long offset, long length) throws IOException {
+        if (length <= 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        if (rangesIgnored) {
+            return getSequentialRangeInputStream(offset, length);
+        }
+        CloseableHttpResponse response;
+        try {
+            HttpGet get = new HttpGet(generateTemporaryDownloadUrl(null, null, null));
+            get.addHeader("Range", "bytes=" + offset + "-" + (offset + length - 1));
+            response = getSharedHttpClient().execute(get, localContext);
+        } catch (Exception e) {
+            logger.warning(e.getMessage());
+            throw new IOException("Error retrieving: " + baseUrl + "/" + path + " " + e.getMessage());
+        }
+
+        int code = response.getStatusLine().getStatusCode();
+        switch (code) {
+        case 206:
+            return new ResponseInputStream(response, new BoundedInputStream(response.getEntity().getContent(), length), true);
+        case 200:
+            // The remote server ignored the Range header and is sending the
+            // whole file; so we stop asking for ranges, and read this and the
+            // following ranges from this response:
+            logger.fine("Range request ignored by " + baseUrl + "; reading the ranges sequentially");
+            rangesIgnored = true;
+            closeInputStream();
+            setInputStream(new ResponseInputStream(response, response.getEntity().getContent(), false));
+            setChannel(Channels.newChannel(super.getInputStream()));
+            sequentialPosition = 0;
+            return getSequentialRangeInputStream(offset, length);
+        default:
+            EntityUtils.consume(response.getEntity());
+            response.close();
+            throw new IOException("Cannot retrieve range " + offset + "+" + length + " of " + baseUrl + "/" + path + " code: " + code);
+        }
+    }
+
+    /*
+     * Reads the range from the stream on the whole file, skipping to it. The
+     * stream is only reopened if the range starts before where it is. The
+     * stream returned doesn't close the stream on the whole file, which is
+     * closed with closeInputStream().
+     */
+    private InputStream getSequentialRangeInputStream(long offset, long length) throws IOException {
+        if (super.getInputStream() != null && offset < sequentialPosition) {
+            closeInputStream();
+            setInputStream(null);
+            setChannel(null);
+        }
+        if (super.getInputStream() == null) {
+            sequentialPosition = 0;
+        }
+        InputStream in = getInputStream();
+        IOUtils.skipFully(in, offset - sequentialPosition);
+        sequentialPosition = offset;
+        return new FilterInputStream(new BoundedInputStream(in, length)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    sequentialPosition++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    sequentialPosition += n;
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                sequentialPosition += skipped;
+                return skipped;
+            }
+
+            @Override
+            public void close() {
+                // the stream on the whole file is kept for the next ranges
+            }
+        };
+    }
+
+    /*
+     * The content of a response, which closes the response when closed. The
+     * rest of the content is read first if asked to, so that the connection
+     * can be reused; otherwise (e.g. for the rest of a whole file), the
+     * connection is closed.
+     */
+    private static class ResponseInputStream extends FilterInputStream {
+        private final CloseableHttpResponse response;
+        private final boolean consumeOnClose;
+
+        ResponseInputStream(CloseableHttpResponse response, InputStream content, boolean consumeOnClose) {
+            super(content);
+            this.response = response;
+            this.consumeOnClose = consumeOnClose;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (consumeOnClose) {
+                try {
+                    super.close();
+                } finally {
+                    response.close();
+                }
+            } else {
+                try {
+                    response.close();
+                } finally {
+                    super.close();
+                }
+            }
+        }
+    }
+
     @Override
     public void delete() throws IOException {
         // Delete is best-effort - we tell the remote server and it may or may not
@@ -44,6 +44,7 @@ import edu.harvard.iq.dataverse.settings.JvmSettings;
 import edu.harvard.iq.dataverse.util.FileUtil;
 import opennlp.tools.util.StringUtil;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -780,6 +781,43 @@ public class S3AccessIO<T extends DvObject> extends StorageIO<T> {
         throw new UnsupportedDataAccessOperationException("S3AccessIO: there are no output Streams associated with S3 objects.");
     }
 
+    @Override
+    public boolean isRangedReadPreferred() {
+        return true;
+    }
+
+    @Override
+    public InputStream getRangeInputStream(long offset, long length) throws IOException {
+        if (length <= 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        try {
+            // a ranged GET - only the requested bytes are transferred:
+            return s3.getObject(new GetObjectRequest(bucketName, key).withRange(offset, offset + length - 1)).getObjectContent();
+        } catch (SdkClientException sce) {
+            throw new IOException("Cannot get S3 object " + key + " ("+sce.getMessage()+")");
+        }
+    }
+
+    @Override
+    public boolean isAuxRangedReadSupported() {
+        return true;
+    }
+
+    @Override
+    public InputStream getAuxRangeInputStream(String auxItemTag, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        String destinationKey = getDestinationKey(auxItemTag);
+        try {
+            // a ranged GET - only the requested bytes are transferred:
+            return s3.getObject(new GetObjectRequest(bucketName, destinationKey).withRange(offset, offset + length - 1)).getObjectContent();
+        } catch (SdkClientException sce) {
+            throw new IOException("Cannot get S3 object " + destinationKey + " ("+sce.getMessage()+")");
+        }
+    }
+
     @Override
     public InputStream getAuxFileAsInputStream(String auxItemTag) throws IOException {
         String destinationKey = getDestinationKey(auxItemTag);
@@ -139,6 +139,55 @@ public abstract class StorageIO<T extends DvObject> {
 
     public abstract void saveInputStream(InputStream inputStream, Long filesize) throws IOException;
 
+    /**
+     * Opens a new InputStream on a byte range of the main physical file,
+     * independent of the stream opened by open(). Drivers that can read a
+     * range of the file without reading it from the beginning override
+     * this method.
+     * 
+     * @param offset the offset of the first byte of the range
+     * @param length the number of bytes in the range
+     * @throws UnsupportedDataAccessOperationException if the driver does not
+     * support ranged reads
+     */
+    public InputStream getRangeInputStream(long offset, long length) throws IOException {
+        throw new UnsupportedDataAccessOperationException("Ranged reads are not supported by this DataAccess driver.");
+    }
+
+    /**
+     * @return true if the driver should serve the byte range requests on the
+     * main physical file with getRangeInputStream(), i.e. if the range can be
+     * fetched from the storage without transferring the rest of the file; as
+     * opposed to skipping to it in the stream opened on the entire file (which,
+     * for a local file, is just as efficient).
+     */
+    public boolean isRangedReadPreferred() {
+        return false;
+    }
+
+    /**
+     * Opens a new InputStream on a byte range of an auxiliary object, without
+     * reading the object from the beginning.
+     * 
+     * @param auxItemTag the tag of the auxiliary object
+     * @param offset the offset of the first byte of the range
+     * @param length the number of bytes in the range
+     * @throws UnsupportedDataAccessOperationException if the driver does not
+     * support ranged reads of auxiliary objects (see isAuxRangedReadSupported())
+     */
+    public InputStream getAuxRangeInputStream(String auxItemTag, long offset, long length) throws IOException {
+        throw new UnsupportedDataAccessOperationException("Ranged reads of auxiliary objects are not supported by this DataAccess driver.");
+    }
+
+    /**
+     * @return true if getAuxRangeInputStream() is supported, i.e. if a range
+     * of an auxiliary object can be read without transferring the bytes
+     * before it.
+     */
+    public boolean isAuxRangedReadSupported() {
+        return false;
+    }
+
     // Auxiliary File Management: (new as of 4.0.2!)
 
     // An "auxiliary object" is an abstraction of the traditional DVN/Dataverse
@@ -0,0 +1,202 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import edu.harvard.iq.dataverse.DataFile;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * A sparse index of the line offsets of an ingested tab-delimited file,
+ * saved as an auxiliary object of the datafile: the byte offset of every
+ * N-th line of the file (N being the "interval" of the index). With it, a
+ * range of rows can be located by reading at most N lines on each end of
+ * the range, and then served as a single byte range of the tab file,
+ * instead of reading the file from the beginning.
+ *
+ * The format is: the magic string "DVROWS01"; the interval (int); the number
+ * of lines in the tab file (long) - including the variable name header, if
+ * the file is stored with one; the size of the tab file (long); the number
+ * of offsets (int); followed by the offsets (long) of the lines 0, N, 2N, ...
+ */
+public class TabRowIndex {
+
+    private static final Logger logger = Logger.getLogger(TabRowIndex.class.getCanonicalName());
+
+    public static final String AUX_TAG = "rowindex";
+    public static final int DEFAULT_INTERVAL = 10000;
+
+    private static final byte[] MAGIC = {'D', 'V', 'R', 'O', 'W', 'S', '0', '1'};
+
+    private final int interval;
+    private final long numLines;
+    private final long fileSize;
+    private final long[] offsets;
+
+    private TabRowIndex(int interval, long numLines, long fileSize, long[] offsets) {
+        this.interval = interval;
+        this.numLines = numLines;
+        this.fileSize = fileSize;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @return the row index of the tabular file, or null if the file does not
+     * have one.
+     */
+    public static TabRowIndex open(StorageIO<DataFile> storageIO) throws IOException {
+        if (!storageIO.isAuxObjectCached(AUX_TAG)) {
+            return null;
+        }
+        return read(storageIO.getAuxFileAsInputStream(AUX_TAG));
+    }
+
+    static TabRowIndex read(InputStream in) throws IOException {
+        try (DataInputStream index = new DataInputStream(in)) {
+            byte[] magic = new byte[MAGIC.length];
+            index.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a tab file row index (or an unsupported version).");
+            }
+            int interval = index.readInt();
+            long numLines = index.readLong();
+            long fileSize = index.readLong();
+            long[] offsets = new long[index.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = index.readLong();
+            }
+            return new TabRowIndex(interval, numLines, fileSize, offsets);
+        }
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public long getNumLines() {
+        return numLines;
+    }
+
+    /**
+     * Locates the lines firstLine (inclusive) through endLine (exclusive) of
+     * the tab file, reading the file through ranged reads on the storage
+     * driver.
+     *
+     * @return the byte offsets of the beginning and the end of the lines
+     * @throws UnsupportedDataAccessOperationException if the storage driver
+     * does not support ranged reads
+     */
+    public long[] locateLines(StorageIO<DataFile> storageIO, long firstLine, long endLine) throws IOException {
+        return locateLines(storageIO::getRangeInputStream, firstLine, endLine);
+    }
+
+    long[] locateLines(ColumnarTabFile.RangeOpener rangeOpener, long firstLine, long endLine) throws IOException {
+        if (firstLine < 0 || endLine < firstLine || endLine > numLines) {
+            throw new IOException("Invalid line range " + firstLine + "-" + endLine + " (" + numLines + " lines in the file)");
+        }
+        if (firstLine == numLines) {
+            return new long[]{fileSize, fileSize};
+        }
+        long start = findLineOffset(rangeOpener, firstLine, -1L, -1L);
+        long end = endLine == numLines ? fileSize : findLineOffset(rangeOpener, endLine, firstLine, start);
+        return new long[]{start, end};
+    }
+
+    /*
+     * Finds the offset of the line by reading forward from the closest
+     * indexed line before it, or from the line already located, if that one
+     * is closer.
+     */
+    private long findLineOffset(ColumnarTabFile.RangeOpener rangeOpener, long line, long knownLine, long knownOffset) throws IOException {
+        int block = (int) (line / interval);
+        long fromLine = (long) block * interval;
+        long fromOffset = offsets[block];
+        if (knownLine > fromLine) {
+            fromLine = knownLine;
+            fromOffset = knownOffset;
+        }
+        if (line == fromLine) {
+            return fromOffset;
+        }
+        long toOffset = block + 1 < offsets.length ? offsets[block + 1] : fileSize;
+
+        try (DelimitedLineReader reader = new DelimitedLineReader(rangeOpener.open(fromOffset, toOffset - fromOffset), 0)) {
+            for (long i = fromLine; i <= line; i++) {
+                if (!reader.nextLine()) {
+                    throw new IOException("Tab file has fewer lines than the row index (" + numLines + ")");
+                }
+            }
+            return fromOffset + reader.getLineOffset();
+        }
+    }
+
+    /**
+     * Copies the lines firstLine (inclusive) through endLine (exclusive) of
+     * the tab file to the output stream, reading the file sequentially from
+     * the beginning. This is what we do when the file has no row index, or
+     * when the storage driver does not support ranged reads. The input stream
+     * is closed when done.
+     */
+    public static void copyLines(InputStream in, long firstLine, long endLine, OutputStream out) throws IOException {
+        try (DelimitedLineReader reader = new DelimitedLineReader(in, 0)) {
+            for (long line = 0; line < endLine; line++) {
+                if (!reader.nextLine()) {
+                    throw new IOException("Tab file has fewer lines than requested (" + endLine + ")");
+                }
+                if (line >= firstLine) {
+                    reader.writeLine(out);
+                    out.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Produces the row index of a tab-delimited file.
+     *
+     * @param tabFile the tab file
+     * @param interval the number of lines between the indexed lines
+     * @param indexFile where to save the index
+     */
+    public static void generate(File tabFile, int interval, File indexFile) throws IOException {
+        long[] offsets = new long[16];
+        int numOffsets = 0;
+        long numLines = 0;
+
+        try (DelimitedLineReader reader = new DelimitedLineReader(new FileInputStream(tabFile), 0)) {
+            while (reader.nextLine()) {
+                if (numLines % interval == 0) {
+                    if (numOffsets == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    }
+                    offsets[numOffsets++] = reader.getLineOffset();
+                }
+                numLines++;
+            }
+        }
+        if (numOffsets == 0) {
+            // an empty file; line 0 is at the end of it:
+            offsets[numOffsets++] = 0L;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.write(MAGIC);
+            out.writeInt(interval);
+            out.writeLong(numLines);
+            out.writeLong(tabFile.length());
+            out.writeInt(numOffsets);
+            for (int i = 0; i < numOffsets; i++) {
+                out.writeLong(offsets[i]);
+            }
+        }
+        logger.fine("Generated a row index of " + numLines + " lines, " + numOffsets + " offsets");
+    }
+}
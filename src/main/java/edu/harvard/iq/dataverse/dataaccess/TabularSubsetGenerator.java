@@ -33,15 +33,18 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
 import java.util.Set;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.logging.Logger;
@@ -63,6 +66,7 @@ public class TabularSubsetGenerator implements SubsetGenerator {
     private static Logger logger = Logger.getLogger(TabularSubsetGenerator.class.getPackage().getName());
 
     //private static int MAX_COLUMN_BUFFER = 8192;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
         
     public TabularSubsetGenerator() {
         
@@ -96,272 +100,265 @@ public class TabularSubsetGenerator implements SubsetGenerator {
 
     public void subsetFile(InputStream in, String outfile, List<Integer> columns, Long numCases,
         String delimiter) {
-          try (Scanner scanner = new Scanner(in); BufferedWriter out = new BufferedWriter(new FileWriter(outfile))) {
-            scanner.useDelimiter("\\n");
-
-                for (long caseIndex = 0; caseIndex < numCases; caseIndex++) {
-                    if (scanner.hasNext()) {
-                        String[] line = (scanner.next()).split(delimiter,-1);
-                        List<String> ln = new ArrayList<String>();
-                        for (Integer i : columns) {
-                            ln.add(line[i]);
-                        }
-                        out.write(StringUtils.join(ln,"\t")+"\n");
-                    } else {
-                        throw new RuntimeException("Tab file has fewer rows than the determined number of cases.");
-                    }
-                }
-
-              while (scanner.hasNext()) {
-                  if (!"".equals(scanner.next()) ) {
-                      throw new RuntimeException("Tab file has extra nonempty rows than the determined number of cases.");
-
-                  }
-              }
-
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
+        subsetFile(Channels.newChannel(in), outfile, columns, numCases, delimiter);
     }
-    
+
     /*
-     * Straightforward method for subsetting a column; inefficient on large 
-     * files, OK to use on small files:
+     * The requested columns are copied from the input as raw bytes; the other
+     * fields are not decoded or extracted, and the fields past the last 
+     * requested column are not even looked at. When subsetting a local file,
+     * pass its FileChannel here, rather than an InputStream. 
      */
-    
-    public static Double[] subsetDoubleVector(InputStream in, int column, int numCases, boolean skipHeader) {
-        Double[] retVector = new Double[numCases];
-        try (Scanner scanner = new Scanner(in)) {
-            scanner.useDelimiter("\\n");
-
-            if (skipHeader) {
-                skipFirstLine(scanner);
-            }
-            
-            for (int caseIndex = 0; caseIndex < numCases; caseIndex++) {
-                if (scanner.hasNext()) {
-                    String[] line = (scanner.next()).split("\t", -1);
-
-                    // Verified: new Double("nan") works correctly,
-                    // resulting in Double.NaN;
-                    // Double("[+-]Inf") doesn't work however;
-                    // (the constructor appears to be expecting it
-                    // to be spelled as "Infinity", "-Infinity", etc.
-                    if ("inf".equalsIgnoreCase(line[column]) || "+inf".equalsIgnoreCase(line[column])) {
-                        retVector[caseIndex] = java.lang.Double.POSITIVE_INFINITY;
-                    } else if ("-inf".equalsIgnoreCase(line[column])) {
-                        retVector[caseIndex] = java.lang.Double.NEGATIVE_INFINITY;
-                    } else if (line[column] == null || line[column].equals("")) {
-                        // missing value:
-                        retVector[caseIndex] = null;
-                    } else {
-                        try {
-                            retVector[caseIndex] = new Double(line[column]);
-                        } catch (NumberFormatException ex) {
-                            retVector[caseIndex] = null; // missing value
+    public void subsetFile(ReadableByteChannel in, String outfile, List<Integer> columns, Long numCases,
+        String delimiter) {
+        if (delimiter.length() != 1) {
+            throw new IllegalArgumentException("Only single-character delimiters are supported.");
+        }
+        int maxColumn = columns.stream().mapToInt(Integer::intValue).max().orElse(0);
+        
+        try (DelimitedLineReader reader = new DelimitedLineReader(in, (byte) delimiter.charAt(0), maxColumn);
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(outfile), OUTPUT_BUFFER_SIZE)) {
+
+            for (long caseIndex = 0; caseIndex < numCases; caseIndex++) {
+                if (reader.nextLine()) {
+                    for (int c = 0; c < columns.size(); c++) {
+                        if (c > 0) {
+                            out.write('\t');
                         }
+                        reader.writeField(columns.get(c), out);
                     }
-
+                    out.write('\n');
                 } else {
-                    throw new RuntimeException("Tab file has fewer rows than the stored number of cases!");
+                    throw new RuntimeException("Tab file has fewer rows than the determined number of cases.");
                 }
             }
 
-            int tailIndex = numCases;
-            while (scanner.hasNext()) {
-                String nextLine = scanner.next();
-                if (!"".equals(nextLine)) {
-                    throw new RuntimeException("Column " + column + ": tab file has more nonempty rows than the stored number of cases (" + numCases + ")! current index: " + tailIndex + ", line: " + nextLine);
+            while (reader.nextLine()) {
+                if (!reader.isLineEmpty()) {
+                    throw new RuntimeException("Tab file has extra nonempty rows than the determined number of cases.");
                 }
-                tailIndex++;
             }
 
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        return retVector;
 
     }
     
     /*
-     * Same deal as with the method above - straightforward, but (potentially) slow. 
+     * Straightforward methods for subsetting a single column; inefficient on  
+     * large files, if more than one column is needed, OK to use on small files.
+     * Use subsetVectors() below to subset multiple columns in one pass. 
      * Not a resource hog though - will only try to store one vector in memory. 
      */
+    
+    public static Double[] subsetDoubleVector(InputStream in, int column, int numCases, boolean skipHeader) {
+        return subsetNumericVector(in, column, VectorType.DOUBLE, numCases, skipHeader).toBoxedDoubles();
+    }
+    
     public static Float[] subsetFloatVector(InputStream in, int column, int numCases, boolean skipHeader) {
-        Float[] retVector = new Float[numCases];
-        try (Scanner scanner = new Scanner(in)) {
-            scanner.useDelimiter("\\n");
-
-            if (skipHeader) {
-                skipFirstLine(scanner);
-            }
-            
-            for (int caseIndex = 0; caseIndex < numCases; caseIndex++) {
-                if (scanner.hasNext()) {
-                    String[] line = (scanner.next()).split("\t", -1);
-                    // Verified: new Float("nan") works correctly,
-                    // resulting in Float.NaN;
-                    // Float("[+-]Inf") doesn't work however;
-                    // (the constructor appears to be expecting it
-                    // to be spelled as "Infinity", "-Infinity", etc.
-                    if ("inf".equalsIgnoreCase(line[column]) || "+inf".equalsIgnoreCase(line[column])) {
-                        retVector[caseIndex] = java.lang.Float.POSITIVE_INFINITY;
-                    } else if ("-inf".equalsIgnoreCase(line[column])) {
-                        retVector[caseIndex] = java.lang.Float.NEGATIVE_INFINITY;
-                    } else if (line[column] == null || line[column].equals("")) {
-                        // missing value:
-                        retVector[caseIndex] = null;
-                    } else {
-                        try {
-                            retVector[caseIndex] = new Float(line[column]);
-                        } catch (NumberFormatException ex) {
-                            retVector[caseIndex] = null; // missing value
-                        }
-                    }
-                } else {
-                    throw new RuntimeException("Tab file has fewer rows than the stored number of cases!");
-                }
-            }
-
-            int tailIndex = numCases;
-            while (scanner.hasNext()) {
-                String nextLine = scanner.next();
-                if (!"".equals(nextLine)) {
-                    throw new RuntimeException("Column "+column+": tab file has more nonempty rows than the stored number of cases ("+numCases+")! current index: "+tailIndex+", line: "+nextLine);
-                }
-                tailIndex++;
-            }
-
-        }
-        return retVector;
-
+        return subsetNumericVector(in, column, VectorType.FLOAT, numCases, skipHeader).toBoxedFloats();
+    }
+    
+    public static Long[] subsetLongVector(InputStream in, int column, int numCases, boolean skipHeader) {
+        return subsetNumericVector(in, column, VectorType.LONG, numCases, skipHeader).toBoxedLongs();
+    }
+    
+    public static String[] subsetStringVector(InputStream in, int column, int numCases, boolean skipHeader) {
+        return (String[]) subsetVectors(in, new int[]{column}, new VectorType[]{VectorType.STRING}, numCases, skipHeader)[0];
     }
     
     /*
-     * Same deal as with the method above - straightforward, but (potentially) slow. 
-     * Not a resource hog though - will only try to store one vector in memory. 
+     * Same as above, but the numeric vector is returned in its primitive-backed
+     * form, without boxing the values.
      */
-    public static Long[] subsetLongVector(InputStream in, int column, int numCases, boolean skipHeader) {
-        Long[] retVector = new Long[numCases];
-        try (Scanner scanner = new Scanner(in)) {
-            scanner.useDelimiter("\\n");
-
-            if (skipHeader) {
-                skipFirstLine(scanner);
-            }
-            
-            for (int caseIndex = 0; caseIndex < numCases; caseIndex++) {
-                if (scanner.hasNext()) {
-                    String[] line = (scanner.next()).split("\t", -1);
-                    try {
-                        retVector[caseIndex] = new Long(line[column]);
-                    } catch (NumberFormatException ex) {
-                        retVector[caseIndex] = null; // assume missing value
-                    }
-                } else {
-                    throw new RuntimeException("Tab file has fewer rows than the stored number of cases!");
-                }
-            }
-
-            int tailIndex = numCases;
-            while (scanner.hasNext()) {
-                String nextLine = scanner.next();
-                if (!"".equals(nextLine)) {
-                    throw new RuntimeException("Column "+column+": tab file has more nonempty rows than the stored number of cases ("+numCases+")! current index: "+tailIndex+", line: "+nextLine);
-                }
-                tailIndex++;
-            }
-
-        }
-        return retVector;
-
+    public static NumericColumnVector subsetNumericVector(InputStream in, int column, VectorType type, int numCases, boolean skipHeader) {
+        return (NumericColumnVector) subsetVectors(in, new int[]{column}, new VectorType[]{type}, numCases, skipHeader)[0];
     }
     
+    /**
+     * Column types that can be requested from 
+     * {@link #subsetVectors(InputStream, int[], VectorType[], int, boolean)}.
+     */
+    public enum VectorType {
+        DOUBLE, FLOAT, LONG, STRING
+    }
+
     /*
-     * Same deal as with the method above - straightforward, but (potentially) slow. 
-     * Not a resource hog though - will only try to store one vector in memory. 
+     * Subsets multiple columns in one pass through the tab file, instead of 
+     * re-reading the whole file once per column. The same column may be 
+     * requested more than once, with different types. 
+     * The returned array contains one vector per requested column, in the 
+     * order requested: a NumericColumnVector for the numeric types (the 
+     * values are stored in a primitive array, with the missing values 
+     * recorded in a bitmap, to avoid allocating a boxed object for every 
+     * value of every column), or a String[] for the STRING type. 
+     * Note that all the requested vectors are stored in memory at once - it
+     * is the responsibility of the caller to limit the number of columns 
+     * requested per pass on very large files. 
      */
-    public static String[] subsetStringVector(InputStream in, int column, int numCases, boolean skipHeader) {
-        String[] retVector = new String[numCases];
-        try (Scanner scanner = new Scanner(in)) {
-            scanner.useDelimiter("\\n");
+    public static Object[] subsetVectors(InputStream in, int[] columns, VectorType[] types, int numCases, boolean skipHeader) {
+        if (columns.length != types.length) {
+            throw new IllegalArgumentException("The numbers of requested columns and column types do not match.");
+        }
+        
+        Object[] retVectors = new Object[columns.length];
+        
+        for (int j = 0; j < columns.length; j++) {
+            switch (types[j]) {
+                case DOUBLE:
+                    retVectors[j] = NumericColumnVector.ofDoubles(numCases);
+                    break;
+                case FLOAT:
+                    retVectors[j] = NumericColumnVector.ofFloats(numCases);
+                    break;
+                case LONG:
+                    retVectors[j] = NumericColumnVector.ofLongs(numCases);
+                    break;
+                default:
+                    retVectors[j] = new String[numCases];
+            }
+        }
+        
+        int maxColumn = Arrays.stream(columns).max().orElse(0);
+        
+        try (DelimitedLineReader reader = new DelimitedLineReader(in, maxColumn)) {
 
             if (skipHeader) {
-                skipFirstLine(scanner);
+                skipFirstLine(reader);
             }
             
             for (int caseIndex = 0; caseIndex < numCases; caseIndex++) {
-                if (scanner.hasNext()) {
-                    String[] line = (scanner.next()).split("\t", -1);
-                    retVector[caseIndex] = line[column];
-
-                    if ("".equals(line[column])) {
-                        // An empty string is a string missing value!
-                        // An empty string in quotes is an empty string!
-                        retVector[caseIndex] = null;
-                    } else {
-                        // Strip the outer quotes:
-                        line[column] = line[column].replaceFirst("^\\\"", "");
-                        line[column] = line[column].replaceFirst("\\\"$", "");
-
-                        // We need to restore the special characters that
-                        // are stored in tab files escaped - quotes, new lines
-                        // and tabs. Before we do that however, we need to
-                        // take care of any escaped backslashes stored in
-                        // the tab file. I.e., "foo\t" should be transformed
-                        // to "foo<TAB>"; but "foo\\t" should be transformed
-                        // to "foo\t". This way new lines and tabs that were
-                        // already escaped in the original data are not
-                        // going to be transformed to unescaped tab and
-                        // new line characters!
-                        String[] splitTokens = line[column].split(Matcher.quoteReplacement("\\\\"), -2);
-
-                        // (note that it's important to use the 2-argument version
-                        // of String.split(), and set the limit argument to a
-                        // negative value; otherwise any trailing backslashes
-                        // are lost.)
-                        for (int i = 0; i < splitTokens.length; i++) {
-                            splitTokens[i] = splitTokens[i].replaceAll(Matcher.quoteReplacement("\\\""), "\"");
-                            splitTokens[i] = splitTokens[i].replaceAll(Matcher.quoteReplacement("\\t"), "\t");
-                            splitTokens[i] = splitTokens[i].replaceAll(Matcher.quoteReplacement("\\n"), "\n");
-                            splitTokens[i] = splitTokens[i].replaceAll(Matcher.quoteReplacement("\\r"), "\r");
+                if (reader.nextLine()) {
+                    for (int j = 0; j < columns.length; j++) {
+                        String value = reader.getField(columns[j]);
+                        switch (types[j]) {
+                            case DOUBLE:
+                                parseDoubleValue(value, (NumericColumnVector) retVectors[j], caseIndex);
+                                break;
+                            case FLOAT:
+                                parseFloatValue(value, (NumericColumnVector) retVectors[j], caseIndex);
+                                break;
+                            case LONG:
+                                parseLongValue(value, (NumericColumnVector) retVectors[j], caseIndex);
+                                break;
+                            default:
+                                ((String[]) retVectors[j])[caseIndex] = parseStringValue(value);
                         }
-                        // TODO:
-                        // Make (some of?) the above optional; for ex., we
-                        // do need to restore the newlines when calculating UNFs;
-                        // But if we are subsetting these vectors in order to
-                        // create a new tab-delimited file, they will
-                        // actually break things! -- L.A. Jul. 28 2014
-
-                        line[column] = StringUtils.join(splitTokens, '\\');
-
-                        retVector[caseIndex] = line[column];
                     }
-
                 } else {
                     throw new RuntimeException("Tab file has fewer rows than the stored number of cases!");
                 }
             }
 
             int tailIndex = numCases;
-            while (scanner.hasNext()) {
-                String nextLine = scanner.next();
-                if (!"".equals(nextLine)) {
-                    throw new RuntimeException("Column "+column+": tab file has more nonempty rows than the stored number of cases ("+numCases+")! current index: "+tailIndex+", line: "+nextLine);
+            while (reader.nextLine()) {
+                if (!reader.isLineEmpty()) {
+                    throw new RuntimeException("Column(s) " + Arrays.toString(columns) + ": tab file has more nonempty rows than the stored number of cases (" + numCases + ")! current index: " + tailIndex + ", line: " + reader.getLine());
                 }
                 tailIndex++;
             }
 
+        } catch (IOException ioex) {
+            throw new RuntimeException("Failed to read the tab-delimited file: " + ioex.getMessage(), ioex);
         }
-        return retVector;
-
+        return retVectors;
+    }
+    
+    private static void parseDoubleValue(String value, NumericColumnVector vector, int caseIndex) {
+        // Verified: Double.parseDouble("nan") works correctly,
+        // resulting in Double.NaN;
+        // Double.parseDouble("[+-]Inf") doesn't work however;
+        // (it appears to be expecting it
+        // to be spelled as "Infinity", "-Infinity", etc.
+        if ("inf".equalsIgnoreCase(value) || "+inf".equalsIgnoreCase(value)) {
+            vector.setDouble(caseIndex, java.lang.Double.POSITIVE_INFINITY);
+        } else if ("-inf".equalsIgnoreCase(value)) {
+            vector.setDouble(caseIndex, java.lang.Double.NEGATIVE_INFINITY);
+        } else if (value == null || value.equals("")) {
+            // missing value:
+            vector.setMissing(caseIndex);
+        } else {
+            try {
+                vector.setDouble(caseIndex, Double.parseDouble(value));
+            } catch (NumberFormatException ex) {
+                vector.setMissing(caseIndex); // missing value
+            }
+        }
+    }
+    
+    private static void parseFloatValue(String value, NumericColumnVector vector, int caseIndex) {
+        // Same as above - "[+-]Inf" needs to be handled explicitly:
+        if ("inf".equalsIgnoreCase(value) || "+inf".equalsIgnoreCase(value)) {
+            vector.setFloat(caseIndex, java.lang.Float.POSITIVE_INFINITY);
+        } else if ("-inf".equalsIgnoreCase(value)) {
+            vector.setFloat(caseIndex, java.lang.Float.NEGATIVE_INFINITY);
+        } else if (value == null || value.equals("")) {
+            // missing value:
+            vector.setMissing(caseIndex);
+        } else {
+            try {
+                vector.setFloat(caseIndex, Float.parseFloat(value));
+            } catch (NumberFormatException ex) {
+                vector.setMissing(caseIndex); // missing value
+            }
+        }
+    }
+    
+    private static void parseLongValue(String value, NumericColumnVector vector, int caseIndex) {
+        try {
+            vector.setLong(caseIndex, Long.parseLong(value));
+        } catch (NumberFormatException ex) {
+            vector.setMissing(caseIndex); // assume missing value
+        }
+    }
+    
+    private static String parseStringValue(String value) {
+        if ("".equals(value)) {
+            // An empty string is a string missing value!
+            // An empty string in quotes is an empty string!
+            return null;
+        }
+        
+        // Strip the outer quotes:
+        value = value.replaceFirst("^\\\"", "");
+        value = value.replaceFirst("\\\"$", "");
+
+        // We need to restore the special characters that
+        // are stored in tab files escaped - quotes, new lines
+        // and tabs. Before we do that however, we need to
+        // take care of any escaped backslashes stored in
+        // the tab file. I.e., "foo\t" should be transformed
+        // to "foo<TAB>"; but "foo\\t" should be transformed
+        // to "foo\t". This way new lines and tabs that were
+        // already escaped in the original data are not
+        // going to be transformed to unescaped tab and
+        // new line characters!
+        String[] splitTokens = value.split(Matcher.quoteReplacement("\\\\"), -2);
+
+        // (note that it's important to use the 2-argument version
+        // of String.split(), and set the limit argument to a
+        // negative value; otherwise any trailing backslashes
+        // are lost.)
+        for (int i = 0; i < splitTokens.length; i++) {
+            splitTokens[i] = splitTokens[i].replaceAll(Matcher.quoteReplacement("\\\""), "\"");
+            splitTokens[i] = splitTokens[i].replaceAll(Matcher.quoteReplacement("\\t"), "\t");
+            splitTokens[i] = splitTokens[i].replaceAll(Matcher.quoteReplacement("\\n"), "\n");
+            splitTokens[i] = splitTokens[i].replaceAll(Matcher.quoteReplacement("\\r"), "\r");
+        }
+        // TODO:
+        // Make (some of?) the above optional; for ex., we
+        // do need to restore the newlines when calculating UNFs;
+        // But if we are subsetting these vectors in order to
+        // create a new tab-delimited file, they will
+        // actually break things! -- L.A. Jul. 28 2014
+
+        return StringUtils.join(splitTokens, '\\');
     }
 
-    private static void skipFirstLine(Scanner scanner) {
-        if (!scanner.hasNext()) {
+    private static void skipFirstLine(DelimitedLineReader reader) throws IOException {
+        if (!reader.nextLine()) {
             throw new RuntimeException("Failed to read the variable name header line from the tab-delimited file!");
         }
-        scanner.next();
     }   
-}
\ No newline at end of file
+}
@@ -77,6 +77,15 @@ public abstract class AbstractCreateDatasetCommand extends AbstractDatasetComman
     
     protected abstract void handlePid( Dataset theDataset, CommandContext ctxt ) throws CommandException ;
     
+    /**
+     * Called once the new dataset has been flushed, to index it.
+     * @param theDataset The em-managed dataset.
+     * @param ctxt 
+     */
+    protected void index( Dataset theDataset, CommandContext ctxt ) {
+        ctxt.index().asyncIndexDataset(theDataset, true);
+    }
+    
     @Override
     public Dataset execute(CommandContext ctxt) throws CommandException {
         
@@ -141,7 +150,7 @@ public abstract class AbstractCreateDatasetCommand extends AbstractDatasetComman
         //Use for code that requires database ids
         postDBFlush(theDataset, ctxt);
         
-        ctxt.index().asyncIndexDataset(theDataset, true);
+        index(theDataset, ctxt);
                  
         return theDataset;
     }
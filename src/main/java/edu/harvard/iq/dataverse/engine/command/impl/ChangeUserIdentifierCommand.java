@@ -90,6 +90,7 @@ public class ChangeUserIdentifierCommand extends AbstractVoidCommand {
         for(RoleAssignment ra : raList) {
             ra.setAssigneeIdentifier("@" + newIdentifier);
         }
+        ctxt.permissions().invalidatePermissionCache();
     }
     
     @Override
@@ -15,8 +15,19 @@ import edu.harvard.iq.dataverse.engine.command.RequiredPermissions;
 @RequiredPermissions(Permission.AddDataset)
 public class CreateHarvestedDatasetCommand extends AbstractCreateDatasetCommand {
 
+    private final boolean indexed;
+
     public CreateHarvestedDatasetCommand(Dataset theDataset, DataverseRequest aRequest) {
+        this(theDataset, aRequest, true);
+    }
+    
+    /**
+     * @param indexed Whether to index the dataset; if not, the caller indexes
+     * it (e.g. along with the other datasets of a batch).
+     */
+    public CreateHarvestedDatasetCommand(Dataset theDataset, DataverseRequest aRequest, boolean indexed) {
         super(theDataset, aRequest, true);
+        this.indexed = indexed;
     }
     
     @Override
@@ -24,4 +35,11 @@ public class CreateHarvestedDatasetCommand extends AbstractCreateDatasetCommand
         theDataset.setGlobalIdCreateTime(getTimestamp());
     }
     
+    @Override
+    protected void index(Dataset theDataset, CommandContext ctxt) {
+        if (indexed) {
+            super.index(theDataset, ctxt);
+        }
+    }
+    
 }
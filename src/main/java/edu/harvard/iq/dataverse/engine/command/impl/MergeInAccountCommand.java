@@ -103,6 +103,7 @@ public class MergeInAccountCommand extends AbstractVoidCommand {
         int resultCount = ctxt.em().createNamedQuery("RoleAssignment.deleteAllByAssigneeIdentifier", RoleAssignment.class).
                         setParameter("assigneeIdentifier", consumedAU.getIdentifier())
                         .executeUpdate();
+        ctxt.permissions().invalidatePermissionCache();
         
         // DatasetVersionUser
         for (DatasetVersionUser user : ctxt.datasetVersion().getDatasetVersionUsersByAuthenticatedUser(consumedAU)) {
@@ -8,6 +8,7 @@ import edu.harvard.iq.dataverse.engine.command.DataverseRequest;
 import edu.harvard.iq.dataverse.engine.command.RequiredPermissions;
 import edu.harvard.iq.dataverse.engine.command.exception.CommandException;
 import edu.harvard.iq.dataverse.engine.command.exception.IllegalCommandException;
+import edu.harvard.iq.dataverse.search.DatasetIndexChanges;
 import edu.harvard.iq.dataverse.settings.SettingsServiceBean;
 import edu.harvard.iq.dataverse.util.DatasetFieldUtil;
 import edu.harvard.iq.dataverse.util.FileMetadataUtil;
@@ -31,6 +32,8 @@ public class UpdateDatasetVersionCommand extends AbstractDatasetCommand<Dataset>
     private boolean validateLenient = false;
     private final DatasetVersion clone;
     final FileMetadata fmVarMet;
+    private DatasetIndexChanges indexChanges;
+    private boolean dataFilesChanged = false;
     
     public UpdateDatasetVersionCommand(Dataset theDataset, DataverseRequest aRequest) {
         super(aRequest, theDataset);
@@ -90,6 +93,15 @@ public class UpdateDatasetVersionCommand extends AbstractDatasetCommand<Dataset>
         this.validateLenient = validateLenient;
     }
 
+    /**
+     * To be set when the edit changed the DataFiles themselves (embargo,
+     * restriction, tabular tags), so that the documents of all the files are
+     * reindexed: only the changes to the file metadata are detected otherwise.
+     */
+    public void setDataFilesChanged(boolean dataFilesChanged) {
+        this.dataFilesChanged = dataFilesChanged;
+    }
+
     @Override
     public Dataset execute(CommandContext ctxt) throws CommandException {
         if ( ! (getUser() instanceof AuthenticatedUser) ) {
@@ -134,6 +146,13 @@ public class UpdateDatasetVersionCommand extends AbstractDatasetCommand<Dataset>
 
             DatasetFieldUtil.tidyUpFields(editVersion.getDatasetFields(), true);
 
+            // What the edit changed, so that only the affected Solr documents
+            // are reindexed. Compared before the merge below, which may copy
+            // the edits onto persistedVersion.
+            if (filesToDelete.isEmpty() && !dataFilesChanged) {
+                indexChanges = DatasetIndexChanges.of(editVersion, persistedVersion, fmVarMet);
+            }
+
             // Merge the new version into out JPA context, if needed.
             if (editVersion.getId() == null || editVersion.getId() == 0L) {
                 ctxt.em().persist(editVersion);
@@ -287,7 +306,8 @@ public class UpdateDatasetVersionCommand extends AbstractDatasetCommand<Dataset>
         // Indexing will be started immediately, unless an index is already busy for the given data
         // (it will be scheduled then for later indexing of the newest version).
         // See the documentation of asyncIndexDataset method for more details.
-        ctxt.index().asyncIndexDataset((Dataset) r, true);
+        // Only the documents affected by the edit are sent, when that is known.
+        ctxt.index().asyncIndexDataset((Dataset) r, true, indexChanges);
         return true;
     }
 
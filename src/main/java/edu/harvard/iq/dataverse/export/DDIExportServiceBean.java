@@ -15,7 +15,9 @@ import edu.harvard.iq.dataverse.FileMetadata;
 import edu.harvard.iq.dataverse.datavariable.VariableMetadata;
 import edu.harvard.iq.dataverse.datavariable.CategoryMetadata;
 import edu.harvard.iq.dataverse.datavariable.VarGroup;
+import edu.harvard.iq.dataverse.dataaccess.ColumnarTabFile;
 import edu.harvard.iq.dataverse.dataaccess.DataConverter;
+import edu.harvard.iq.dataverse.dataaccess.StorageIO;
 
 import edu.harvard.iq.dataverse.datavariable.DataVariable;
 import edu.harvard.iq.dataverse.datavariable.VariableRange;
@@ -25,6 +27,7 @@ import edu.harvard.iq.dataverse.datavariable.VariableCategory;
 import edu.harvard.iq.dataverse.ingest.IngestServiceBean;
 
 import java.io.File;
+import java.io.IOException;
 
 import java.util.List;
 import java.util.Set;
@@ -592,8 +595,27 @@ public class DDIExportServiceBean {
     {
         // @todo: see the comment in the part of the code that calls this method
         try {
+            StorageIO<DataFile> storageIO = df.getStorageIO();
+            // If there is a columnar copy of the file, we only need to read 
+            // the columns of the categorical variables:
+            ColumnarTabFile columnarFile = null;
+            try {
+                columnarFile = ColumnarTabFile.open(storageIO);
+            } catch (IOException ioex) {
+                logger.warning("Failed to open the columnar copy of the tabular file; reading the tab file instead. " + ioex.getMessage());
+            }
+            long numberOfLines = df.getDataTable().getCaseQuantity();
+            if (df.getDataTable().isStoredWithVariableHeader()) {
+                numberOfLines++;
+            }
+            // (a copy that doesn't match the tab file is ignored)
+            if (columnarFile != null && columnarFile.getNumRows() == numberOfLines) {
+                ingestService.produceFrequencies(columnarFile, vars);
+                return;
+            }
+            
             DataConverter dc = new DataConverter();
-            File tabFile = dc.downloadFromStorageIO(df.getStorageIO());
+            File tabFile = dc.downloadFromStorageIO(storageIO);
 
             ingestService.produceFrequencies(tabFile, vars );
 
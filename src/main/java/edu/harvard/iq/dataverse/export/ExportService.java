@@ -17,6 +17,7 @@ import edu.harvard.iq.dataverse.util.BundleUtil;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -44,6 +45,11 @@ import java.util.Optional;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jakarta.ws.rs.core.MediaType;
@@ -240,6 +246,10 @@ public class ExportService {
     // This method goes through all the Exporters and calls
     // the "chacheExport()" method that will save the produced output
     // in a file in the dataset directory, on each Exporter available.
+    // The exporters run in parallel, each as soon as its prerequisite format 
+    // (if any) has been produced; they share the representations of the 
+    // released version, computed once, and read the prerequisite formats from 
+    // local temp files rather than from the storage.
     public void exportAllFormats(Dataset dataset) throws ExportException {
         try {
             clearAllCachedFormats(dataset);
@@ -247,26 +257,46 @@ public class ExportService {
             Logger.getLogger(ExportService.class.getName()).log(Level.SEVERE, null, ex);
         }
 
+        Map<String, CompletableFuture<File>> exports = new HashMap<>();
+        ExecutorService executor = null;
         try {
             DatasetVersion releasedVersion = dataset.getReleasedVersion();
             if (releasedVersion == null) {
                 throw new ExportException("No released version for dataset " + dataset.getGlobalId().toString());
             }
             InternalExportDataProvider dataProvider = new InternalExportDataProvider(releasedVersion);
+            // Only this thread may use the version:
+            dataProvider.computeRepresentations();
+
+            int concurrentExporters = JvmSettings.EXPORT_CONCURRENT_EXPORTERS.lookupOptional(Integer.class).orElse(4);
+            Executor exportExecutor = Runnable::run;
+            if (concurrentExporters > 1) {
+                executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrentExporters, exporterMap.size())));
+                exportExecutor = executor;
+            }
 
+            for (Exporter e : exporterMap.values()) {
+                scheduleExport(dataset, e, dataProvider, exports, new HashSet<>(), exportExecutor);
+            }
+            
+            // Save the exports as they are completed:
             for (Exporter e : exporterMap.values()) {
                 String formatName = e.getFormatName();
-                if(e.getPrerequisiteFormatName().isPresent()) {
-                    String prereqFormatName = e.getPrerequisiteFormatName().get();
-                    try (InputStream preReqStream = getExport(dataset, prereqFormatName)) {
-                        dataProvider.setPrerequisiteInputStream(preReqStream);
-                        cacheExport(dataset, dataProvider, formatName, e);
-                        dataProvider.setPrerequisiteInputStream(null);
-                    } catch (IOException ioe) {
-                        throw new ExportException ("Could not get prerequisite " + e.getPrerequisiteFormatName() + " to create " + formatName + "export for dataset " + dataset.getId(), ioe);
+                File exportFile;
+                try {
+                    exportFile = exports.get(formatName).join();
+                } catch (CompletionException ce) {
+                    if (ce.getCause() instanceof ExportException) {
+                        throw (ExportException) ce.getCause();
                     }
-                } else {
-                    cacheExport(dataset, dataProvider, formatName, e);
+                    if (ce.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ce.getCause();
+                    }
+                    throw ce;
+                }
+                if (exportFile != null) {
+                    Path exportPath = exportFile.toPath();
+                    cacheExport(dataset, formatName, outputStream -> Files.copy(exportPath, outputStream));
                 }
             }
             // Finally, if we have been able to successfully export in all available
@@ -279,10 +309,86 @@ public class ExportService {
             logger.log(Level.FINE, e.getMessage(), e);
             throw new ExportException(
                     "Unknown runtime exception exporting metadata. " + (e.getMessage() == null ? "" : e.getMessage()));
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            for (CompletableFuture<File> export : exports.values()) {
+                // the exports still running delete their own files when cancelled
+                if (!export.cancel(true) && !export.isCompletedExceptionally() && export.join() != null) {
+                    export.join().delete();
+                }
+            }
         }
 
     }
 
+    // Schedules the export in the given format, after the export of its 
+    // prerequisite format, if any. The produced output is left in a temp file.
+    private CompletableFuture<File> scheduleExport(Dataset dataset, Exporter exporter, InternalExportDataProvider dataProvider, 
+            Map<String, CompletableFuture<File>> exports, Set<String> dependents, Executor executor) throws ExportException {
+        String formatName = exporter.getFormatName();
+        CompletableFuture<File> export = exports.get(formatName);
+        if (export != null) {
+            return export;
+        }
+        if (!dependents.add(formatName)) {
+            throw new ExportException("Circular prerequisites for the " + formatName + " export");
+        }
+        if (exporter.getPrerequisiteFormatName().isPresent()) {
+            String prereqFormatName = exporter.getPrerequisiteFormatName().get();
+            Exporter prereqExporter = exporterMap.get(prereqFormatName);
+            if (prereqExporter == null) {
+                throw new ExportException("Could not get prerequisite " + prereqFormatName + " to create " + formatName + "export for dataset " + dataset.getId());
+            }
+            export = scheduleExport(dataset, prereqExporter, dataProvider, exports, dependents, executor)
+                    .thenApplyAsync(prereqFile -> {
+                        if (prereqFile == null) {
+                            throw new CompletionException(new ExportException("Could not get prerequisite " + prereqFormatName + " to create " + formatName + "export for dataset " + dataset.getId()));
+                        }
+                        return runExport(exporter, dataProvider, prereqFile);
+                    }, executor);
+        } else {
+            export = CompletableFuture.supplyAsync(() -> runExport(exporter, dataProvider, null), executor);
+        }
+        exports.put(formatName, export);
+        return export;
+    }
+
+    // Runs the exporter into a temp file. Returns null if the exporter failed,
+    // as cacheExport() does not stop the other exporters in that case either.
+    private File runExport(Exporter exporter, InternalExportDataProvider dataProvider, File prereqFile) {
+        String format = exporter.getFormatName();
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile("tempFileToExport", ".tmp");
+            try (OutputStream outputStream = new FileOutputStream(tempFile);
+                    InputStream prereqStream = prereqFile != null ? new FileInputStream(prereqFile) : null) {
+                exporter.exportDataset(dataProvider.withPrerequisiteInputStream(prereqStream), outputStream);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                // cancelled; nobody will pick the file up
+                tempFile.delete();
+                return null;
+            }
+            return tempFile;
+        } catch (ExportException exex) {
+            logger.warning("Exception thrown while creating export_" + format + ".cached : " + exex.getMessage());
+            tempFile.delete();
+            return null;
+        } catch (IOException ioex) {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            throw new CompletionException(new ExportException("IO Exception thrown exporting as " + "export_" + format + ".cached"));
+        } catch (RuntimeException e) {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            throw e;
+        }
+    }
+
     public void clearAllCachedFormats(Dataset dataset) throws IOException {
         try {
 
@@ -355,6 +461,12 @@ public class ExportService {
     // in a file in the dataset directory / container based on its DOI:
     private void cacheExport(Dataset dataset, InternalExportDataProvider dataProvider, String format, Exporter exporter)
             throws ExportException {
+        cacheExport(dataset, format, outputStream -> exporter.exportDataset(dataProvider, outputStream));
+    }
+
+    // Writes an export in the given format - produced by an exporter, or 
+    // copied from where it was produced - into the cache:
+    private void cacheExport(Dataset dataset, String format, ExportWriter exportWriter) throws ExportException {
         
         OutputStream outputStream = null;
         try {
@@ -384,7 +496,7 @@ public class ExportService {
             try {
                 // Write the metadata export file to the outputStream, which may be the final
                 // location or a temp file
-                exporter.exportDataset(dataProvider, outputStream);
+                exportWriter.writeTo(outputStream);
                 outputStream.flush();
                 outputStream.close();
                 if (tempFileUsed) {
@@ -417,6 +529,11 @@ public class ExportService {
 
     }
 
+    @FunctionalInterface
+    private interface ExportWriter {
+        void writeTo(OutputStream outputStream) throws ExportException, IOException;
+    }
+
     private void clearCachedExport(Dataset dataset, String format) throws IOException {
         try {
             StorageIO<Dataset> storageIO = getStorageIO(dataset);
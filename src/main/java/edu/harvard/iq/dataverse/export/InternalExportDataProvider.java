@@ -28,6 +28,8 @@ public class InternalExportDataProvider implements ExportDataProvider {
     private JsonObject jsonRepresentation = null;
     private JsonObject schemaDotOrgRepresentation = null;
     private JsonObject oreRepresentation = null;
+    private String dataCiteXml = null;
+    private JsonArray fileDetails = null;
     private InputStream is = null;
 
     InternalExportDataProvider(DatasetVersion dv) {
@@ -39,6 +41,33 @@ public class InternalExportDataProvider implements ExportDataProvider {
         this.is=is;
     }
 
+    /**
+     * Computes all the representations of the version up front, so that
+     * exporters running on other threads only read them, and never touch the
+     * (em-managed) version themselves.
+     */
+    void computeRepresentations() {
+        getDatasetJson();
+        getDatasetSchemaDotOrg();
+        getDatasetORE();
+        getDataCiteXml();
+        getDatasetFileDetails();
+    }
+
+    /**
+     * @return A provider sharing the representations computed by this one,
+     * with its own prerequisite input stream.
+     */
+    InternalExportDataProvider withPrerequisiteInputStream(InputStream prereqStream) {
+        InternalExportDataProvider dataProvider = new InternalExportDataProvider(dv, prereqStream);
+        dataProvider.jsonRepresentation = jsonRepresentation;
+        dataProvider.schemaDotOrgRepresentation = schemaDotOrgRepresentation;
+        dataProvider.oreRepresentation = oreRepresentation;
+        dataProvider.dataCiteXml = dataCiteXml;
+        dataProvider.fileDetails = fileDetails;
+        return dataProvider;
+    }
+
     @Override
     public JsonObject getDatasetJson() {
         if (jsonRepresentation == null) {
@@ -67,18 +96,24 @@ public class InternalExportDataProvider implements ExportDataProvider {
 
     @Override
     public String getDataCiteXml() {
-        return DOIDataCiteRegisterService.getMetadataFromDvObject(
-                dv.getDataset().getGlobalId().asString(), new DataCitation(dv).getDataCiteMetadata(), dv.getDataset());
+        if (dataCiteXml == null) {
+            dataCiteXml = DOIDataCiteRegisterService.getMetadataFromDvObject(
+                    dv.getDataset().getGlobalId().asString(), new DataCitation(dv).getDataCiteMetadata(), dv.getDataset());
+        }
+        return dataCiteXml;
     }
     
     @Override
     public JsonArray getDatasetFileDetails() {
-        JsonArrayBuilder jab = Json.createArrayBuilder();
-        for (FileMetadata fileMetadata : dv.getFileMetadatas()) {
-            DataFile dataFile = fileMetadata.getDataFile();
-            jab.add(JsonPrinter.json(dataFile, fileMetadata, true));
+        if (fileDetails == null) {
+            JsonArrayBuilder jab = Json.createArrayBuilder();
+            for (FileMetadata fileMetadata : dv.getFileMetadatas()) {
+                DataFile dataFile = fileMetadata.getDataFile();
+                jab.add(JsonPrinter.json(dataFile, fileMetadata, true));
+            }
+            fileDetails = jab.build();
         }
-        return jab.build();
+        return fileDetails;
     }
     
     @Override
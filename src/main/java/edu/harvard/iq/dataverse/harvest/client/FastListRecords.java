@@ -0,0 +1,318 @@
+package edu.harvard.iq.dataverse.harvest.client;
+
+import edu.harvard.iq.dataverse.harvest.client.oai.OaiHandler;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.XMLEvent;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+
+/**
+ * Retrieves the records of a harvest with ListRecords requests, i.e. with
+ * their metadata, a page at a time, instead of a GetRecord request per
+ * identifier listed by ListIdentifiers. The metadata of every record is saved
+ * in a temp file, as with {@link FastGetRecord}; the records of the current
+ * page are returned in order, and the next page is requested when they have
+ * all been returned.
+ *
+ * Unlike FastGetRecord, the response is parsed as a whole, so that the
+ * metadata sections of the records can be told apart.
+ *
+ * The temp files of the records of the page that have not been returned yet
+ * are deleted on {@link #close()}.
+ */
+public class FastListRecords implements Iterator<HarvestedRecord>, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(FastListRecords.class.getCanonicalName());
+
+    private final OaiHandler oaiHandler;
+    private final HttpClient httpClient;
+    private final HarvestRateLimiter rateLimiter;
+    private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    private final Deque<HarvestedRecord> page = new ArrayDeque<>();
+    private String resumptionToken = null;
+    private boolean started = false;
+
+    public FastListRecords(OaiHandler oaiHandler, HttpClient httpClient, HarvestRateLimiter rateLimiter) {
+        this.oaiHandler = oaiHandler;
+        this.httpClient = httpClient;
+        this.rateLimiter = rateLimiter;
+        // the metadata sections may rely on namespaces declared higher up in the response:
+        xmlOutputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+    }
+
+    /**
+     * Requests the next page if the current one has been consumed.
+     *
+     * @throws IllegalStateException (wrapping an IOException) if the request fails.
+     */
+    @Override
+    public boolean hasNext() {
+        while (page.isEmpty() && (!started || resumptionToken != null)) {
+            try {
+                requestPage();
+            } catch (IOException ioe) {
+                throw new IllegalStateException("ListRecords request failed: " + ioe.getMessage(), ioe);
+            }
+        }
+        return !page.isEmpty();
+    }
+
+    @Override
+    public HarvestedRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.poll();
+    }
+
+    /**
+     * Deletes the temp files of the records retrieved but not returned, e.g.
+     * when the harvest is stopped, or fails, in the middle of a page.
+     */
+    @Override
+    public void close() {
+        HarvestedRecord record;
+        while ((record = page.poll()) != null) {
+            deleteMetadataFile(record.getMetadataFile());
+        }
+    }
+
+    private void requestPage() throws IOException {
+        String requestURL = getRequestURL();
+        started = true;
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(URI.create(requestURL))
+                .GET()
+                .header("User-Agent", "XOAI Service Provider v5 (Dataverse)")
+                .header("Accept-Encoding", "gzip");
+        if (oaiHandler.getCustomHeaders() != null) {
+            for (String headerName : oaiHandler.getCustomHeaders().keySet()) {
+                requestBuilder.header(headerName, oaiHandler.getCustomHeaders().get(headerName));
+            }
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            rateLimiter.acquire();
+            response = httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling ListRecords on " + requestURL);
+        }
+
+        if (response.statusCode() != HTTP_OK) {
+            response.body().close();
+            throw new IOException("ListRecords request failed. HTTP error code " + response.statusCode());
+        }
+
+        InputStream in = response.body();
+        Optional<String> contentEncoding = response.headers().firstValue("Content-Encoding");
+        if (contentEncoding.isPresent()) {
+            if (contentEncoding.get().equals("gzip")) {
+                in = new GZIPInputStream(in);
+            } else if (contentEncoding.get().equals("deflate")) {
+                in = new InflaterInputStream(in);
+            }
+        }
+
+        try (InputStream responseStream = in) {
+            resumptionToken = parseResponse(responseStream, page);
+        } catch (XMLStreamException xse) {
+            throw new IOException("Malformed ListRecords response from " + requestURL + ": " + xse.getMessage());
+        }
+    }
+
+    private String getRequestURL() {
+        StringBuilder requestURL = new StringBuilder(oaiHandler.getBaseOaiUrl());
+        requestURL.append("?verb=ListRecords");
+        if (resumptionToken != null) {
+            requestURL.append("&resumptionToken=").append(URLEncoder.encode(resumptionToken, StandardCharsets.UTF_8));
+        } else {
+            requestURL.append("&metadataPrefix=").append(URLEncoder.encode(oaiHandler.getMetadataPrefix(), StandardCharsets.UTF_8));
+            if (oaiHandler.getFromDate() != null) {
+                Instant from = oaiHandler.getFromDate().toInstant().truncatedTo(ChronoUnit.SECONDS);
+                requestURL.append("&from=").append(from.toString());
+            }
+            if (oaiHandler.getSetName() != null) {
+                requestURL.append("&set=").append(URLEncoder.encode(oaiHandler.getSetName(), StandardCharsets.UTF_8));
+            }
+        }
+        return requestURL.toString();
+    }
+
+    /**
+     * Parses a ListRecords response, saving the metadata of every record in a
+     * temp file. If the response can't be parsed, the temp files saved from it
+     * are deleted, and none of its records are added.
+     *
+     * @param in The response.
+     * @param records Where to add the records found.
+     * @return The resumption token for the next page; null if this is the last one.
+     */
+    String parseResponse(InputStream in, Deque<HarvestedRecord> records) throws XMLStreamException, IOException {
+        String nextToken = null;
+        Deque<HarvestedRecord> parsed = new ArrayDeque<>();
+        File metadataFile = null;
+        XMLEventReader reader = xmlInputFactory.createXMLEventReader(in);
+        try {
+            String identifier = null;
+            Date dateStamp = null;
+            boolean deleted = false;
+            boolean inHeader = false;
+
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    String name = event.asStartElement().getName().getLocalPart();
+                    switch (name) {
+                        case "error":
+                            String code = attribute(event, "code");
+                            String message = reader.getElementText();
+                            if ("noRecordsMatch".equals(code)) {
+                                return null;
+                            }
+                            throw new IOException("ListRecords error code: " + code + "; ListRecords error message: " + message);
+                        case "record":
+                            identifier = null;
+                            dateStamp = null;
+                            deleted = false;
+                            // left over by an incomplete record
+                            deleteMetadataFile(metadataFile);
+                            metadataFile = null;
+                            break;
+                        case "header":
+                            deleted = "deleted".equals(attribute(event, "status"));
+                            inHeader = true;
+                            break;
+                        case "identifier":
+                            if (inHeader) {
+                                identifier = reader.getElementText().trim();
+                            }
+                            break;
+                        case "datestamp":
+                            if (inHeader) {
+                                dateStamp = parseDateStamp(reader.getElementText().trim());
+                            }
+                            break;
+                        case "metadata":
+                            metadataFile = copyMetadata(reader);
+                            break;
+                        case "resumptionToken":
+                            String token = reader.getElementText().trim();
+                            nextToken = token.isEmpty() ? null : token;
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event.isEndElement() && "header".equals(event.asEndElement().getName().getLocalPart())) {
+                    inHeader = false;
+                } else if (event.isEndElement() && "record".equals(event.asEndElement().getName().getLocalPart())) {
+                    HarvestedRecord record = new HarvestedRecord(identifier, dateStamp).withDeleted(deleted);
+                    if (!deleted) {
+                        if (metadataFile != null) {
+                            record.withMetadataFile(metadataFile);
+                        } else {
+                            record.withErrorMessage("No metadata in the ListRecords response for " + identifier);
+                        }
+                    }
+                    parsed.add(record);
+                    metadataFile = null;
+                }
+            }
+        } catch (XMLStreamException | IOException | RuntimeException e) {
+            deleteMetadataFile(metadataFile);
+            for (HarvestedRecord record : parsed) {
+                deleteMetadataFile(record.getMetadataFile());
+            }
+            throw e;
+        } finally {
+            reader.close();
+        }
+        records.addAll(parsed);
+        return nextToken;
+    }
+
+    private static void deleteMetadataFile(File metadataFile) {
+        if (metadataFile != null && !metadataFile.delete()) {
+            logger.fine("Failed to delete the temp file " + metadataFile);
+        }
+    }
+
+    /**
+     * Copies the element inside the metadata section the reader is at, up to
+     * the end of the section, into a temp file.
+     */
+    private File copyMetadata(XMLEventReader reader) throws XMLStreamException, IOException {
+        File metadataFile = File.createTempFile("meta", ".tmp");
+        try (OutputStream out = new FileOutputStream(metadataFile)) {
+            XMLEventWriter writer = xmlOutputFactory.createXMLEventWriter(out, "UTF-8");
+            int depth = 0;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isEndElement() && depth == 0) {
+                    // the end of the metadata section
+                    break;
+                }
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                } else if (depth == 0) {
+                    // whitespace and comments around the record
+                    continue;
+                }
+                writer.add(event);
+            }
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException | IOException e) {
+            metadataFile.delete();
+            throw e;
+        }
+        return metadataFile;
+    }
+
+    private static String attribute(XMLEvent event, String name) {
+        Attribute attribute = event.asStartElement().getAttributeByName(new QName(name));
+        return attribute != null ? attribute.getValue() : null;
+    }
+
+    private static Date parseDateStamp(String dateStamp) {
+        try {
+            // the granularity is either days or seconds
+            return Date.from(dateStamp.length() == 10 ? Instant.parse(dateStamp + "T00:00:00Z") : Instant.parse(dateStamp));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
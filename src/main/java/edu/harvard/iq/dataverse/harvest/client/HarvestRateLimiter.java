@@ -0,0 +1,61 @@
+package edu.harvard.iq.dataverse.harvest.client;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out the requests made to a remote server, so that no more than the
+ * configured number of requests per second are started, however many threads
+ * are making them. There is one limiter per remote host, shared by all the
+ * harvests from that host.
+ */
+public class HarvestRateLimiter {
+
+    private static final Map<String, HarvestRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final long intervalNanos;
+    private long nextRequestTime;
+
+    HarvestRateLimiter(double requestsPerSecond) {
+        this.intervalNanos = requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+        this.nextRequestTime = System.nanoTime();
+    }
+
+    /**
+     * @param url Any URL of the remote server.
+     * @param requestsPerSecond The maximum number of requests per second; 0
+     * (or less) for no limit.
+     * @return The limiter of the host of the URL.
+     */
+    public static HarvestRateLimiter forUrl(String url, double requestsPerSecond) {
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException iae) {
+            host = null;
+        }
+        return limiters.computeIfAbsent((host != null ? host : url) + "|" + requestsPerSecond,
+                key -> new HarvestRateLimiter(requestsPerSecond));
+    }
+
+    /**
+     * Waits until the next request can be made.
+     */
+    public void acquire() throws InterruptedException {
+        if (intervalNanos <= 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long requestTime = Math.max(now, nextRequestTime);
+            nextRequestTime = requestTime + intervalNanos;
+            wait = requestTime - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package edu.harvard.iq.dataverse.harvest.client;
+
+import edu.harvard.iq.dataverse.harvest.client.oai.OaiHandler;
+import io.gdcc.xoai.model.oaipmh.results.record.Header;
+import java.io.File;
+import java.net.http.HttpClient;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static edu.harvard.iq.dataverse.harvest.client.HarvesterServiceBean.DATAVERSE_PROPRIETARY_METADATA_FORMAT;
+
+/**
+ * Retrieves the records listed by a ListIdentifiers request, with up to N
+ * GetRecord (or native Dataverse metadata) requests in flight at the same
+ * time, ahead of the import of the records. The records are returned in the
+ * order they were listed in, each with its metadata in a temp file.
+ *
+ * Nothing here touches the database; the records are imported by the caller,
+ * on its own thread.
+ */
+public class HarvestRecordFetcher implements Iterator<HarvestedRecord>, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(HarvestRecordFetcher.class.getCanonicalName());
+
+    private final Iterator<Header> headers;
+    private final OaiHandler oaiHandler;
+    private final HttpClient httpClient;
+    private final HarvestRateLimiter rateLimiter;
+    private final int maxInFlight;
+    private final ExecutorService executor;
+    private final Deque<Future<HarvestedRecord>> inFlight = new ArrayDeque<>();
+    private volatile boolean closed = false;
+
+    /**
+     * How long {@link #close()} waits for the requests in flight to stop, so
+     * that it can delete their temp files.
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    public HarvestRecordFetcher(Iterator<Header> headers, OaiHandler oaiHandler, HttpClient httpClient, HarvestRateLimiter rateLimiter, int maxInFlight) {
+        this.headers = headers;
+        this.oaiHandler = oaiHandler;
+        this.httpClient = httpClient;
+        this.rateLimiter = rateLimiter;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.executor = Executors.newFixedThreadPool(this.maxInFlight);
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !inFlight.isEmpty();
+    }
+
+    /**
+     * Waits for the next record to be retrieved.
+     */
+    @Override
+    public HarvestedRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Future<HarvestedRecord> future = inFlight.poll();
+        // start the next request before waiting for this one:
+        fill();
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a record", ie);
+        } catch (ExecutionException ee) {
+            // fetch() doesn't throw; the exceptions are kept in the record
+            throw new IllegalStateException(ee.getCause());
+        }
+    }
+
+    private void fill() {
+        while (inFlight.size() < maxInFlight && headers.hasNext()) {
+            Header header = headers.next();
+            HarvestedRecord record = new HarvestedRecord(header.getIdentifier(), Date.from(header.getDatestamp()));
+            if (header.isDeleted()) {
+                // Nothing to retrieve
+                inFlight.add(CompletableFuture.completedFuture(record.withDeleted(true)));
+            } else {
+                inFlight.add(executor.submit(() -> fetch(record)));
+            }
+        }
+    }
+
+    private HarvestedRecord fetch(HarvestedRecord record) {
+        try {
+            rateLimiter.acquire();
+            if (DATAVERSE_PROPRIETARY_METADATA_FORMAT.equals(oaiHandler.getMetadataPrefix())) {
+                // Make direct call to obtain the proprietary Dataverse metadata
+                // in JSON from the remote Dataverse server:
+                String metadataApiUrl = oaiHandler.getProprietaryDataverseMetadataURL(record.getIdentifier());
+                logger.fine("calling " + metadataApiUrl);
+                record.withMetadataFile(HarvesterServiceBean.retrieveProprietaryDataverseMetadata(httpClient, metadataApiUrl));
+            } else {
+                FastGetRecord getRecord = oaiHandler.runGetRecord(record.getIdentifier(), httpClient);
+                record.withErrorMessage(getRecord.getErrorMessage())
+                        .withDeleted(getRecord.isDeleted())
+                        .withMetadataFile(getRecord.getMetadataFile());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            record.withException(ie);
+        } catch (Throwable t) {
+            record.withException(t);
+        }
+        if (closed) {
+            // close() has given up on this record
+            deleteMetadataFile(record);
+        }
+        return record;
+    }
+
+    /**
+     * Interrupts the requests still in flight, and deletes the temp files of
+     * the records retrieved but not consumed, including those of the requests
+     * that complete after this.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("Requests still running after the harvest was closed; their temp files are deleted when they complete");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        for (Future<HarvestedRecord> future : inFlight) {
+            if (future.isDone() && !future.isCancelled()) {
+                try {
+                    deleteMetadataFile(future.get());
+                } catch (InterruptedException | ExecutionException e) {
+                    // nothing to clean up
+                }
+            }
+        }
+        inFlight.clear();
+    }
+
+    private static void deleteMetadataFile(HarvestedRecord record) {
+        File metadataFile = record.getMetadataFile();
+        if (metadataFile != null && !metadataFile.delete()) {
+            logger.log(Level.FINE, "Failed to delete the temp file {0}", metadataFile);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package edu.harvard.iq.dataverse.harvest.client;
+
+import java.io.File;
+import java.util.Date;
+
+/**
+ * A record retrieved from a remote OAI server, ready to be imported (or
+ * deleted): the metadata saved in a temp file, or what went wrong retrieving it.
+ *
+ * @see HarvestRecordFetcher
+ * @see FastListRecords
+ */
+public class HarvestedRecord {
+
+    private final String identifier;
+    private final Date dateStamp;
+    private boolean deleted;
+    private File metadataFile;
+    private String errorMessage;
+    private Throwable exception;
+
+    public HarvestedRecord(String identifier, Date dateStamp) {
+        this.identifier = identifier;
+        this.dateStamp = dateStamp;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public Date getDateStamp() {
+        return dateStamp;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public HarvestedRecord withDeleted(boolean deleted) {
+        this.deleted = deleted;
+        return this;
+    }
+
+    public File getMetadataFile() {
+        return metadataFile;
+    }
+
+    public HarvestedRecord withMetadataFile(File metadataFile) {
+        this.metadataFile = metadataFile;
+        return this;
+    }
+
+    /**
+     * @return The error reported by the remote server, if any.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public HarvestedRecord withErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+        return this;
+    }
+
+    /**
+     * @return The exception thrown while retrieving the record, if any.
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
+    public HarvestedRecord withException(Throwable exception) {
+        this.exception = exception;
+        return this;
+    }
+}
@@ -31,15 +31,18 @@ import jakarta.inject.Named;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.xml.sax.SAXException;
 
-import io.gdcc.xoai.model.oaipmh.results.record.Header;
 import edu.harvard.iq.dataverse.EjbDataverseEngine;
 import edu.harvard.iq.dataverse.api.imports.ImportServiceBean;
 import edu.harvard.iq.dataverse.engine.command.DataverseRequest;
 import edu.harvard.iq.dataverse.harvest.client.oai.OaiHandler;
 import edu.harvard.iq.dataverse.harvest.client.oai.OaiHandlerException;
 import edu.harvard.iq.dataverse.search.IndexServiceBean;
+import edu.harvard.iq.dataverse.search.SolrClientService;
+import edu.harvard.iq.dataverse.search.SolrUpdateBatch;
+import edu.harvard.iq.dataverse.settings.JvmSettings;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.InputStream;
@@ -80,6 +83,8 @@ public class HarvesterServiceBean {
     EjbDataverseEngine engineService;
     @EJB
     IndexServiceBean indexService;
+    @EJB
+    SolrClientService solrClientService;
     
     private static final Logger logger = Logger.getLogger("edu.harvard.iq.dataverse.harvest.client.HarvesterServiceBean");
     private static final SimpleDateFormat logFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH-mm-ss");
@@ -231,90 +236,188 @@ public class HarvesterServiceBean {
         // OAI (or remote Dataverse API) to obtain the metadata records 
         httpClient = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
         
+        HarvestRateLimiter rateLimiter = HarvestRateLimiter.forUrl(harvestingClient.getHarvestingUrl(), 
+                JvmSettings.HARVEST_CLIENT_REQUESTS_PER_SECOND.lookupOptional(Double.class).orElse(0.0));
+        // also paces the ListIdentifiers requests, made by the XOAI client:
+        oaiHandler.setRateLimiter(rateLimiter);
+        
+        Iterator<HarvestedRecord> records;
+        FastListRecords listRecords = null;
+        HarvestRecordFetcher fetcher = null;
+        
+        if (JvmSettings.HARVEST_CLIENT_USE_LIST_RECORDS.lookupOptional(Boolean.class).orElse(false)
+                && !DATAVERSE_PROPRIETARY_METADATA_FORMAT.equals(oaiHandler.getMetadataPrefix())) {
+            // Retrieve the records with their metadata, a page at a time:
+            listRecords = new FastListRecords(oaiHandler, httpClient, rateLimiter);
+            records = listRecords;
+        } else {
+            // Retrieve the records listed by ListIdentifiers with a GetRecord 
+            // call each, with several of these calls running ahead of the import:
+            try {
+                fetcher = new HarvestRecordFetcher(oaiHandler.runListIdentifiers(), oaiHandler, httpClient, rateLimiter, 
+                        JvmSettings.HARVEST_CLIENT_CONCURRENT_REQUESTS.lookupOptional(Integer.class).orElse(4));
+            } catch (OaiHandlerException e) {
+                throw new IOException("Failed to run ListIdentifiers: " + e.getMessage());
+            }
+            records = fetcher;
+        }
+        
+        // Optionally, the records are imported several at a time, in a single
+        // transaction, and indexed together once it's committed:
+        int importBatchSize = JvmSettings.HARVEST_CLIENT_IMPORT_BATCH_SIZE.lookupOptional(Integer.class).orElse(1);
+        List<HarvestedRecord> importBatch = new ArrayList<>();
+        SolrUpdateBatch indexBatch = importBatchSize > 1 ? SolrUpdateBatch.fromSettings(solrClientService.getSolrClient()) : null;
+        
         try {
-            for (Iterator<Header> idIter = oaiHandler.runListIdentifiers(); idIter.hasNext();) {
+            while (records.hasNext()) {
                 // Before each iteration, check if this harvesting job needs to be aborted:
                 if (checkIfStoppingJob(harvestingClient)) {
+                    importBatch(dataverseRequest, hdLogger, importCleanupLog, oaiHandler, importBatch, indexBatch, failedIdentifiers, deletedIdentifiers, harvestedDatasetIds);
                     throw new StopHarvestException("Harvesting stopped by external request");
                 }
 
-                Header h = idIter.next();
-                String identifier = h.getIdentifier();
-                Date dateStamp = Date.from(h.getDatestamp());
+                HarvestedRecord record = records.next();
                 
-                hdLogger.info("processing identifier: " + identifier + ", date: " + dateStamp);
+                hdLogger.info("processing identifier: " + record.getIdentifier() + ", date: " + record.getDateStamp());
                 
-                if (h.isDeleted()) {
-                    hdLogger.info("Deleting harvesting dataset for " + identifier + ", per ListIdentifiers.");
-
-                    deleteHarvestedDatasetIfExists(identifier, oaiHandler.getHarvestingClient().getDataverse(), dataverseRequest, deletedIdentifiers, hdLogger);
+                if (indexBatch != null && !record.isDeleted() && record.getErrorMessage() == null && record.getException() == null
+                        && record.getMetadataFile() != null) {
+                    importBatch.add(record);
+                    if (importBatch.size() >= importBatchSize) {
+                        importBatch(dataverseRequest, hdLogger, importCleanupLog, oaiHandler, importBatch, indexBatch, failedIdentifiers, deletedIdentifiers, harvestedDatasetIds);
+                    }
                     continue;
                 }
-
-                MutableBoolean getRecordErrorOccurred = new MutableBoolean(false);
-
-                // Retrieve and process this record with a separate GetRecord call:
                 
-                Long datasetId = processRecord(dataverseRequest, hdLogger, importCleanupLog, oaiHandler, identifier, getRecordErrorOccurred, deletedIdentifiers, dateStamp, httpClient);
+                // Import the records before this one first, so that they are 
+                // processed in order (this one may be the deletion of one of them)
+                importBatch(dataverseRequest, hdLogger, importCleanupLog, oaiHandler, importBatch, indexBatch, failedIdentifiers, deletedIdentifiers, harvestedDatasetIds);
                 
-                if (datasetId != null) {
-                    harvestedDatasetIds.add(datasetId);
+                importRecord(dataverseRequest, hdLogger, importCleanupLog, oaiHandler, record, failedIdentifiers, deletedIdentifiers, harvestedDatasetIds);
+            }
+            importBatch(dataverseRequest, hdLogger, importCleanupLog, oaiHandler, importBatch, indexBatch, failedIdentifiers, deletedIdentifiers, harvestedDatasetIds);
+        } catch (IllegalStateException e) {
+            throw new IOException("Failed to retrieve the records: " + e.getMessage());
+        } finally {
+            // delete the temp files of the records retrieved, but not imported:
+            if (listRecords != null) {
+                listRecords.close();
+            }
+            if (fetcher != null) {
+                fetcher.close();
+            }
+            for (HarvestedRecord record : importBatch) {
+                // left over by an error
+                if (record.getMetadataFile() != null) {
+                    record.getMetadataFile().delete();
                 }
-                
-                if (getRecordErrorOccurred.booleanValue() == true) {
-                    failedIdentifiers.add(identifier);
-                    //can be uncommented out for testing failure handling:
-                    //throw new IOException("Exception occured, stopping harvest");
+            }
+            if (indexBatch != null) {
+                try {
+                    indexBatch.finish();
+                } catch (SolrServerException | IOException e) {
+                    hdLogger.log(Level.WARNING, "Failed to index the last harvested datasets: " + e.getMessage());
                 }
+                indexService.updateIndexTimes(indexBatch);
+                hdLogger.info("Harvested datasets indexed: " + indexBatch);
             }
-        } catch (OaiHandlerException e) {
-            throw new IOException("Failed to run ListIdentifiers: " + e.getMessage());
         }
 
         logCompletedOaiHarvest(hdLogger, harvestingClient);
 
     }    
     
-    private Long processRecord(DataverseRequest dataverseRequest, Logger hdLogger, PrintWriter importCleanupLog, OaiHandler oaiHandler, String identifier, MutableBoolean recordErrorOccurred, List<String> deletedIdentifiers, Date dateStamp, HttpClient httpClient) {
-        String errMessage = null;
+    private void importRecord(DataverseRequest dataverseRequest, Logger hdLogger, PrintWriter importCleanupLog, OaiHandler oaiHandler, HarvestedRecord record, List<String> failedIdentifiers, List<String> deletedIdentifiers, List<Long> harvestedDatasetIds) {
+        MutableBoolean getRecordErrorOccurred = new MutableBoolean(false);
+
+        Long datasetId = processRecord(dataverseRequest, hdLogger, importCleanupLog, oaiHandler, record, getRecordErrorOccurred, deletedIdentifiers);
+
+        if (datasetId != null) {
+            harvestedDatasetIds.add(datasetId);
+        }
+
+        if (getRecordErrorOccurred.booleanValue() == true) {
+            failedIdentifiers.add(record.getIdentifier());
+            //can be uncommented out for testing failure handling:
+            //throw new IOException("Exception occured, stopping harvest");
+        }
+    }
+    
+    /**
+     * Imports the records of the batch in a single transaction, then indexes
+     * the datasets with a single Solr update. If the transaction fails, the
+     * records are imported again one by one, so that only the failing ones are
+     * lost. Empties the batch.
+     */
+    void importBatch(DataverseRequest dataverseRequest, Logger hdLogger, PrintWriter importCleanupLog, OaiHandler oaiHandler, List<HarvestedRecord> importBatch, SolrUpdateBatch indexBatch, List<String> failedIdentifiers, List<String> deletedIdentifiers, List<Long> harvestedDatasetIds) {
+        if (importBatch.isEmpty()) {
+            return;
+        }
+        List<Dataset> importedDatasets = null;
+        try {
+            importedDatasets = importService.doImportHarvestedDatasets(dataverseRequest, oaiHandler.getHarvestingClient(), oaiHandler.getMetadataPrefix(), importBatch, importCleanupLog);
+        } catch (EJBException e) {
+            hdLogger.log(Level.WARNING, "Failed to import a batch of " + importBatch.size() + " records, from " 
+                    + importBatch.get(0).getIdentifier() + " to " + importBatch.get(importBatch.size() - 1).getIdentifier() 
+                    + " (" + e.getMessage() + "); importing them one at a time.");
+        }
+        
+        if (importedDatasets != null) {
+            hdLogger.info("Imported a batch of " + importedDatasets.size() + " records.");
+            for (Dataset dataset : importedDatasets) {
+                harvestedDatasetIds.add(dataset.getId());
+                indexService.indexDatasetInNewTransaction(dataset.getId(), indexBatch);
+            }
+            try {
+                indexBatch.flush();
+            } catch (SolrServerException | IOException e) {
+                hdLogger.log(Level.WARNING, "Failed to index a batch of harvested datasets: " + e.getMessage());
+            }
+            indexService.updateIndexTimes(indexBatch);
+            for (HarvestedRecord record : importBatch) {
+                if (record.getMetadataFile() != null) {
+                    record.getMetadataFile().delete();
+                }
+            }
+        } else {
+            for (HarvestedRecord record : importBatch) {
+                importRecord(dataverseRequest, hdLogger, importCleanupLog, oaiHandler, record, failedIdentifiers, deletedIdentifiers, harvestedDatasetIds);
+            }
+        }
+        importBatch.clear();
+    }
+    
+    /**
+     * Imports (or deletes) a record retrieved from the remote server.
+     */
+    private Long processRecord(DataverseRequest dataverseRequest, Logger hdLogger, PrintWriter importCleanupLog, OaiHandler oaiHandler, HarvestedRecord record, MutableBoolean recordErrorOccurred, List<String> deletedIdentifiers) {
+        String identifier = record.getIdentifier();
+        String errMessage = record.getErrorMessage();
         Dataset harvestedDataset = null;
         logGetRecord(hdLogger, oaiHandler, identifier);
-        File tempFile = null;
+        File tempFile = record.getMetadataFile();
         
         try {
-            boolean deleted = false;
-            
-            if (DATAVERSE_PROPRIETARY_METADATA_FORMAT.equals(oaiHandler.getMetadataPrefix())) {
-                // Make direct call to obtain the proprietary Dataverse metadata
-                // in JSON from the remote Dataverse server:
-                String metadataApiUrl = oaiHandler.getProprietaryDataverseMetadataURL(identifier);
-                logger.fine("calling "+metadataApiUrl);
-                tempFile = retrieveProprietaryDataverseMetadata(httpClient, metadataApiUrl);
+            if (record.getException() != null) {
+                logGetRecordException(hdLogger, oaiHandler, identifier, record.getException());
+                errMessage = "Caught exception while executing GetRecord on "+identifier;
                 
-            } else {
-                FastGetRecord record = oaiHandler.runGetRecord(identifier, httpClient);
-                errMessage = record.getErrorMessage();
-                deleted = record.isDeleted();
-                tempFile = record.getMetadataFile();
-            }
-
-            if (errMessage != null) {
+            } else if (errMessage != null) {
                 hdLogger.log(Level.SEVERE, "Error calling GetRecord - " + errMessage);
                 
-            } else if (deleted) {
-                hdLogger.info("Deleting harvesting dataset for "+identifier+", per GetRecord.");
+            } else if (record.isDeleted()) {
+                hdLogger.info("Deleting harvesting dataset for "+identifier+", per the remote server.");
                 
                 deleteHarvestedDatasetIfExists(identifier, oaiHandler.getHarvestingClient().getDataverse(), dataverseRequest, deletedIdentifiers, hdLogger); 
             } else {
                 hdLogger.info("Successfully retrieved GetRecord response.");
 
-                PrintWriter cleanupLog;
                 harvestedDataset = importService.doImportHarvestedDataset(dataverseRequest, 
                         oaiHandler.getHarvestingClient(),
                         identifier,
                         oaiHandler.getMetadataPrefix(), 
                         tempFile,
-                        dateStamp,
+                        record.getDateStamp(),
                         importCleanupLog);
                 
                 hdLogger.fine("Harvest Successful for identifier " + identifier);
@@ -348,7 +451,7 @@ public class HarvesterServiceBean {
         return harvestedDataset != null ? harvestedDataset.getId() : null;
     }
     
-    File retrieveProprietaryDataverseMetadata (HttpClient client, String remoteApiUrl) throws IOException {
+    static File retrieveProprietaryDataverseMetadata (HttpClient client, String remoteApiUrl) throws IOException {
         
         if (client == null) {
             throw new IOException("Null Http Client, cannot make a call to obtain native metadata.");
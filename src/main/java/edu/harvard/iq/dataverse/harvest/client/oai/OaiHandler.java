@@ -11,11 +11,16 @@ import io.gdcc.xoai.serviceprovider.exceptions.NoSetHierarchyException;
 import io.gdcc.xoai.serviceprovider.exceptions.IdDoesNotExistException;
 import io.gdcc.xoai.serviceprovider.model.Context;
 import io.gdcc.xoai.serviceprovider.parameters.ListIdentifiersParameters;
+import io.gdcc.xoai.serviceprovider.parameters.Parameters;
 import edu.harvard.iq.dataverse.harvest.client.FastGetRecord;
+import edu.harvard.iq.dataverse.harvest.client.HarvestRateLimiter;
 import static edu.harvard.iq.dataverse.harvest.client.HarvesterServiceBean.DATAVERSE_PROPRIETARY_METADATA_API;
 import edu.harvard.iq.dataverse.harvest.client.HarvestingClient;
 import io.gdcc.xoai.serviceprovider.client.JdkHttpOaiClient;
+import io.gdcc.xoai.serviceprovider.client.OAIClient;
+import io.gdcc.xoai.serviceprovider.exceptions.OAIRequestException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.net.http.HttpClient;
 import javax.xml.parsers.ParserConfigurationException;
@@ -82,6 +87,7 @@ public class OaiHandler implements Serializable {
     private Date   fromDate;
     private Boolean setListTruncated = false;
     private Map<String,String> customHeaders = null;
+    private HarvestRateLimiter rateLimiter = null;
     
     private ServiceProvider serviceProvider; 
     
@@ -135,6 +141,19 @@ public class OaiHandler implements Serializable {
        this.customHeaders = customHeaders;
     }
     
+    public HarvestRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+    
+    /**
+     * @param rateLimiter The limiter of the requests made through the service 
+     * provider (e.g. for the pages of ListIdentifiers). Must be set before the 
+     * service provider is first used.
+     */
+    public void setRateLimiter(HarvestRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+    
     public ServiceProvider getServiceProvider() throws OaiHandlerException {
         if (serviceProvider == null) {
             if (baseOaiUrl == null) {
@@ -152,13 +171,32 @@ public class OaiHandler implements Serializable {
                 }   
                 xoaiClientBuilder = xoaiClientBuilder.withCustomHeaders(getCustomHeaders());
             }
-            context.withOAIClient(xoaiClientBuilder.build());
+            OAIClient xoaiClient = xoaiClientBuilder.build();
+            if (rateLimiter != null) {
+                xoaiClient = rateLimited(xoaiClient, rateLimiter);
+            }
+            context.withOAIClient(xoaiClient);
             serviceProvider = new ServiceProvider(context);
         }
         
         return serviceProvider;
     }
     
+    private static OAIClient rateLimited(OAIClient xoaiClient, HarvestRateLimiter rateLimiter) {
+        return new OAIClient() {
+            @Override
+            public InputStream execute(Parameters parameters) throws OAIRequestException {
+                try {
+                    rateLimiter.acquire();
+                } catch (InterruptedException ie) {
+                    // make the request anyway; the harvest will stop on the interrupt
+                    Thread.currentThread().interrupt();
+                }
+                return xoaiClient.execute(parameters);
+            }
+        };
+    }
+    
     public ArrayList<String> runListSets() throws OaiHandlerException {
     
         ServiceProvider sp = getServiceProvider(); 
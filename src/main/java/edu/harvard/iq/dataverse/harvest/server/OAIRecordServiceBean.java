@@ -13,6 +13,7 @@ import io.gdcc.spi.export.ExportException;
 import edu.harvard.iq.dataverse.search.IndexServiceBean;
 import edu.harvard.iq.dataverse.settings.SettingsServiceBean;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -356,6 +357,96 @@ public class OAIRecordServiceBean implements java.io.Serializable {
         }
     }
     
+    /**
+     * Finds one page of the records of a set, in the order of their global
+     * ids, without reading the records before the page.
+     *
+     * @param afterGlobalId The global id of the last record of the previous
+     * page, if known; the page starts after it (keyset pagination).
+     * @param offset The number of records to skip, if the global id of the
+     * last record of the previous page is not known.
+     * @param limit The size of the page.
+     */
+    public List<OAIRecord> findOaiRecordsPageBySetName(String setName, Instant from, Instant until, String afterGlobalId, int offset, int limit) {
+        if (setName == null) {
+            setName = "";
+        }
+        String queryString = "SELECT object(h) from OAIRecord h where h.setName = :setName"
+                + timeRangeClause(from, until)
+                + (afterGlobalId != null ? " and h.globalId > :afterGlobalId" : "")
+                + " order by h.globalId";
+        logger.fine("Query: " + queryString);
+
+        TypedQuery<OAIRecord> query = em.createQuery(queryString, OAIRecord.class)
+                .setParameter("setName", setName)
+                .setMaxResults(limit);
+        setTimeRangeParameters(query, from, until);
+        if (afterGlobalId != null) {
+            query.setParameter("afterGlobalId", afterGlobalId);
+        } else {
+            query.setFirstResult(offset);
+        }
+        try {
+            return query.getResultList();
+        } catch (Exception ex) {
+            logger.fine("Caught exception; returning null.");
+            return null;
+        }
+    }
+
+    public long countOaiRecordsBySetName(String setName, Instant from, Instant until) {
+        if (setName == null) {
+            setName = "";
+        }
+        TypedQuery<Long> query = em.createQuery("SELECT count(h) from OAIRecord h where h.setName = :setName"
+                + timeRangeClause(from, until), Long.class)
+                .setParameter("setName", setName);
+        setTimeRangeParameters(query, from, until);
+        return query.getSingleResult();
+    }
+
+    /**
+     * As {@link #findOaiRecordsNotInThisSet(java.lang.String, java.time.Instant, java.time.Instant)},
+     * but only for the records with the given global ids (i.e. those of one
+     * page of the set).
+     */
+    public List<OAIRecord> findOaiRecordsNotInThisSet(Collection<String> globalIds, String setName, Instant from, Instant until) {
+        if (globalIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (setName == null) {
+            setName = "";
+        }
+        String queryString = "SELECT object(h) from OAIRecord h where h.globalId in :globalIds"
+                + " and h.setName is not null and h.setName != '' and h.setName != :setName"
+                + timeRangeClause(from, until)
+                + " order by h.globalId";
+        TypedQuery<OAIRecord> query = em.createQuery(queryString, OAIRecord.class)
+                .setParameter("globalIds", globalIds)
+                .setParameter("setName", setName);
+        setTimeRangeParameters(query, from, until);
+        try {
+            return query.getResultList();
+        } catch (Exception ex) {
+            logger.fine("Caught exception; returning null.");
+            return null;
+        }
+    }
+
+    private static String timeRangeClause(Instant from, Instant until) {
+        return (from != null ? " and h.lastUpdateTime >= :from" : "")
+                + (until != null ? " and h.lastUpdateTime<=:until" : "");
+    }
+
+    private static void setTimeRangeParameters(TypedQuery<?> query, Instant from, Instant until) {
+        if (from != null) {
+            query.setParameter("from", Date.from(from), TemporalType.TIMESTAMP);
+        }
+        if (until != null) {
+            query.setParameter("until", Date.from(until), TemporalType.TIMESTAMP);
+        }
+    }
+
     // This method is to only get the records NOT marked as "deleted":
     public List<OAIRecord> findActiveOaiRecordsBySetName(String setName) {
         
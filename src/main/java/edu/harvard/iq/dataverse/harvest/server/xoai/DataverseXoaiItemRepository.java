@@ -24,7 +24,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -41,6 +44,42 @@ public class DataverseXoaiItemRepository implements ItemRepository {
     private final OAIRecordServiceBean recordService;
     private final DatasetServiceBean datasetService;
     private final String serverUrl; 
+    
+    /**
+     * The position reached by the lists served so far, keyed by the 
+     * resumption token expected for their next page (set, from, until, 
+     * offset). The XOAI resumption tokens only carry the offset, so we keep
+     * the identifier of the last record served here, to fetch the next page
+     * with a keyset query. A token we no longer have a cursor for (e.g. 
+     * after a restart, or after CURSOR_LIFETIME_MILLIS) is served with an 
+     * offset query instead.
+     */
+    private final Map<String, PageCursor> cursors = Collections.synchronizedMap(
+            new LinkedHashMap<String, PageCursor>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PageCursor> eldest) {
+                    return size() > MAX_CURSORS;
+                }
+            });
+    private static final int MAX_CURSORS = 1000;
+    // The resumption tokens don't expire, but the pages of a harvest are 
+    // requested in quick succession; a token that comes back later is the 
+    // start of another harvest, of a list that may have changed since:
+    private static final long CURSOR_LIFETIME_MILLIS = 60 * 60 * 1000L;
+    
+    private static class PageCursor {
+        final String lastGlobalId;
+        final long createTime;
+        
+        PageCursor(String lastGlobalId) {
+            this.lastGlobalId = lastGlobalId;
+            this.createTime = System.currentTimeMillis();
+        }
+        
+        boolean isExpired() {
+            return System.currentTimeMillis() - createTime > CURSOR_LIFETIME_MILLIS;
+        }
+    }
 
     public DataverseXoaiItemRepository (OAIRecordServiceBean recordService, DatasetServiceBean datasetService, String serverUrl) {
         this.recordService = recordService;
@@ -126,29 +165,48 @@ public class DataverseXoaiItemRepository implements ItemRepository {
         
         boolean hasMore = false; 
         
+        // If this is the continuation of a list we served the previous page 
+        // of, we know the identifier of the last record of that page, and 
+        // can start the page right after it, instead of making the database
+        // skip over all the records of the previous pages:
+        String cursorKey = cursorKey(setSpec, from, until, offset);
+        PageCursor cursor = offset > 0 ? cursors.remove(cursorKey) : null;
+        if (cursor != null && cursor.isExpired()) {
+            cursor = null;
+        }
+        
         logger.fine("calling " + (fullItems ? "getItems" : "getItemIdentifiers")
                 + "; offset=" + offset
                 + ", length=" + maxResponseLength
                 + ", setSpec=" + setSpec
                 + ", from=" + from
-                + ", until=" + until);
+                + ", until=" + until
+                + ", after=" + (cursor != null ? cursor.lastGlobalId : null));
 
-        List<OAIRecord> oaiRecords = recordService.findOaiRecordsBySetName(setSpec, from, until);
+        // (counted on every page, since records may be added to the set 
+        // while it is being harvested)
+        long total = recordService.countOaiRecordsBySetName(setSpec, from, until);
+        
+        List<OAIRecord> oaiRecords = recordService.findOaiRecordsPageBySetName(setSpec, from, until, 
+                cursor != null ? cursor.lastGlobalId : null, offset, maxResponseLength);
         
         List<DataverseXoaiItem> xoaiItems = new ArrayList<>();
 
         if (oaiRecords != null && !oaiRecords.isEmpty()) {
-            logger.fine("total " + oaiRecords.size() + " records returned");
+            logger.fine("total " + total + " records, " + oaiRecords.size() + " returned");
             
-            for (int i = offset; i < offset + maxResponseLength && i < oaiRecords.size(); i++) {
-                OAIRecord record = oaiRecords.get(i);
+            // Look up the datasets of the whole page at once, rather than
+            // one by one:
+            Map<String, Dataset> datasets = fullItems ? findDatasets(oaiRecords) : null;
+            
+            for (OAIRecord record : oaiRecords) {
                 DataverseXoaiItem xoaiItem = new DataverseXoaiItem(record);
                 
                 if (fullItems) {
                     // If we are cooking "full" Items (for the ListRecords verb),
                     // add the metadata to the item object (if not a deleted
                     // record, if available, etc.):
-                    xoaiItem = addMetadata(xoaiItem, metadataFormat);
+                    xoaiItem = addMetadata(xoaiItem, metadataFormat, datasets.get(record.getGlobalId()));
                 }
                 
                 xoaiItems.add(xoaiItem);
@@ -159,9 +217,14 @@ public class DataverseXoaiItemRepository implements ItemRepository {
             // formatted output in the header:
             addExtraSets(xoaiItems, setSpec, from, until);
             
-            hasMore = offset + maxResponseLength < oaiRecords.size();
+            hasMore = offset + maxResponseLength < total;
             
-            ResultsPage<DataverseXoaiItem> result = new ResultsPage(resumptionToken, hasMore, xoaiItems, oaiRecords.size());
+            if (hasMore) {
+                cursors.put(cursorKey(setSpec, from, until, offset + maxResponseLength), 
+                        new PageCursor(oaiRecords.get(oaiRecords.size() - 1).getGlobalId()));
+            }
+            
+            ResultsPage<DataverseXoaiItem> result = new ResultsPage(resumptionToken, hasMore, xoaiItems, (int) total);
             logger.fine("returning result with " + xoaiItems.size() + " items.");
             return result;
         }
@@ -169,11 +232,20 @@ public class DataverseXoaiItemRepository implements ItemRepository {
         return new ResultsPage(resumptionToken, false, xoaiItems, 0);
     }
     
+    private static String cursorKey(String setSpec, Instant from, Instant until, int offset) {
+        return setSpec + "|" + from + "|" + until + "|" + offset;
+    }
+    
     private void addExtraSets(Object xoaiItemsList, String setSpec, Instant from, Instant until) {
         
         List<DataverseXoaiItem> xoaiItems = (List<DataverseXoaiItem>)xoaiItemsList;
         
-        List<OAIRecord> oaiRecords = recordService.findOaiRecordsNotInThisSet(setSpec, from, until);
+        List<String> globalIds = new ArrayList<>();
+        for (DataverseXoaiItem xoaiItem : xoaiItems) {
+            globalIds.add(xoaiItem.getIdentifier());
+        }
+        
+        List<OAIRecord> oaiRecords = recordService.findOaiRecordsNotInThisSet(globalIds, setSpec, from, until);
         
         if (oaiRecords == null || oaiRecords.isEmpty()) {
             return;
@@ -200,7 +272,22 @@ public class DataverseXoaiItemRepository implements ItemRepository {
         }
     }
     
+    private Map<String, Dataset> findDatasets(List<OAIRecord> oaiRecords) {
+        List<String> globalIds = new ArrayList<>();
+        for (OAIRecord oaiRecord : oaiRecords) {
+            if (!oaiRecord.isRemoved()) {
+                globalIds.add(oaiRecord.getGlobalId());
+            }
+        }
+        return globalIds.isEmpty() ? Collections.emptyMap() : datasetService.findByGlobalIds(globalIds);
+    }
+    
     private DataverseXoaiItem addMetadata(DataverseXoaiItem xoaiItem, MetadataFormat metadataFormat) {
+        return addMetadata(xoaiItem, metadataFormat, 
+                xoaiItem.isDeleted() ? null : datasetService.findByGlobalId(xoaiItem.getIdentifier()));
+    }
+    
+    private DataverseXoaiItem addMetadata(DataverseXoaiItem xoaiItem, MetadataFormat metadataFormat, Dataset dataset) {
         // This may be a "deleted" record - i.e., a oaiRecord kept in 
         // the OAI set for a dataset that's no longer in this Dataverse. 
         // (it serves to tell the remote client to delete it from their 
@@ -210,7 +297,6 @@ public class DataverseXoaiItemRepository implements ItemRepository {
         // open the pre-generated metadata stream.
 
         if (!xoaiItem.isDeleted()) {
-            Dataset dataset = datasetService.findByGlobalId(xoaiItem.getIdentifier());
             if (dataset != null) {
                 try {
                     Metadata metadata = getDatasetMetadata(dataset, metadataFormat.getPrefix());
@@ -252,10 +338,9 @@ public class DataverseXoaiItemRepository implements ItemRepository {
                     .withAttribute("directApiCall", customDataverseJsonApiUri(dataset.getGlobalId().asString()));
             
         } else {
-            InputStream pregeneratedMetadataStream;
-            pregeneratedMetadataStream = ExportService.getInstance().getExport(dataset, metadataPrefix);
-
-            metadata = Metadata.copyFromStream(pregeneratedMetadataStream);
+            try (InputStream pregeneratedMetadataStream = ExportService.getInstance().getExport(dataset, metadataPrefix)) {
+                metadata = Metadata.copyFromStream(pregeneratedMetadataStream);
+            }
         }
         return metadata;
     }
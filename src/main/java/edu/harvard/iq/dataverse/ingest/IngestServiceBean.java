@@ -42,10 +42,13 @@ import edu.harvard.iq.dataverse.DvObject;
 import edu.harvard.iq.dataverse.FileMetadata;
 import edu.harvard.iq.dataverse.MetadataBlock;
 import edu.harvard.iq.dataverse.authorization.users.AuthenticatedUser;
+import edu.harvard.iq.dataverse.dataaccess.ColumnarTabFile;
 import edu.harvard.iq.dataverse.dataaccess.DataAccess;
 import edu.harvard.iq.dataverse.dataaccess.DataAccessOption;
 import edu.harvard.iq.dataverse.dataaccess.StorageIO;
+import edu.harvard.iq.dataverse.dataaccess.TabRowIndex;
 import edu.harvard.iq.dataverse.dataaccess.ImageThumbConverter;
+import edu.harvard.iq.dataverse.dataaccess.NumericColumnVector;
 import edu.harvard.iq.dataverse.dataaccess.S3AccessIO;
 import edu.harvard.iq.dataverse.dataaccess.TabularSubsetGenerator;
 import edu.harvard.iq.dataverse.datasetutility.FileExceedsMaxSizeException;
@@ -76,6 +79,7 @@ import edu.harvard.iq.dataverse.storageuse.StorageUseServiceBean;
 import edu.harvard.iq.dataverse.storageuse.UploadSessionQuotaLimit;
 import edu.harvard.iq.dataverse.util.*;
 import edu.harvard.iq.dataverse.util.file.FileExceedsStorageQuotaException;
+import edu.harvard.iq.dataverse.util.cache.AfterCompletion;
 
 import org.apache.commons.io.IOUtils;
 //import edu.harvard.iq.dvn.unf.*;
@@ -112,6 +116,10 @@ import java.util.ListIterator;
 import java.util.logging.Logger;
 import java.util.Hashtable;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
 import jakarta.inject.Named;
@@ -119,6 +127,8 @@ import jakarta.jms.Queue;
 import jakarta.jms.QueueConnectionFactory;
 import jakarta.annotation.Resource;
 import jakarta.ejb.Asynchronous;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.jms.JMSException;
 import jakarta.jms.QueueConnection;
 import jakarta.jms.QueueSender;
@@ -156,6 +166,11 @@ public class IngestServiceBean {
     @EJB
     SystemConfig systemConfig;
 
+    @EJB
+    PreConversionServiceBean preConversionService;
+    @Resource
+    TransactionSynchronizationRegistry transactionRegistry;
+
     @Resource(lookup = "java:app/jms/queue/ingest")
     Queue queue;
     @Resource(lookup = "java:app/jms/factory/ingest")
@@ -166,6 +181,22 @@ public class IngestServiceBean {
     private static String dateTimeFormat_ymdhmsS = "yyyy-MM-dd HH:mm:ss.SSS";
     private static String dateFormat_ymd = "yyyy-MM-dd";
     
+    // Default limit on the number of values subsetted from a tab file in 
+    // one pass when calculating summary statistics, UNFs and frequencies:
+    private static final long DEFAULT_MAX_VALUES_PER_PASS = 10000000L;
+    
+    /*
+     * The UNF library, by default, saves the intermediate values of the last 
+     * calculated signature in a static object, shared by all the threads. 
+     * We never use them, and the UNFs themselves do not depend on them; but
+     * it makes it unsafe to calculate UNFs concurrently - which we do, for
+     * the different variables of the same file (and different files may be
+     * ingested concurrently too). So we turn this off. 
+     */
+    static {
+        UnfDigest.setUnfObj(false);
+    }
+    
     // This method tries to permanently store new files in storage (on the filesystem,
     // in an S3 bucket, etc.).
     // Then it adds the files that *have been successfully saved* to the 
@@ -717,110 +748,170 @@ public class IngestServiceBean {
         /*
         logger.info("Skipping summary statistics and UNF.");
          */
-        produceDiscreteNumericSummaryStatistics(dataFile, generatedTabularFile); 
-        produceContinuousSummaryStatistics(dataFile, generatedTabularFile);
-        produceCharacterSummaryStatistics(dataFile, generatedTabularFile);
         
-        recalculateDataFileUNF(dataFile);
-        recalculateDatasetVersionUNF(dataFile.getFileMetadata().getDatasetVersion());
-    }
-    
-    public void produceContinuousSummaryStatistics(DataFile dataFile, File generatedTabularFile) throws IOException {
+        /*
+           All the variable vectors needed for the summary statistics and UNFs 
+           are subsetted in as few passes through the tab file as possible 
+           (ideally, one), instead of re-reading the entire file once for 
+           every variable. The number of vectors read in one pass is limited 
+           so that we don't try to store an entire multi-GB file in memory. 
         
+           At this point it's still not clear what kinds of summary stats we
+           want for character types. Though we are pretty confident we don't 
+           want to keep doing what we used to do in the past, i.e. simply 
+           store the total counts for all the unique values; even if it's a 
+           very long vector, and *every* value in it is unique. (As a result 
+           of this, our Categorical Variable Value table is the single 
+           largest in the production database. With no evidence whatsoever, 
+           that this information is at all useful. 
+                -- L.A. Jul. 2014 
+           So for the character vectors we only calculate the UNFs. 
+        */
+        
+        List<DataVariable> vars = dataFile.getDataTable().getDataVariables();
+        List<Integer> columns = new ArrayList<>();
+        List<TabularSubsetGenerator.VectorType> types = new ArrayList<>();
+
         for (int i = 0; i < dataFile.getDataTable().getVarQuantity(); i++) {
-            if (dataFile.getDataTable().getDataVariables().get(i).isIntervalContinuous()) {
-                logger.fine("subsetting continuous vector");
-
-                if ("float".equals(dataFile.getDataTable().getDataVariables().get(i).getFormat())) {
-                    Float[] variableVector = TabularSubsetGenerator.subsetFloatVector(
-                            new FileInputStream(generatedTabularFile), 
-                            i, 
-                            dataFile.getDataTable().getCaseQuantity().intValue(),
-                            dataFile.getDataTable().isStoredWithVariableHeader());
-                    logger.fine("Calculating summary statistics on a Float vector;");
-                    calculateContinuousSummaryStatistics(dataFile, i, variableVector);
-                    // calculate the UNF while we are at it:
-                    logger.fine("Calculating UNF on a Float vector;");
-                    calculateUNF(dataFile, i, variableVector);
-                    variableVector = null; 
-                } else {
-                    Double[] variableVector = TabularSubsetGenerator.subsetDoubleVector(
-                            new FileInputStream(generatedTabularFile), 
-                            i, 
-                            dataFile.getDataTable().getCaseQuantity().intValue(), 
-                            dataFile.getDataTable().isStoredWithVariableHeader());
-                    logger.fine("Calculating summary statistics on a Double vector;");
-                    calculateContinuousSummaryStatistics(dataFile, i, variableVector);
-                    // calculate the UNF while we are at it:
-                    logger.fine("Calculating UNF on a Double vector;");
-                    calculateUNF(dataFile, i, variableVector);
-                    variableVector = null; 
-                }
-                logger.fine("Done! (continuous);");
+            DataVariable var = vars.get(i);
+            if (var.isIntervalContinuous()) {
+                columns.add(i);
+                types.add("float".equals(var.getFormat())
+                        ? TabularSubsetGenerator.VectorType.FLOAT
+                        : TabularSubsetGenerator.VectorType.DOUBLE);
+            } else if (var.isIntervalDiscrete() && var.isTypeNumeric()) {
+                columns.add(i);
+                types.add(TabularSubsetGenerator.VectorType.LONG);
+            } else if (var.isTypeCharacter()) {
+                columns.add(i);
+                types.add(TabularSubsetGenerator.VectorType.STRING);
             }
         }
-    }
-    
-    public void produceDiscreteNumericSummaryStatistics(DataFile dataFile, File generatedTabularFile) throws IOException {
         
-        //TabularSubsetGenerator subsetGenerator = new TabularSubsetGenerator();
+        int caseQuantity = dataFile.getDataTable().getCaseQuantity().intValue();
+        int columnsPerPass = getMaxColumnsPerPass(caseQuantity);
         
-        for (int i = 0; i < dataFile.getDataTable().getVarQuantity(); i++) {
-            if (dataFile.getDataTable().getDataVariables().get(i).isIntervalDiscrete()
-                    && dataFile.getDataTable().getDataVariables().get(i).isTypeNumeric()) {
-                logger.fine("subsetting discrete-numeric vector");
-
-                Long[] variableVector = TabularSubsetGenerator.subsetLongVector(
-                        new FileInputStream(generatedTabularFile), 
-                        i, 
-                        dataFile.getDataTable().getCaseQuantity().intValue(), 
+        // The summary statistics and UNFs of the vectors read in one pass 
+        // are calculated in parallel, one task per variable. The results 
+        // are assigned to the variables on this thread, in the order of the
+        // variables; so the outcome is the same as when they are calculated
+        // sequentially. 
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(getStatisticsParallelism(), columns.size())));
+        
+        try {
+            for (int start = 0; start < columns.size(); start += columnsPerPass) {
+                int end = Math.min(start + columnsPerPass, columns.size());
+                logger.fine("subsetting variable vectors " + start + " through " + (end - 1) + " in a single pass");
+
+                int[] passColumns = columns.subList(start, end).stream().mapToInt(Integer::intValue).toArray();
+                TabularSubsetGenerator.VectorType[] passTypes = types.subList(start, end).toArray(new TabularSubsetGenerator.VectorType[0]);
+
+                Object[] variableVectors = TabularSubsetGenerator.subsetVectors(
+                        new FileInputStream(generatedTabularFile),
+                        passColumns,
+                        passTypes,
+                        caseQuantity,
                         dataFile.getDataTable().isStoredWithVariableHeader());
-                // We are discussing calculating the same summary stats for 
-                // all numerics (the same kind of sumstats that we've been calculating
-                // for numeric continuous type)  -- L.A. Jul. 2014
-                calculateContinuousSummaryStatistics(dataFile, i, variableVector);
-                // calculate the UNF while we are at it:
-                logger.fine("Calculating UNF on a Long vector");
-                calculateUNF(dataFile, i, variableVector);
-                logger.fine("Done! (discrete numeric)");
-                variableVector = null; 
+
+                List<Future<VariableStatistics>> results = new ArrayList<>(passColumns.length);
+                for (int j = 0; j < passColumns.length; j++) {
+                    int varnum = passColumns[j];
+                    DataVariable var = vars.get(varnum);
+                    Object variableVector = variableVectors[j];
+                    String formatCategory = var.getFormatCategory();
+                    String format = var.getFormat();
+                    results.add(executor.submit(() -> calculateVariableStatistics(varnum, variableVector, formatCategory, format)));
+                    // the task now holds the only reference to the vector, 
+                    // so it is released as soon as the task is done:
+                    variableVectors[j] = null;
+                }
+
+                for (int j = 0; j < passColumns.length; j++) {
+                    int varnum = passColumns[j];
+                    VariableStatistics statistics = getVariableStatistics(results.get(j));
+                    results.set(j, null);
+
+                    if (statistics.sumStats != null) {
+                        assignContinuousSummaryStatistics(vars.get(varnum), statistics.sumStats);
+                    }
+                    if (statistics.unf != null) {
+                        vars.get(varnum).setUnf(statistics.unf);
+                    } else {
+                        logger.warning("failed to calculate UNF signature for variable " + varnum);
+                    }
+                }
+                logger.fine("Done! (" + (end - start) + " vectors)");
             }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        recalculateDataFileUNF(dataFile);
+        recalculateDatasetVersionUNF(dataFile.getFileMetadata().getDatasetVersion());
+    }
+    
+    /*
+     * The summary statistics (for numeric vectors only - see above) and the 
+     * UNF of one variable. 
+     */
+    private static class VariableStatistics {
+        double[] sumStats;
+        String unf;
+    }
+    
+    private static VariableStatistics calculateVariableStatistics(int varnum, Object variableVector, String formatCategory, String format) throws IOException {
+        VariableStatistics statistics = new VariableStatistics();
+        if (variableVector instanceof NumericColumnVector) {
+            // We are discussing calculating the same summary stats for 
+            // all numerics (the same kind of sumstats that we've been calculating
+            // for numeric continuous type)  -- L.A. Jul. 2014
+            NumericColumnVector numericVector = (NumericColumnVector) variableVector;
+            logger.fine("Calculating summary statistics and UNF on a " + numericVector.getType() + " vector;");
+            statistics.sumStats = SumStatCalculator.calculateSummaryStatistics(numericVector.getValidValues(), numericVector.size());
+            statistics.unf = calculateUNF(varnum, numericVector);
+        } else {
+            logger.fine("Calculating UNF on a String vector;");
+            statistics.unf = calculateUNF(varnum, (String[]) variableVector, formatCategory, format);
         }
+        return statistics;
     }
     
-    public void produceCharacterSummaryStatistics(DataFile dataFile, File generatedTabularFile) throws IOException {
-
-        /* 
-            At this point it's still not clear what kinds of summary stats we
-            want for character types. Though we are pretty confident we don't 
-            want to keep doing what we used to do in the past, i.e. simply 
-            store the total counts for all the unique values; even if it's a 
-            very long vector, and *every* value in it is unique. (As a result 
-            of this, our Categorical Variable Value table is the single 
-            largest in the production database. With no evidence whatsoever, 
-            that this information is at all useful. 
-                -- L.A. Jul. 2014 
-        
-        TabularSubsetGenerator subsetGenerator = new TabularSubsetGenerator();
-        */
-        
-        for (int i = 0; i < dataFile.getDataTable().getVarQuantity(); i++) {
-            if (dataFile.getDataTable().getDataVariables().get(i).isTypeCharacter()) {
-
-                logger.fine("subsetting character vector");
-                String[] variableVector = TabularSubsetGenerator.subsetStringVector(
-                        new FileInputStream(generatedTabularFile), 
-                        i, 
-                        dataFile.getDataTable().getCaseQuantity().intValue(),
-                        dataFile.getDataTable().isStoredWithVariableHeader());
-                //calculateCharacterSummaryStatistics(dataFile, i, variableVector);
-                // calculate the UNF while we are at it:
-                logger.fine("Calculating UNF on a String vector");
-                calculateUNF(dataFile, i, variableVector);
-                logger.fine("Done! (character)");
-                variableVector = null; 
+    private static VariableStatistics getVariableStatistics(Future<VariableStatistics> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calculating summary statistics and UNFs");
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
             }
+            throw new IOException("Failed to calculate summary statistics and UNFs: " + ee.getCause().getMessage(), ee.getCause());
+        }
+    }
+    
+    /**
+     * How many parallel tasks to use for calculating the summary statistics
+     * and UNFs of the variables of a tabular file; the number of available 
+     * processors, unless configured otherwise. 
+     */
+    static int getStatisticsParallelism() {
+        int parallelism = JvmSettings.INGEST_STATISTICS_PARALLELISM.lookupOptional(Integer.class).orElse(Runtime.getRuntime().availableProcessors());
+        return Math.max(1, parallelism);
+    }
+    
+    /**
+     * How many variable vectors can be subsetted from the tab file in one pass, 
+     * given the number of cases; so that the total number of values kept in 
+     * memory stays under the configured limit (but at least one vector is read
+     * per pass, no matter how long). 
+     */
+    static int getMaxColumnsPerPass(int caseQuantity) {
+        long maxValues = JvmSettings.INGEST_MAX_VALUES_PER_PASS.lookupOptional(Long.class).orElse(DEFAULT_MAX_VALUES_PER_PASS);
+        if (caseQuantity < 1) {
+            return Integer.MAX_VALUE;
         }
+        return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, maxValues / caseQuantity));
     }
 
     public static void produceFrequencyStatistics(DataFile dataFile, File generatedTabularFile) throws IOException {
@@ -831,50 +922,107 @@ public class IngestServiceBean {
     }
 
     public static void produceFrequencies(File generatedTabularFile, List<DataVariable> vars) throws IOException {
-
+        
+        // Only the variables with categories need to be subsetted; 
+        // and they are all read in as few passes through the file as possible:
+        
+        List<Integer> columns = new ArrayList<>();
+        List<TabularSubsetGenerator.VectorType> types = new ArrayList<>();
+        
         for (int i = 0; i < vars.size(); i++) {
+            if (vars.get(i).getCategories().size() > 0) {
+                columns.add(i);
+                types.add(vars.get(i).isTypeNumeric()
+                        ? TabularSubsetGenerator.VectorType.FLOAT
+                        : TabularSubsetGenerator.VectorType.STRING);
+            }
+        }
+        
+        if (columns.isEmpty()) {
+            return;
+        }
+        
+        int caseQuantity = vars.get(0).getDataTable().getCaseQuantity().intValue();
+        boolean skipVariableHeaderLine = vars.get(0).getDataTable().isStoredWithVariableHeader();
+        int columnsPerPass = getMaxColumnsPerPass(caseQuantity);
 
-            Collection<VariableCategory> cats = vars.get(i).getCategories();
-            int caseQuantity = vars.get(i).getDataTable().getCaseQuantity().intValue();
-            boolean isNumeric = vars.get(i).isTypeNumeric();
-            boolean skipVariableHeaderLine = vars.get(i).getDataTable().isStoredWithVariableHeader();
-            Object[] variableVector = null;
-            if (cats.size() > 0) {
-                if (isNumeric) {
-                    variableVector = TabularSubsetGenerator.subsetFloatVector(
-                            new FileInputStream(generatedTabularFile), 
-                            i, 
-                            caseQuantity,
-                            skipVariableHeaderLine);
-                }
-                else {
-                    variableVector = TabularSubsetGenerator.subsetStringVector(
-                            new FileInputStream(generatedTabularFile), 
-                            i, 
-                            caseQuantity,
-                            skipVariableHeaderLine);
+        for (int start = 0; start < columns.size(); start += columnsPerPass) {
+            int end = Math.min(start + columnsPerPass, columns.size());
+            
+            int[] passColumns = columns.subList(start, end).stream().mapToInt(Integer::intValue).toArray();
+            Object[] variableVectors = TabularSubsetGenerator.subsetVectors(
+                    new FileInputStream(generatedTabularFile),
+                    passColumns,
+                    types.subList(start, end).toArray(new TabularSubsetGenerator.VectorType[0]),
+                    caseQuantity,
+                    skipVariableHeaderLine);
+
+            for (int j = 0; j < passColumns.length; j++) {
+                assignFrequencies(vars.get(passColumns[j]), variableVectors[j]);
+                variableVectors[j] = null;
+            }
+        }
+    }
+    
+    /*
+     * Same as above, but the variable vectors are read from the columnar 
+     * copy of the tab file; only the columns of the variables with categories
+     * are read, one at a time. 
+     */
+    public static void produceFrequencies(ColumnarTabFile columnarFile, List<DataVariable> vars) throws IOException {
+        for (int i = 0; i < vars.size(); i++) {
+            DataVariable var = vars.get(i);
+            if (var.getCategories().size() > 0) {
+                Object[] variableVectors = columnarFile.subsetVectors(
+                        new int[]{i},
+                        new TabularSubsetGenerator.VectorType[]{var.isTypeNumeric()
+                            ? TabularSubsetGenerator.VectorType.FLOAT
+                            : TabularSubsetGenerator.VectorType.STRING},
+                        var.getDataTable().getCaseQuantity().intValue(),
+                        var.getDataTable().isStoredWithVariableHeader());
+                assignFrequencies(var, variableVectors[0]);
+            }
+        }
+    }
+    
+    private static void assignFrequencies(DataVariable var, Object variableVector) {
+        if (variableVector != null) {
+            Hashtable<Object, Double> freq = variableVector instanceof NumericColumnVector
+                    ? calculateFrequency((NumericColumnVector) variableVector)
+                    : calculateFrequency((Object[]) variableVector);
+            for (VariableCategory cat : var.getCategories()) {
+                Object catValue;
+                if (var.isTypeNumeric()) {
+                    catValue = new Float(cat.getValue());
+                } else {
+                    catValue = cat.getValue();
                 }
-                if (variableVector != null) {
-                    Hashtable<Object, Double> freq = calculateFrequency(variableVector);
-                    for (VariableCategory cat : cats) {
-                        Object catValue;
-                        if (isNumeric) {
-                            catValue = new Float(cat.getValue());
-                        } else {
-                            catValue = cat.getValue();
-                        }
-                        Double numberFreq = freq.get(catValue);
-                        if (numberFreq != null) {
-                            cat.setFrequency(numberFreq);
-                        } else {
-                            cat.setFrequency(0D);
-                        }
-                    }
+                Double numberFreq = freq.get(catValue);
+                if (numberFreq != null) {
+                    cat.setFrequency(numberFreq);
                 } else {
-                    logger.fine("variableVector is null for variable " + vars.get(i).getName());
+                    cat.setFrequency(0D);
                 }
             }
+        } else {
+            logger.fine("variableVector is null for variable " + var.getName());
+        }
+    }
+
+    /*
+     * Same as below, for a (float) numeric vector; the values are only boxed
+     * as keys of the frequency table. 
+     */
+    public static Hashtable<Object, Double> calculateFrequency(NumericColumnVector variableVector) {
+        Hashtable<Object, Double> freq = new Hashtable<Object, Double>();
+
+        for (int j = 0; j < variableVector.size(); j++) {
+            if (!variableVector.isMissing(j)) {
+                freq.merge(variableVector.getFloat(j), 1D, Double::sum);
+            }
         }
+
+        return freq;
     }
 
     public static Hashtable<Object, Double> calculateFrequency( Object[] variableVector) {
@@ -1187,6 +1335,18 @@ public class IngestServiceBean {
                     
                     dataFile = fileService.save(dataFile);
                     logger.fine("saved data file after updating the size");
+                    
+                    if (JvmSettings.INGEST_COLUMNAR_COPY.lookupOptional(Boolean.class).orElse(false)) {
+                        saveColumnarCopy(dataFile, dataAccess, tabFile);
+                    }
+                    saveRowIndex(dataAccess, tabFile);
+
+                    // Queue the conversions to the popular formats, if 
+                    // configured, so that they are ready when requested: 
+                    Optional<String[]> preConvertFormats = JvmSettings.INGEST_PRECONVERT_FORMATS.lookupOptional(String[].class);
+                    if (preConvertFormats.isPresent()) {
+                        schedulePreConversion(dataFile.getId(), Arrays.asList(preConvertFormats.get()));
+                    }
 
                     // delete the temp tab-file:
                     tabFile.delete();
@@ -1217,6 +1377,70 @@ public class IngestServiceBean {
         return ingestSuccessful;
     }
 
+    /*
+     * The pre-conversions are started once the ingest has been committed, so 
+     * that they see the ingested file; nothing is converted if it's rolled back.
+     */
+    private void schedulePreConversion(Long dataFileId, List<String> formats) {
+        boolean registered = AfterCompletion.register(transactionRegistry, status -> {
+            if (status == Status.STATUS_COMMITTED) {
+                preConversionService.preConvert(dataFileId, formats);
+            }
+        });
+        if (!registered) {
+            preConversionService.preConvert(dataFileId, formats);
+        }
+    }
+
+    /*
+     * Saves the optional column-wise copy of the tab file as an aux object, 
+     * so that subsets of variables can be read without scanning the entire 
+     * file. This is not essential - the tab file itself is always there - 
+     * so a failure here is not an ingest failure. 
+     */
+    private void saveColumnarCopy(DataFile dataFile, StorageIO<DataFile> dataAccess, File tabFile) {
+        File columnarFile = null;
+        try {
+            columnarFile = File.createTempFile("tempColumnarFile", ".tmp");
+            long numRows = dataFile.getDataTable().getCaseQuantity();
+            if (dataFile.getDataTable().isStoredWithVariableHeader()) {
+                numRows++;
+            }
+            ColumnarTabFile.generate(tabFile, dataFile.getDataTable().getVarQuantity().intValue(), numRows, columnarFile);
+            dataAccess.savePathAsAux(Paths.get(columnarFile.getAbsolutePath()), ColumnarTabFile.AUX_TAG);
+            logger.fine("Saved the columnar copy of the tabular file as an aux file " + ColumnarTabFile.AUX_TAG);
+        } catch (IOException | RuntimeException ex) {
+            logger.warning("Failed to save the columnar copy of the tabular file (non-fatal): " + ex.getMessage());
+        } finally {
+            if (columnarFile != null) {
+                columnarFile.delete();
+            }
+        }
+    }
+
+    /*
+     * Saves the sparse index of the line offsets of the tab file as an aux 
+     * object, so that ranges of rows can be served without reading the file
+     * from the beginning. Also not essential - without it the rows are 
+     * located by reading the file sequentially. 
+     */
+    private void saveRowIndex(StorageIO<DataFile> dataAccess, File tabFile) {
+        File indexFile = null;
+        try {
+            indexFile = File.createTempFile("tempRowIndexFile", ".tmp");
+            int interval = JvmSettings.INGEST_ROW_INDEX_INTERVAL.lookupOptional(Integer.class).orElse(TabRowIndex.DEFAULT_INTERVAL);
+            TabRowIndex.generate(tabFile, interval, indexFile);
+            dataAccess.savePathAsAux(Paths.get(indexFile.getAbsolutePath()), TabRowIndex.AUX_TAG);
+            logger.fine("Saved the row index of the tabular file as an aux file " + TabRowIndex.AUX_TAG);
+        } catch (IOException | RuntimeException ex) {
+            logger.warning("Failed to save the row index of the tabular file (non-fatal): " + ex.getMessage());
+        } finally {
+            if (indexFile != null) {
+                indexFile.delete();
+            }
+        }
+    }
+
     private BufferedInputStream openFile(DataFile dataFile) throws IOException {
         BufferedInputStream inputStream;
         StorageIO<DataFile> storageIO = dataFile.getStorageIO();
@@ -1911,11 +2135,6 @@ public class IngestServiceBean {
         return contVarFields;
     }
     
-    private void calculateContinuousSummaryStatistics(DataFile dataFile, int varnum, Number[] dataVector) throws IOException {
-        double[] sumStats = SumStatCalculator.calculateSummaryStatistics(dataVector);
-        assignContinuousSummaryStatistics(dataFile.getDataTable().getDataVariables().get(varnum), sumStats);
-    }
-    
     private void assignContinuousSummaryStatistics(DataVariable variable, double[] sumStats) throws IOException {
         if (sumStats == null || sumStats.length != variableService.summaryStatisticTypes.length) {
             throw new IOException ("Wrong number of summary statistics types calculated! ("+sumStats.length+")");
@@ -1935,7 +2154,20 @@ public class IngestServiceBean {
 
     }
     
-    private void calculateUNF(DataFile dataFile, int varnum, Double[] dataVector) {
+    private static String calculateUNF(int varnum, NumericColumnVector dataVector) {
+        // The UNF calculator only takes boxed vectors; the boxed copy only 
+        // exists for the duration of the calculation:
+        switch (dataVector.getType()) {
+            case FLOAT:
+                return calculateUNF(varnum, dataVector.toBoxedFloats());
+            case LONG:
+                return calculateUNF(varnum, dataVector.toBoxedLongs());
+            default:
+                return calculateUNF(varnum, dataVector.toBoxedDoubles());
+        }
+    }
+    
+    private static String calculateUNF(int varnum, Double[] dataVector) {
         String unf = null;
         try {
             unf = UNFUtil.calculateUNF(dataVector);
@@ -1945,14 +2177,10 @@ public class IngestServiceBean {
             logger.warning("UNF Exception: thrown when attempted to calculate UNF signature for (numeric, continuous) variable " + varnum);
         }
         
-        if (unf != null) {
-            dataFile.getDataTable().getDataVariables().get(varnum).setUnf(unf);
-        } else {
-            logger.warning("failed to calculate UNF signature for variable " + varnum);
-        }
+        return unf;
     }
     
-    private void calculateUNF(DataFile dataFile, int varnum, Long[] dataVector) {
+    private static String calculateUNF(int varnum, Long[] dataVector) {
         String unf = null;
         try {
             unf = UNFUtil.calculateUNF(dataVector);
@@ -1962,23 +2190,19 @@ public class IngestServiceBean {
             logger.warning("UNF Exception: thrown when attempted to calculate UNF signature for (numeric, discrete) variable " + varnum);
         }
         
-        if (unf != null) {
-            dataFile.getDataTable().getDataVariables().get(varnum).setUnf(unf);
-        } else {
-            logger.warning("failed to calculate UNF signature for variable " + varnum);
-        }
+        return unf;
     }
     
-    private void calculateUNF(DataFile dataFile, int varnum, String[] dataVector) throws IOException {
+    private static String calculateUNF(int varnum, String[] dataVector, String formatCategory, String savedFormat) throws IOException {
         String unf = null;
         
         String[] dateFormats = null; 
         
         // Special handling for Character strings that encode dates and times:
         
-        if ("time".equals(dataFile.getDataTable().getDataVariables().get(varnum).getFormatCategory())) {
+        if ("time".equals(formatCategory)) {
             dateFormats = new String[dataVector.length];
-            String savedDateTimeFormat = dataFile.getDataTable().getDataVariables().get(varnum).getFormat();
+            String savedDateTimeFormat = savedFormat;
             String timeFormat = null;
             if (savedDateTimeFormat != null && !savedDateTimeFormat.equals("")) {
                 timeFormat = savedDateTimeFormat;
@@ -2035,9 +2259,9 @@ public class IngestServiceBean {
                     dateFormats[i] = timeFormat;
                 }
             }
-        } else if ("date".equals(dataFile.getDataTable().getDataVariables().get(varnum).getFormatCategory())) {
+        } else if ("date".equals(formatCategory)) {
             dateFormats = new String[dataVector.length];
-            String savedDateFormat = dataFile.getDataTable().getDataVariables().get(varnum).getFormat();
+            String savedDateFormat = savedFormat;
             for (int i = 0; i < dataVector.length; i++) {
                 if (dataVector[i] != null) {
                     if (savedDateFormat != null && !savedDateFormat.equals("")) {
@@ -2062,11 +2286,7 @@ public class IngestServiceBean {
             logger.warning("UNF Exception: thrown when attempted to calculate UNF signature for (character) variable " + varnum);
         }
         
-        if (unf != null) {
-            dataFile.getDataTable().getDataVariables().get(varnum).setUnf(unf);
-        } else {
-            logger.warning("failed to calculate UNF signature for variable " + varnum);
-        }
+        return unf;
     }
     
     // Calculating UNFs from *floats*, not *doubles* - this is to test dataverse
@@ -2077,7 +2297,7 @@ public class IngestServiceBean {
     // TODO: remove this from the final production 4.0!
     // -- L.A., Jul 2014
     
-    private void calculateUNF(DataFile dataFile, int varnum, Float[] dataVector) {
+    private static String calculateUNF(int varnum, Float[] dataVector) {
         String unf = null;
         try {
             unf = UNFUtil.calculateUNF(dataVector);
@@ -2087,11 +2307,7 @@ public class IngestServiceBean {
             logger.warning("UNF Exception: thrown when attempted to calculate UNF signature for numeric, \"continuous\" (float) variable" + varnum);
         }
         
-        if (unf != null) {
-            dataFile.getDataTable().getDataVariables().get(varnum).setUnf(unf);
-        } else {
-            logger.warning("failed to calculate UNF signature for variable " + varnum);
-        }
+        return unf;
     }
     
     // This method takes a list of file ids, checks the format type of the ingested 
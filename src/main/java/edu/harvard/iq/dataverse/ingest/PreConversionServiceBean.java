@@ -0,0 +1,46 @@
+package edu.harvard.iq.dataverse.ingest;
+
+import edu.harvard.iq.dataverse.DataFile;
+import edu.harvard.iq.dataverse.DataFileServiceBean;
+import edu.harvard.iq.dataverse.dataaccess.DataConverter;
+import edu.harvard.iq.dataverse.dataaccess.FormatConversionMetrics;
+import java.util.List;
+import java.util.logging.Logger;
+import jakarta.ejb.Asynchronous;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+/**
+ * Converts newly ingested tabular files to the popular download formats in
+ * the background, so that they are cached when requested for the first time
+ * (see dataverse.ingest.preconvert-formats).
+ */
+@Stateless
+@Named
+public class PreConversionServiceBean {
+    private static final Logger logger = Logger.getLogger(PreConversionServiceBean.class.getCanonicalName());
+
+    @EJB
+    DataFileServiceBean fileService;
+
+    @Inject
+    FormatConversionMetrics formatConversionMetrics;
+
+    /**
+     * Runs the conversions on the container's executor. To be called once the
+     * ingest has been committed; the datafile is looked up again here.
+     */
+    @Asynchronous
+    public void preConvert(Long dataFileId, List<String> formats) {
+        DataFile dataFile = fileService.find(dataFileId);
+        if (dataFile == null || !dataFile.isTabularData()) {
+            logger.fine("Not pre-converting datafile " + dataFileId + ": not found, or not tabular");
+            return;
+        }
+        for (String format : formats) {
+            DataConverter.preConvert(dataFile, format, formatConversionMetrics);
+        }
+    }
+}
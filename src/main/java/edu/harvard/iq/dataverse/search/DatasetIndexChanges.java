@@ -0,0 +1,119 @@
+package edu.harvard.iq.dataverse.search;
+
+import edu.harvard.iq.dataverse.DataFile;
+import edu.harvard.iq.dataverse.DatasetVersion;
+import edu.harvard.iq.dataverse.FileMetadata;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * What an edit of an existing draft version changed, as far as the Solr
+ * documents of the dataset are concerned: the files whose metadata changed,
+ * and whether the dataset fields copied into the documents of all the files
+ * (title, citation, license) changed.
+ *
+ * With these, {@link IndexServiceBean#asyncIndexDataset(edu.harvard.iq.dataverse.Dataset, boolean, DatasetIndexChanges)}
+ * only regenerates the documents of the changed files, and patches the
+ * others with atomic updates, instead of regenerating the documents of every
+ * file of the dataset.
+ */
+public class DatasetIndexChanges {
+
+    private final Long datasetVersionId;
+    private final Set<Long> changedDataFileIds;
+    private final boolean parentFieldsChanged;
+
+    DatasetIndexChanges(Long datasetVersionId, Set<Long> changedDataFileIds, boolean parentFieldsChanged) {
+        this.datasetVersionId = datasetVersionId;
+        this.changedDataFileIds = Collections.unmodifiableSet(changedDataFileIds);
+        this.parentFieldsChanged = parentFieldsChanged;
+    }
+
+    /**
+     * Compares an existing draft version being saved with its content before
+     * the edit.
+     *
+     * @param editVersion The draft version being saved.
+     * @param previousVersion The draft version as it was before the edit: as
+     * it is in the database, or a clone of it made before the edit (must be
+     * another instance).
+     * @param variableMetadataChanged The file metadata whose variable metadata
+     * was changed, if any.
+     * @return The changes, or null if the dataset has to be reindexed as a
+     * whole: when the draft is new, or files were added or removed.
+     *
+     * The state kept on the DataFiles (embargo, restriction, tabular tags) can
+     * only be compared when the two versions have their own DataFile
+     * instances; when they share them (e.g. with a clone), an edit of that
+     * state can't be seen, so the whole dataset is reindexed (see also
+     * {@link edu.harvard.iq.dataverse.engine.command.impl.UpdateDatasetVersionCommand#setDataFilesChanged(boolean)}).
+     */
+    public static DatasetIndexChanges of(DatasetVersion editVersion, DatasetVersion previousVersion, FileMetadata variableMetadataChanged) {
+        if (previousVersion == null || editVersion == previousVersion || !editVersion.isDraft() || editVersion.getId() == null
+                || (previousVersion.getId() != null && !editVersion.getId().equals(previousVersion.getId()))) {
+            return null;
+        }
+        Map<Long, FileMetadata> previousFileMetadatas = new HashMap<>();
+        for (FileMetadata fileMetadata : previousVersion.getFileMetadatas()) {
+            previousFileMetadatas.put(fileMetadata.getDataFile().getId(), fileMetadata);
+        }
+        if (previousFileMetadatas.size() != editVersion.getFileMetadatas().size()) {
+            return null;
+        }
+        Set<Long> changedDataFileIds = new HashSet<>();
+        for (FileMetadata fileMetadata : editVersion.getFileMetadatas()) {
+            Long dataFileId = fileMetadata.getDataFile().getId();
+            FileMetadata previous = (dataFileId != null) ? previousFileMetadatas.get(dataFileId) : null;
+            if (previous == null || previous.getDataFile() == fileMetadata.getDataFile()) {
+                return null;
+            }
+            if (!fileMetadata.contentEquals(previous) || dataFileChanged(fileMetadata.getDataFile(), previous.getDataFile())) {
+                changedDataFileIds.add(dataFileId);
+            }
+        }
+        if (variableMetadataChanged != null && variableMetadataChanged.getDataFile() != null) {
+            changedDataFileIds.add(variableMetadataChanged.getDataFile().getId());
+        }
+        // Within a draft, the citation only changes with the title and the authors
+        boolean parentFieldsChanged = !Objects.equals(editVersion.getTitle(), previousVersion.getTitle())
+                || !Objects.equals(editVersion.getAuthorsStr(false), previousVersion.getAuthorsStr(false))
+                || !Objects.equals(IndexServiceBean.getLicenseName(editVersion), IndexServiceBean.getLicenseName(previousVersion));
+        return new DatasetIndexChanges(editVersion.getId(), changedDataFileIds, parentFieldsChanged);
+    }
+
+    // The DataFile fields that are indexed in the documents of the file
+    private static boolean dataFileChanged(DataFile dataFile, DataFile previous) {
+        return dataFile.isRestricted() != previous.isRestricted()
+                || !Objects.equals(getEmbargoDate(dataFile), getEmbargoDate(previous))
+                || !new HashSet<>(dataFile.getTagLabels()).equals(new HashSet<>(previous.getTagLabels()));
+    }
+
+    private static LocalDate getEmbargoDate(DataFile dataFile) {
+        return dataFile.getEmbargo() != null ? dataFile.getEmbargo().getDateAvailable() : null;
+    }
+
+    /**
+     * @return The id of the draft version the changes were made to.
+     */
+    public Long getDatasetVersionId() {
+        return datasetVersionId;
+    }
+
+    public Set<Long> getChangedDataFileIds() {
+        return changedDataFileIds;
+    }
+
+    public boolean isParentFieldsChanged() {
+        return parentFieldsChanged;
+    }
+
+    @Override
+    public String toString() {
+        return "changed files: " + changedDataFileIds + ", parent fields changed: " + parentFieldsChanged;
+    }
+}
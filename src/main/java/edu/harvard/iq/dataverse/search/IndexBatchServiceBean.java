@@ -8,6 +8,8 @@ import edu.harvard.iq.dataverse.util.SystemConfig;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -45,6 +47,23 @@ public class IndexBatchServiceBean {
     DvObjectServiceBean dvObjectService;
     @EJB
     SystemConfig systemConfig;
+    @EJB
+    SolrClientService solrClientService;
+    @EJB
+    ReindexJobServiceBean reindexJobService;
+
+    /**
+     * How often (in datasets) the progress of the Solr update batch is logged.
+     */
+    private static final int PROGRESS_LOG_INTERVAL = 100;
+
+    /**
+     * How often (in datasets) the progress of a reindex partition is saved.
+     */
+    private static final int CHECKPOINT_INTERVAL = 100;
+
+    // ids of the reindex partitions being indexed on this server right now
+    private static final Set<Long> RUNNING_PARTITIONS = ConcurrentHashMap.newKeySet();
     
     @Asynchronous
     public Future<JsonObjectBuilder> indexStatus() {
@@ -201,11 +220,14 @@ public class IndexBatchServiceBean {
         int datasetIndexCount = 0;
         int datasetFailureCount = 0;
         List<Long> datasetIds = datasetService.findAllOrSubsetOrderByFilesOwned(skipIndexed);
+        SolrUpdateBatch batch = SolrUpdateBatch.fromSettings(solrClientService.getSolrClient());
         for (Long id : datasetIds) {
             datasetIndexCount++;
             logger.info("indexing dataset " + datasetIndexCount + " of " + datasetIds.size() + " (id=" + id + ")");
-            indexService.indexDatasetInNewTransaction(id);
+            indexService.indexDatasetInNewTransaction(id, batch);
+            logBatchProgress(datasetIndexCount, batch);
         }
+        String resultOfBatch = finishBatch(batch);
         logger.info("done iterating through all datasets");
 
         long indexAllTimeEnd = System.currentTimeMillis();
@@ -215,7 +237,7 @@ public class IndexBatchServiceBean {
             String failureMessage = "There were index failures. " + dataverseFailureCount + " dataverse(s) and " + datasetFailureCount + " dataset(s) failed to index. Please check the log for more information.";
             logger.info(failureMessage);            
         }
-        status = dataverseIndexCount + " dataverses and " + datasetIndexCount + " datasets indexed. " + timeElapsed + ". " + resultOfClearingIndexTimes + "\n";
+        status = dataverseIndexCount + " dataverses and " + datasetIndexCount + " datasets indexed. " + timeElapsed + ". " + resultOfBatch + ". " + resultOfClearingIndexTimes + "\n";
         logger.info(status);
         return new AsyncResult<>(status);
     }
@@ -259,17 +281,161 @@ public class IndexBatchServiceBean {
         }
         
         // index the Dataset children
+        SolrUpdateBatch batch = SolrUpdateBatch.fromSettings(solrClientService.getSolrClient());
         for (Long childId : datasetChildren) {
             datasetIndexCount++;
             logger.info("indexing dataset " + datasetIndexCount + " of " + datasetChildren.size() + " (id=" + childId + ")");
-            indexService.indexDatasetInNewTransaction(childId);
+            indexService.indexDatasetInNewTransaction(childId, batch);
+            logBatchProgress(datasetIndexCount, batch);
         }
+        finishBatch(batch);
         long end = System.currentTimeMillis();
         if (datasetFailureCount + dataverseFailureCount > 0){
             logger.info("There were index failures. " + dataverseFailureCount + " dataverse(s) and " + datasetFailureCount + " dataset(s) failed to index. Please check the log for more information.");            
         }
         logger.info(dataverseIndexCount + " dataverses and " + datasetIndexCount + " datasets indexed. Total time to index " + (end - start) + ".");
     }
+
+    /**
+     * Indexes all the dataverses, for a parallel reindex job, which only
+     * covers the datasets.
+     */
+    @Asynchronous
+    public void indexAllDataverses() {
+        List<Long> dataverseIds = dataverseService.findDataverseIdsForIndexing(false);
+        int dataverseIndexCount = 0;
+        int dataverseFailureCount = 0;
+        for (Long id : dataverseIds) {
+            try {
+                dataverseIndexCount++;
+                indexService.indexDataverseInNewTransaction(dataverseService.find(id));
+            } catch (Exception e) {
+                dataverseFailureCount++;
+                logger.info("FAILURE indexing dataverse " + dataverseIndexCount + " of " + dataverseIds.size() + " (id=" + id + ") Exception info: " + e.getMessage());
+            }
+        }
+        logger.info(dataverseIndexCount + " dataverses indexed, " + dataverseFailureCount + " failed");
+    }
+
+    public boolean isPartitionRunning(Long partitionId) {
+        return RUNNING_PARTITIONS.contains(partitionId);
+    }
+
+    /**
+     * Indexes the datasets of one partition of a parallel reindex job, starting
+     * after its last checkpoint. Every {@value #CHECKPOINT_INTERVAL} datasets
+     * the Solr update batch is flushed and the progress saved, so that the
+     * partition can be resumed from there.
+     *
+     * If a batch of documents cannot be sent to Solr, the partition stops
+     * without moving its checkpoint, so that the datasets of the lost
+     * documents are indexed again when it is resumed.
+     *
+     * @see ReindexJobServiceBean
+     */
+    @Asynchronous
+    public void indexPartition(ReindexPartition partition) {
+        if (!RUNNING_PARTITIONS.add(partition.getId())) {
+            logger.info("reindex partition " + partition.getPartitionNumber() + " is already running");
+            return;
+        }
+        try {
+            List<Long> datasetIds = datasetService.findIdsInRange(partition.getResumeAfterDatasetId(), partition.getLastDatasetId());
+            logger.info("indexing " + datasetIds.size() + " datasets of reindex partition " + partition.getPartitionNumber()
+                    + " (ids " + (partition.getResumeAfterDatasetId() + 1) + " to " + partition.getLastDatasetId() + ")");
+            int datasetsIndexed = partition.getDatasetsIndexed();
+            int datasetFailureCount = 0;
+            SolrUpdateBatch batch = SolrUpdateBatch.fromSettings(solrClientService.getSolrClient());
+            for (Long id : datasetIds) {
+                boolean indexed = true;
+                try {
+                    indexService.indexDatasetInNewTransaction(id, batch);
+                } catch (Exception e) {
+                    // e.g. the dataset was deleted since the ids were listed;
+                    // we want to keep going with the rest of the partition
+                    indexed = false;
+                    datasetFailureCount++;
+                    logger.info("FAILURE indexing dataset (id=" + id + ") of reindex partition " + partition.getPartitionNumber() + ". Exception info: " + e.getMessage());
+                }
+                if (batch.getDocumentsFailed() > 0) {
+                    // A batch sent while indexing the dataset failed
+                    stopPartition(partition, batch);
+                    return;
+                }
+                if (!indexed) {
+                    continue;
+                }
+                datasetsIndexed++;
+                if (datasetsIndexed % CHECKPOINT_INTERVAL == 0) {
+                    try {
+                        batch.flush();
+                    } catch (SolrServerException | IOException ex) {
+                        logger.warning("FAILURE sending a Solr update batch of reindex partition " + partition.getPartitionNumber() + ": " + ex);
+                        stopPartition(partition, batch);
+                        return;
+                    }
+                    indexService.updateIndexTimes(batch);
+                    // Every document added so far is in Solr
+                    saveCheckpoint(partition, id, datasetsIndexed, batch, false);
+                }
+            }
+            try {
+                batch.finish();
+            } catch (SolrServerException | IOException ex) {
+                logger.warning("FAILURE sending the last Solr update batch of reindex partition " + partition.getPartitionNumber() + ": " + ex);
+                stopPartition(partition, batch);
+                return;
+            }
+            indexService.updateIndexTimes(batch);
+            saveCheckpoint(partition, partition.getLastDatasetId(), datasetsIndexed, batch, true);
+            logger.info("reindex partition " + partition.getPartitionNumber() + " done: " + batch
+                    + (datasetFailureCount > 0 ? "; " + datasetFailureCount + " dataset(s) failed to index, please check the log for more information" : ""));
+        } finally {
+            RUNNING_PARTITIONS.remove(partition.getId());
+        }
+    }
+
+    /**
+     * Stops a partition after a failed Solr update batch, leaving its
+     * checkpoint at the last one saved, so that it is resumed from there.
+     */
+    private void stopPartition(ReindexPartition partition, SolrUpdateBatch batch) {
+        indexService.updateIndexTimes(batch);
+        logger.warning("reindex partition " + partition.getPartitionNumber() + " stopped after a failed Solr update batch: " + batch
+                + "; resume the reindex once Solr is available again");
+    }
+
+    private void saveCheckpoint(ReindexPartition partition, Long checkpointDatasetId, int datasetsIndexed, SolrUpdateBatch batch, boolean finished) {
+        reindexJobService.saveCheckpoint(partition.getId(), checkpointDatasetId, datasetsIndexed,
+                partition.getDocumentsSent() + batch.getDocumentsSent(),
+                partition.getDocumentsFailed() + batch.getDocumentsFailed(), finished);
+    }
+
+    private void logBatchProgress(int datasetIndexCount, SolrUpdateBatch batch) {
+        if (datasetIndexCount % PROGRESS_LOG_INTERVAL == 0) {
+            logger.info("after " + datasetIndexCount + " datasets: " + batch);
+        }
+    }
+
+    /**
+     * Sends the last documents of the batch, and commits. The index time of
+     * the datasets whose documents could not be sent is cleared.
+     * @return a summary of the batch, for the status message
+     */
+    private String finishBatch(SolrUpdateBatch batch) {
+        try {
+            batch.finish();
+        } catch (SolrServerException | IOException ex) {
+            logger.warning("FAILURE sending the last Solr update batch: " + ex);
+        }
+        indexService.updateIndexTimes(batch);
+        String result = batch.toString();
+        if (batch.getDocumentsFailed() > 0) {
+            result += " (use the index status API to find the objects missing from the index)";
+        }
+        return result;
+    }
+
       private JsonObjectBuilder getContentInDatabaseButStaleInOrMissingFromSolr() {
         logger.info("checking for stale or missing dataverses");
         List<Long> stateOrMissingDataverses = indexService.findStaleOrMissingDataverses();
@@ -25,6 +25,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -40,7 +41,6 @@ import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
 import jakarta.ejb.AsyncResult;
 import jakarta.ejb.Asynchronous;
 import jakarta.ejb.EJB;
@@ -57,11 +57,9 @@ import jakarta.persistence.PersistenceContext;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.SortClause;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrDocument;
@@ -145,34 +143,13 @@ public class IndexServiceBean {
     public static final String HARVESTED = "Harvested";
     private String rootDataverseName;
     private Dataverse rootDataverseCached;
-    SolrClient solrServer;
 
     private VariableMetadataUtil variableMetadataUtil;
 
     @PostConstruct
     public void init() {
-        // Get from MPCONFIG. Might be configured by a sysadmin or simply return the default shipped with
-        // resources/META-INF/microprofile-config.properties.
-        String protocol = JvmSettings.SOLR_PROT.lookup();
-        String path = JvmSettings.SOLR_PATH.lookup();
-    
-        String urlString = protocol + "://" + systemConfig.getSolrHostColonPort() + path;
-        solrServer = new HttpSolrClient.Builder(urlString).build();
-
         rootDataverseName = findRootDataverseCached().getName();
     }
-
-    @PreDestroy
-    public void close() {
-        if (solrServer != null) {
-            try {
-                solrServer.close();
-            } catch (IOException e) {
-                logger.warning("Solr closing error: " + e);
-            }
-            solrServer = null;
-        }
-    }
    
     @TransactionAttribute(REQUIRES_NEW)
     public Future<String> indexDataverseInNewTransaction(Dataverse dataverse) throws SolrServerException, IOException{
@@ -339,6 +316,23 @@ public class IndexServiceBean {
         asyncIndexDataset(dataset, doNormalSolrDocCleanUp);
         dataset = null;
     }
+
+    /**
+     * As {@link #indexDatasetInNewTransaction(java.lang.Long)}, but the Solr
+     * documents are added to the batch, instead of being sent and committed
+     * right away.
+     */
+    @TransactionAttribute(REQUIRES_NEW)
+    public void indexDatasetInNewTransaction(Long datasetId, SolrUpdateBatch batch) {
+        boolean doNormalSolrDocCleanUp = false;
+        Dataset dataset = datasetService.findDeep(datasetId);
+        if (dataset == null) {
+            // deleted since the ids to index were listed
+            logger.fine("dataset " + datasetId + " not found; not indexing it");
+            return;
+        }
+        indexDatasetWithPermit(dataset, doNormalSolrDocCleanUp, batch);
+    }
     
     // The following two variables are only used in the synchronized getNextToIndex method and do not need to be synchronized themselves
 
@@ -414,9 +408,31 @@ public class IndexServiceBean {
      */
     @Asynchronous
     public void asyncIndexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp) {
+        indexDatasetWithPermit(dataset, doNormalSolrDocCleanUp, null, null);
+    }
+
+    /**
+     * As {@link #asyncIndexDataset(edu.harvard.iq.dataverse.Dataset, boolean)},
+     * but only the Solr documents affected by the changes made to the draft
+     * version are sent (see {@link #indexDatasetChanges(edu.harvard.iq.dataverse.Dataset, edu.harvard.iq.dataverse.search.DatasetIndexChanges)}).
+     * If the dataset is already being indexed, the next indexing of it
+     * reindexes it as a whole.
+     *
+     * @param changes The changes; if null, the dataset is reindexed as a whole.
+     */
+    @Asynchronous
+    public void asyncIndexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp, DatasetIndexChanges changes) {
+        indexDatasetWithPermit(dataset, doNormalSolrDocCleanUp, null, changes);
+    }
+
+    private void indexDatasetWithPermit(Dataset dataset, boolean doNormalSolrDocCleanUp, SolrUpdateBatch batch) {
+        indexDatasetWithPermit(dataset, doNormalSolrDocCleanUp, batch, null);
+    }
+
+    private void indexDatasetWithPermit(Dataset dataset, boolean doNormalSolrDocCleanUp, SolrUpdateBatch batch, DatasetIndexChanges changes) {
         try {
             acquirePermitFromSemaphore();
-            doAyncIndexDataset(dataset, doNormalSolrDocCleanUp);
+            doAyncIndexDataset(dataset, doNormalSolrDocCleanUp, batch, changes);
         } catch (InterruptedException e) {
             String failureLogText = "Indexing failed: interrupted. You can kickoff a re-index of this dataset with: \r\n curl http://localhost:8080/api/admin/index/datasets/" + dataset.getId().toString();
             failureLogText += "\r\n" + e.getLocalizedMessage();
@@ -426,19 +442,29 @@ public class IndexServiceBean {
         }
     }
 
-    private void doAyncIndexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp) {
+    private void doAyncIndexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp, SolrUpdateBatch batch) {
+        doAyncIndexDataset(dataset, doNormalSolrDocCleanUp, batch, null);
+    }
+
+    private void doAyncIndexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp, SolrUpdateBatch batch, DatasetIndexChanges changes) {
         Long id = dataset.getId();
         Dataset next = getNextToIndex(id, dataset); // if there is an ongoing index job for this dataset, next is null (ongoing index job will reindex the newest version after current indexing finishes)
         while (next != null) {
             // Time context will automatically start on creation and stop when leaving the try block
             try (var timeContext = indexTimer.time()) {
-                indexDataset(next, doNormalSolrDocCleanUp);
+                if (changes != null) {
+                    indexDatasetChanges(next, changes);
+                } else {
+                    indexDataset(next, doNormalSolrDocCleanUp, batch);
+                }
             } catch (Exception e) { // catch all possible exceptions; otherwise when something unexpected happes the dataset wold remain locked and impossible to reindex
                 String failureLogText = "Indexing failed. You can kickoff a re-index of this dataset with: \r\n curl http://localhost:8080/api/admin/index/datasets/" + dataset.getId().toString();
                 failureLogText += "\r\n" + e.getLocalizedMessage();
                 LoggingUtil.writeOnSuccessFailureLog(null, failureLogText, dataset);
             }
             next = getNextToIndex(id, null); // if dataset was not changed during the indexing (and no new job was requested), next is null and loop can be stopped
+            // the changes behind the requests that were skipped in the meantime are not known
+            changes = null;
         }
     }
 
@@ -447,7 +473,7 @@ public class IndexServiceBean {
         for(Dataset dataset : datasets) {
             try {
                 acquirePermitFromSemaphore();
-                doAyncIndexDataset(dataset, true);
+                doAyncIndexDataset(dataset, true, null);
             } catch (InterruptedException e) {
                 String failureLogText = "Indexing failed: interrupted. You can kickoff a re-index of this dataset with: \r\n curl http://localhost:8080/api/admin/index/datasets/" + dataset.getId().toString();
                 failureLogText += "\r\n" + e.getLocalizedMessage();
@@ -467,11 +493,43 @@ public class IndexServiceBean {
     }
 
     public void indexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp) throws  SolrServerException, IOException {
-        doIndexDataset(dataset, doNormalSolrDocCleanUp);
-        updateLastIndexedTime(dataset.getId());
+        indexDataset(dataset, doNormalSolrDocCleanUp, null);
+    }
+
+    /**
+     * @param batch Where to add the Solr documents; if null, they are sent and
+     * committed right away. Otherwise, the index time of the dataset is only
+     * set once the batch holding its documents has been sent (see
+     * {@link #updateIndexTimes(SolrUpdateBatch)}).
+     */
+    public void indexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp, SolrUpdateBatch batch) throws  SolrServerException, IOException {
+        if (batch == null) {
+            doIndexDataset(dataset, doNormalSolrDocCleanUp, null);
+            updateLastIndexedTime(dataset.getId());
+            return;
+        }
+        long firstGeneration = batch.getGeneration();
+        doIndexDataset(dataset, doNormalSolrDocCleanUp, batch);
+        batch.addDataset(dataset.getId(), firstGeneration);
+        updateIndexTimes(batch);
+    }
+
+    /**
+     * Sets the index time of the datasets whose documents have been sent by
+     * the batch, and clears it for those whose documents could not be sent,
+     * so that they are listed as stale and picked up by the next reindex.
+     * To be called again once the batch has been flushed.
+     */
+    public void updateIndexTimes(SolrUpdateBatch batch) {
+        for (Long id : batch.takeSentDatasetIds()) {
+            updateLastIndexedTime(id);
+        }
+        for (Long id : batch.takeFailedDatasetIds()) {
+            clearLastIndexedTimeInNewTransaction(id);
+        }
     }
     
-    private void doIndexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp) throws  SolrServerException, IOException {
+    private void doIndexDataset(Dataset dataset, boolean doNormalSolrDocCleanUp, SolrUpdateBatch batch) throws  SolrServerException, IOException {
         logger.fine("indexing dataset " + dataset.getId());
         /**
          * @todo should we use solrDocIdentifierDataset or
@@ -580,7 +638,7 @@ public class IndexServiceBean {
 
                 desiredCards.put(DatasetVersion.VersionState.DRAFT, true);
                 IndexableDataset indexableDraftVersion = new IndexableDataset(latestVersion);
-                String indexDraftResult = addOrUpdateDataset(indexableDraftVersion);
+                String indexDraftResult = addOrUpdateDataset(indexableDraftVersion, batch);
                 results.append("The latest version is a working copy (latestVersionState: ")
                         .append(latestVersionStateString).append(") and indexing was attempted for ")
                         .append(solrIdDraftDataset).append(" (limited discoverability). Result: ")
@@ -629,12 +687,12 @@ public class IndexServiceBean {
                  */
                 String result = getDesiredCardState(desiredCards) + results.toString() + debug.toString();
                 logger.fine(result);
-                indexDatasetPermissions(dataset);
+                indexDatasetPermissions(dataset, batch);
             } else if (latestVersionState.equals(DatasetVersion.VersionState.DEACCESSIONED)) {
 
                 desiredCards.put(DatasetVersion.VersionState.DEACCESSIONED, true);
                 IndexableDataset indexableDeaccessionedVersion = new IndexableDataset(latestVersion);
-                String indexDeaccessionedVersionResult = addOrUpdateDataset(indexableDeaccessionedVersion);
+                String indexDeaccessionedVersionResult = addOrUpdateDataset(indexableDeaccessionedVersion, batch);
                 results.append("No draft version. Attempting to index as deaccessioned. Result: ").append(indexDeaccessionedVersionResult).append("\n");
 
                 desiredCards.put(DatasetVersion.VersionState.RELEASED, false);
@@ -675,7 +733,7 @@ public class IndexServiceBean {
                  */
                 String result = getDesiredCardState(desiredCards) + results.toString() + debug.toString();
                 logger.fine(result);
-                indexDatasetPermissions(dataset);
+                indexDatasetPermissions(dataset, batch);
             } else {
                 String result = "No-op. Unexpected condition reached: No released version and latest version is neither draft nor deaccessioned";
                 logger.fine(result);
@@ -688,7 +746,7 @@ public class IndexServiceBean {
 
                 desiredCards.put(DatasetVersion.VersionState.RELEASED, true);
                 IndexableDataset indexableReleasedVersion = new IndexableDataset(releasedVersion);
-                String indexReleasedVersionResult = addOrUpdateDataset(indexableReleasedVersion);
+                String indexReleasedVersionResult = addOrUpdateDataset(indexableReleasedVersion, batch);
                 results.append("Attempted to index " + solrIdPublished).append(". Result: ").append(indexReleasedVersionResult).append("\n");
 
                 desiredCards.put(DatasetVersion.VersionState.DRAFT, false);
@@ -730,7 +788,7 @@ public class IndexServiceBean {
                  */
                 String result = getDesiredCardState(desiredCards) + results.toString() + debug.toString();
                 logger.fine(result);
-                indexDatasetPermissions(dataset);
+                indexDatasetPermissions(dataset, batch);
             } else if (latestVersionState.equals(DatasetVersion.VersionState.DRAFT)) {
 
                 IndexableDataset indexableDraftVersion = new IndexableDataset(latestVersion);
@@ -743,10 +801,10 @@ public class IndexServiceBean {
 
                 desiredCards.put(DatasetVersion.VersionState.RELEASED, true);
                 IndexableDataset indexableReleasedVersion = new IndexableDataset(releasedVersion);
-                String indexReleasedVersionResult = addOrUpdateDataset(indexableReleasedVersion, datafilesInDraftVersion);
+                String indexReleasedVersionResult = addOrUpdateDataset(indexableReleasedVersion, datafilesInDraftVersion, batch);
                 results.append("There is a published version we will attempt to index. Result: ").append(indexReleasedVersionResult).append("\n");
 
-                String indexDraftResult = addOrUpdateDataset(indexableDraftVersion);
+                String indexDraftResult = addOrUpdateDataset(indexableDraftVersion, batch);
                 results.append("The latest version is a working copy (latestVersionState: ")
                         .append(latestVersionStateString).append(") and will be indexed as ")
                         .append(solrIdDraftDataset).append(" (limited visibility). Result: ").append(indexDraftResult).append("\n");
@@ -783,7 +841,7 @@ public class IndexServiceBean {
                  */
                 String result = getDesiredCardState(desiredCards) + results.toString() + debug.toString();
                 logger.fine(result);
-                indexDatasetPermissions(dataset);
+                indexDatasetPermissions(dataset, batch);
             } else {
                 String result = "No-op. Unexpected condition reached: There is at least one published version but the latest version is neither published nor draft";
                 logger.fine(result);
@@ -794,6 +852,89 @@ public class IndexServiceBean {
         }
     }
     
+    /**
+     * Reindexes the draft version of a dataset after an edit of it, without
+     * regenerating the Solr documents of the files that did not change. The
+     * dataset document and the documents of the changed files are regenerated;
+     * if the title, citation or license changed, the documents of the other
+     * files of the draft are patched with atomic updates.
+     *
+     * Falls back to {@link #indexDataset(edu.harvard.iq.dataverse.Dataset, boolean)}
+     * if the draft is no longer the version that was edited, or the documents
+     * of the files cannot be found in Solr.
+     */
+    private void indexDatasetChanges(Dataset dataset, DatasetIndexChanges changes) throws SolrServerException, IOException {
+        DatasetVersion draftVersion = dataset.getLatestVersion();
+        if (!draftVersion.isDraft() || !changes.getDatasetVersionId().equals(draftVersion.getId())) {
+            indexDataset(dataset, true);
+            return;
+        }
+        String draftSuffix = IndexableDataset.DatasetState.WORKING_COPY.getSuffix();
+        Set<String> existingDraftFileDocIds = new HashSet<>();
+        try {
+            for (String solrId : findFilesOfParentDataset(dataset.getId())) {
+                if (solrId.endsWith(draftSuffix)) {
+                    existingDraftFileDocIds.add(solrId);
+                }
+            }
+        } catch (SearchException ex) {
+            logger.fine("could not find the documents of the files, reindexing dataset " + dataset.getId() + " as a whole: " + ex);
+            indexDataset(dataset, true);
+            return;
+        }
+
+        boolean doFullTextIndexing = settingsService.isTrueForKey(SettingsServiceBean.Key.SolrFullTextIndexing, false);
+        Set<Long> datafilesToIndex = new HashSet<>(changes.getChangedDataFileIds());
+        List<String> fileDocIdsToPatch = new ArrayList<>();
+        if (changes.isParentFieldsChanged()) {
+            for (FileMetadata fileMetadata : draftVersion.getFileMetadatas()) {
+                DataFile dataFile = fileMetadata.getDataFile();
+                String fileSolrDocId = solrDocIdentifierFile + dataFile.getId() + draftSuffix;
+                if (datafilesToIndex.contains(dataFile.getId()) || !existingDraftFileDocIds.contains(fileSolrDocId)) {
+                    continue;
+                }
+                if (doFullTextIndexing && isFullTextIndexable(dataset, dataFile)) {
+                    datafilesToIndex.add(dataFile.getId());
+                } else {
+                    fileDocIdsToPatch.add(fileSolrDocId);
+                }
+            }
+        }
+
+        // A changed file may now be the same as in the released version, in
+        // which case it no longer gets a draft document of its own
+        List<String> fileDocIdsToReplace = new ArrayList<>();
+        for (Long dataFileId : datafilesToIndex) {
+            String fileSolrDocId = solrDocIdentifierFile + dataFileId + draftSuffix;
+            if (existingDraftFileDocIds.contains(fileSolrDocId)) {
+                fileDocIdsToReplace.add(fileSolrDocId);
+            }
+        }
+        if (dataset.isReleased() && !fileDocIdsToReplace.isEmpty()) {
+            solrIndexService.deleteMultipleSolrIds(fileDocIdsToReplace);
+        }
+
+        SolrInputDocuments docs = toSolrDocs(new IndexableDataset(draftVersion), null, datafilesToIndex);
+        Collection<SolrInputDocument> solrDocs = new ArrayList<>(docs.getDocuments());
+        if (!fileDocIdsToPatch.isEmpty()) {
+            String parentName = getParentDatasetTitle(draftVersion);
+            String parentCitation = dataset.getCitation();
+            String licenseName = getLicenseName(draftVersion);
+            for (String fileSolrDocId : fileDocIdsToPatch) {
+                SolrInputDocument patch = new SolrInputDocument();
+                patch.addField(SearchFields.ID, fileSolrDocId);
+                patch.addField(SearchFields.PARENT_NAME, Collections.singletonMap("set", parentName));
+                patch.addField(SearchFields.PARENT_CITATION, Collections.singletonMap("set", parentCitation));
+                patch.addField(SearchFields.DATASET_LICENSE, Collections.singletonMap("set", licenseName));
+                solrDocs.add(patch);
+            }
+        }
+        solrClientService.getSolrClient().add(solrDocs);
+        solrClientService.getSolrClient().commit();
+        logger.fine(docs.getMessage() + ". Changes: " + changes + ". Files patched: " + fileDocIdsToPatch.size());
+        updateLastIndexedTime(dataset.getId());
+    }
+
     private String deleteDraftFiles(List<String> solrDocIdsForDraftFilesToDelete) {
         String deleteDraftFilesResults = "";
         IndexResponse indexResponse = solrIndexService.deleteMultipleSolrIds(solrDocIdsForDraftFilesToDelete);
@@ -801,7 +942,7 @@ public class IndexServiceBean {
         return deleteDraftFilesResults;
     }
 
-    private IndexResponse indexDatasetPermissions(Dataset dataset) {
+    private IndexResponse indexDatasetPermissions(Dataset dataset, SolrUpdateBatch batch) {
         boolean disabledForDebugging = false;
         if (disabledForDebugging) {
             /**
@@ -811,16 +952,24 @@ public class IndexServiceBean {
              */
             return new IndexResponse("permissions indexing disabled for debugging");
         }
-        IndexResponse indexResponse = solrIndexService.indexPermissionsOnSelfAndChildren(dataset);
+        IndexResponse indexResponse = solrIndexService.indexPermissionsOnSelfAndChildren(dataset, batch);
         return indexResponse;
     }
 
-    private String addOrUpdateDataset(IndexableDataset indexableDataset) throws  SolrServerException, IOException {
-        String result = addOrUpdateDataset(indexableDataset, null);
+    private String addOrUpdateDataset(IndexableDataset indexableDataset, SolrUpdateBatch batch) throws  SolrServerException, IOException {
+        String result = addOrUpdateDataset(indexableDataset, null, batch);
         return result;
     }
 
     public SolrInputDocuments toSolrDocs(IndexableDataset indexableDataset, Set<Long> datafilesInDraftVersion) throws  SolrServerException, IOException {
+        return toSolrDocs(indexableDataset, datafilesInDraftVersion, null);
+    }
+
+    /**
+     * @param datafilesToIndex The ids of the files whose documents are to be
+     * generated; if null, the documents of all the files are.
+     */
+    public SolrInputDocuments toSolrDocs(IndexableDataset indexableDataset, Set<Long> datafilesInDraftVersion, Set<Long> datafilesToIndex) throws  SolrServerException, IOException {
         IndexableDataset.DatasetState state = indexableDataset.getDatasetState();
         Dataset dataset = indexableDataset.getDatasetVersion().getDataset();
         logger.fine("adding or updating Solr document for dataset id " + dataset.getId());
@@ -1198,8 +1347,8 @@ public class IndexServiceBean {
                     }
                 }
 
-                boolean indexThisMetadata = true;
-                if (checkForDuplicateMetadata && !releasedFileMetadatas.isEmpty()) {
+                boolean indexThisMetadata = datafilesToIndex == null || datafilesToIndex.contains(fileMetadata.getDataFile().getId());
+                if (indexThisMetadata && checkForDuplicateMetadata && !releasedFileMetadatas.isEmpty()) {
                     logger.fine("Checking if this file metadata is a duplicate.");
                     FileMetadata getFromMap = fileMap.get(fileMetadata.getDataFile().getId());
                     if (getFromMap != null) {
@@ -1232,7 +1381,7 @@ public class IndexServiceBean {
                     
                     /* Full-text indexing using Apache Tika */
                     if (doFullTextIndexing) {
-                        if (!dataset.isHarvested() && !fileMetadata.getDataFile().isRestricted() && !fileMetadata.getDataFile().isFilePackage()) {
+                        if (isFullTextIndexable(dataset, fileMetadata.getDataFile())) {
                             StorageIO<DataFile> accessObject = null;
                             InputStream instream = null;
                             ContentHandler textHandler = null;
@@ -1514,12 +1663,16 @@ public class IndexServiceBean {
         return new SolrInputDocuments(docs, msg, datasetId);
     }
     
-    private String addOrUpdateDataset(IndexableDataset indexableDataset, Set<Long> datafilesInDraftVersion) throws  SolrServerException, IOException {   
+    private String addOrUpdateDataset(IndexableDataset indexableDataset, Set<Long> datafilesInDraftVersion, SolrUpdateBatch batch) throws  SolrServerException, IOException {   
         final SolrInputDocuments docs = toSolrDocs(indexableDataset, datafilesInDraftVersion);
 
         try {
-            solrClientService.getSolrClient().add(docs.getDocuments());
-            solrClientService.getSolrClient().commit();
+            if (batch != null) {
+                batch.add(docs.getDocuments());
+            } else {
+                solrClientService.getSolrClient().add(docs.getDocuments());
+                solrClientService.getSolrClient().commit();
+            }
         } catch (SolrServerException | IOException ex) {
             if (ex.getCause() instanceof SolrServerException) {
                 throw new SolrServerException(ex);
@@ -1551,6 +1704,16 @@ public class IndexServiceBean {
         em.flush();
     }
 
+    @TransactionAttribute(REQUIRES_NEW)
+    private void clearLastIndexedTimeInNewTransaction(Long id) {
+        DvObject dvObjectToModify = em.find(DvObject.class, id);
+        if (dvObjectToModify != null) {
+            dvObjectToModify.setIndexTime(null);
+            em.merge(dvObjectToModify);
+            em.flush();
+        }
+    }
+
     /**
      * If the "Topic Classification" has a "Vocabulary", return both the "Term"
      * and the "Vocabulary" with the latter in parentheses. For example, the
@@ -1686,13 +1849,49 @@ public class IndexServiceBean {
     }
 
     private void addLicenseToSolrDoc(SolrInputDocument solrInputDocument, DatasetVersion datasetVersion) {
+        String licenseName = getLicenseName(datasetVersion);
+        if (licenseName != null) {
+            solrInputDocument.addField(SearchFields.DATASET_LICENSE, licenseName);
+        }
+    }
+
+    /**
+     * @return The name of the license of the version as indexed, or null if
+     * the version has no terms of use.
+     */
+    static String getLicenseName(DatasetVersion datasetVersion) {
         if (datasetVersion != null && datasetVersion.getTermsOfUseAndAccess() != null) {
             String licenseName = "Custom Terms";
             if(datasetVersion.getTermsOfUseAndAccess().getLicense() != null) {
                 licenseName = datasetVersion.getTermsOfUseAndAccess().getLicense().getName();
             }
-            solrInputDocument.addField(SearchFields.DATASET_LICENSE, licenseName);
+            return licenseName;
+        }
+        return null;
+    }
+
+    /**
+     * @return The title of the version, as indexed in the parentName field of
+     * the documents of its files.
+     */
+    private static String getParentDatasetTitle(DatasetVersion datasetVersion) {
+        for (DatasetField dsf : datasetVersion.getFlatDatasetFields()) {
+            if (dsf.getDatasetFieldType().getName().equals(DatasetFieldConstant.title)
+                    && dsf.getValues() != null && !dsf.getValues().isEmpty() && dsf.getValues().get(0) != null) {
+                return dsf.getValues().get(0);
+            }
         }
+        return "TBD";
+    }
+
+    /**
+     * @return Whether the text of the file is extracted into the full-text
+     * field, when full-text indexing is enabled. That field is not stored by
+     * Solr, so the documents of such files cannot be changed with atomic
+     * updates.
+     */
+    private static boolean isFullTextIndexable(Dataset dataset, DataFile dataFile) {
+        return !dataset.isHarvested() && !dataFile.isRestricted() && !dataFile.isFilePackage();
     }
 
     private void addDataverseReleaseDateToSolrDoc(SolrInputDocument solrInputDocument, Dataverse dataverse) {
@@ -2050,7 +2249,7 @@ public class IndexServiceBean {
             boolean done = false;
             while (!done) {
                 q.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
-                QueryResponse rsp = solrServer.query(q);
+                QueryResponse rsp = solrClientService.getSolrClient().query(q);
                 String nextCursorMark = rsp.getNextCursorMark();
                 SolrDocumentList list = rsp.getResults();
                 for (SolrDocument doc: list) {
@@ -2085,7 +2284,7 @@ public class IndexServiceBean {
             solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
             QueryResponse rsp = null;
             try {
-                rsp = solrServer.query(solrQuery);
+                rsp = solrClientService.getSolrClient().query(solrQuery);
              } catch (SolrServerException | IOException ex) {
                 throw new SearchException("Error searching Solr type: " + type, ex);
 
@@ -0,0 +1,179 @@
+package edu.harvard.iq.dataverse.search;
+
+import edu.harvard.iq.dataverse.DatasetServiceBean;
+import edu.harvard.iq.dataverse.settings.JvmSettings;
+import edu.harvard.iq.dataverse.util.json.NullSafeJsonBuilder;
+import java.util.ArrayList;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.logging.Logger;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.inject.Named;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import static jakarta.ejb.TransactionAttributeType.REQUIRES_NEW;
+
+/**
+ * Runs a full reindex of the datasets as a job of several partitions, each a
+ * range of dataset ids indexed by its own worker (see
+ * {@link IndexBatchServiceBean#indexPartition(edu.harvard.iq.dataverse.search.ReindexPartition)}).
+ * The progress of every partition is saved in the database as it goes, so
+ * that an interrupted job (e.g. by a restart of the server) can be resumed
+ * where it stopped.
+ *
+ * The workers index the datasets through {@link IndexServiceBean}, so no more
+ * than dataverse.solr.concurrency.max-async-indexes datasets are indexed at
+ * the same time, however many partitions there are.
+ */
+@Named
+@Stateless
+public class ReindexJobServiceBean {
+
+    private static final Logger logger = Logger.getLogger(ReindexJobServiceBean.class.getCanonicalName());
+
+    @PersistenceContext(unitName = "VDCNet-ejbPU")
+    private EntityManager em;
+
+    @EJB
+    DatasetServiceBean datasetService;
+    @EJB
+    IndexBatchServiceBean indexBatchService;
+
+    /**
+     * @return The default number of partitions: as many as the datasets that
+     * may be indexed in parallel.
+     */
+    public int getDefaultNumPartitions() {
+        return JvmSettings.MAX_ASYNC_INDEXES.lookupOptional(Integer.class).orElse(4);
+    }
+
+    public List<ReindexPartition> findPartitions() {
+        return em.createNamedQuery("ReindexPartition.findAll", ReindexPartition.class).getResultList();
+    }
+
+    /**
+     * @return Whether the partitions of the current job are being indexed on
+     * this server.
+     */
+    public boolean isRunning() {
+        return findPartitions().stream().anyMatch(p -> indexBatchService.isPartitionRunning(p.getId()));
+    }
+
+    /**
+     * Drops the partitions of the previous job, and divides all the datasets
+     * into new ones. Runs in its own transaction, so that the workers find the
+     * partitions in the database.
+     *
+     * @param numPartitions The number of partitions to create; fewer are
+     * created if there are fewer datasets.
+     * @return The new partitions.
+     */
+    @TransactionAttribute(REQUIRES_NEW)
+    public List<ReindexPartition> createPartitions(int numPartitions) {
+        em.createNamedQuery("ReindexPartition.deleteAll").executeUpdate();
+        List<ReindexPartition> partitions = new ArrayList<>();
+        int partitionNumber = 0;
+        for (List<Long> ids : partition(datasetService.findAllOrSubset(1, 0, false), numPartitions)) {
+            ReindexPartition partition = new ReindexPartition(partitionNumber++, ids.get(0), ids.get(ids.size() - 1), ids.size());
+            em.persist(partition);
+            partitions.add(partition);
+        }
+        logger.info("Created " + partitions.size() + " reindex partitions");
+        return partitions;
+    }
+
+    /**
+     * Splits the ids into contiguous ranges with (almost) the same number of ids.
+     * @param sortedIds The ids, in ascending order.
+     * @param numPartitions The number of ranges wanted.
+     * @return Up to {@code numPartitions} non-empty ranges.
+     */
+    static List<List<Long>> partition(List<Long> sortedIds, int numPartitions) {
+        List<List<Long>> partitions = new ArrayList<>();
+        int n = Math.max(1, Math.min(numPartitions, sortedIds.size()));
+        for (int i = 0; i < n && !sortedIds.isEmpty(); i++) {
+            int from = (int) ((long) sortedIds.size() * i / n);
+            int to = (int) ((long) sortedIds.size() * (i + 1) / n);
+            partitions.add(sortedIds.subList(from, to));
+        }
+        return partitions;
+    }
+
+    /**
+     * Saves how far the worker of the partition got.
+     */
+    @TransactionAttribute(REQUIRES_NEW)
+    public void saveCheckpoint(Long partitionId, Long checkpointDatasetId, int datasetsIndexed, long documentsSent, long documentsFailed, boolean finished) {
+        ReindexPartition partition = em.find(ReindexPartition.class, partitionId);
+        if (partition == null) {
+            // A new job was started in the meantime
+            logger.warning("Reindex partition " + partitionId + " no longer exists");
+            return;
+        }
+        partition.setCheckpointDatasetId(checkpointDatasetId);
+        partition.setDatasetsIndexed(datasetsIndexed);
+        partition.setDocumentsSent(documentsSent);
+        partition.setDocumentsFailed(documentsFailed);
+        partition.setCheckpointTime(new Timestamp(System.currentTimeMillis()));
+        if (finished) {
+            partition.setFinishTime(partition.getCheckpointTime());
+        }
+    }
+
+    /**
+     * @return The progress of the current (or last) job, per partition and in total.
+     */
+    public JsonObjectBuilder getProgress() {
+        JsonArrayBuilder partitionsJson = Json.createArrayBuilder();
+        int datasetCount = 0, datasetsIndexed = 0, finished = 0;
+        long documentsSent = 0;
+        double documentsPerSecond = 0;
+        for (ReindexPartition partition : findPartitions()) {
+            double partitionDocumentsPerSecond = documentsPerSecond(partition);
+            partitionsJson.add(NullSafeJsonBuilder.jsonObjectBuilder()
+                    .add("partition", partition.getPartitionNumber())
+                    .add("firstDatasetId", partition.getFirstDatasetId())
+                    .add("lastDatasetId", partition.getLastDatasetId())
+                    .add("checkpointDatasetId", partition.getCheckpointDatasetId())
+                    .add("datasetCount", partition.getDatasetCount())
+                    .add("datasetsIndexed", partition.getDatasetsIndexed())
+                    .add("documentsSent", partition.getDocumentsSent())
+                    .add("documentsFailed", partition.getDocumentsFailed())
+                    .add("documentsPerSecond", Math.round(partitionDocumentsPerSecond * 10) / 10.0)
+                    .add("status", partition.isFinished() ? "finished"
+                            : indexBatchService.isPartitionRunning(partition.getId()) ? "running" : "stopped")
+                    .add("startTime", partition.getStartTime())
+                    .add("checkpointTime", partition.getCheckpointTime())
+                    .add("finishTime", partition.getFinishTime()));
+            datasetCount += partition.getDatasetCount();
+            datasetsIndexed += partition.getDatasetsIndexed();
+            documentsSent += partition.getDocumentsSent();
+            if (partition.isFinished()) {
+                finished++;
+            } else {
+                documentsPerSecond += partitionDocumentsPerSecond;
+            }
+        }
+        return Json.createObjectBuilder()
+                .add("datasetCount", datasetCount)
+                .add("datasetsIndexed", datasetsIndexed)
+                .add("documentsSent", documentsSent)
+                .add("finishedPartitions", finished)
+                .add("documentsPerSecond", Math.round(documentsPerSecond * 10) / 10.0)
+                .add("partitions", partitionsJson);
+    }
+
+    private static double documentsPerSecond(ReindexPartition partition) {
+        if (partition.getCheckpointTime() == null) {
+            return 0;
+        }
+        long elapsed = Math.max(1, partition.getCheckpointTime().getTime() - partition.getStartTime().getTime());
+        return partition.getDocumentsSent() * 1000.0 / elapsed;
+    }
+}
@@ -0,0 +1,158 @@
+package edu.harvard.iq.dataverse.search;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.NamedQueries;
+import jakarta.persistence.NamedQuery;
+
+/**
+ * One partition of a parallel reindex job: a range of dataset ids, indexed
+ * in id order by one worker, and how far the worker got. The checkpoint is
+ * the id of the last dataset of the range whose Solr documents are known to
+ * have been sent; a resumed worker continues after it.
+ *
+ * @see ReindexJobServiceBean
+ */
+@Entity
+@NamedQueries({
+    @NamedQuery(name = "ReindexPartition.findAll",
+            query = "SELECT o FROM ReindexPartition o ORDER BY o.partitionNumber"),
+    @NamedQuery(name = "ReindexPartition.deleteAll",
+            query = "DELETE FROM ReindexPartition o")
+})
+public class ReindexPartition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private int partitionNumber;
+
+    @Column(nullable = false)
+    private Long firstDatasetId;
+
+    @Column(nullable = false)
+    private Long lastDatasetId;
+
+    private Long checkpointDatasetId;
+
+    private int datasetCount;
+
+    private int datasetsIndexed;
+
+    private long documentsSent;
+
+    private long documentsFailed;
+
+    private Timestamp startTime;
+
+    private Timestamp checkpointTime;
+
+    private Timestamp finishTime;
+
+    public ReindexPartition() {
+    }
+
+    public ReindexPartition(int partitionNumber, Long firstDatasetId, Long lastDatasetId, int datasetCount) {
+        this.partitionNumber = partitionNumber;
+        this.firstDatasetId = firstDatasetId;
+        this.lastDatasetId = lastDatasetId;
+        this.datasetCount = datasetCount;
+        this.startTime = new Timestamp(System.currentTimeMillis());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getPartitionNumber() {
+        return partitionNumber;
+    }
+
+    public Long getFirstDatasetId() {
+        return firstDatasetId;
+    }
+
+    public Long getLastDatasetId() {
+        return lastDatasetId;
+    }
+
+    public Long getCheckpointDatasetId() {
+        return checkpointDatasetId;
+    }
+
+    public void setCheckpointDatasetId(Long checkpointDatasetId) {
+        this.checkpointDatasetId = checkpointDatasetId;
+    }
+
+    public int getDatasetCount() {
+        return datasetCount;
+    }
+
+    public int getDatasetsIndexed() {
+        return datasetsIndexed;
+    }
+
+    public void setDatasetsIndexed(int datasetsIndexed) {
+        this.datasetsIndexed = datasetsIndexed;
+    }
+
+    public long getDocumentsSent() {
+        return documentsSent;
+    }
+
+    public void setDocumentsSent(long documentsSent) {
+        this.documentsSent = documentsSent;
+    }
+
+    public long getDocumentsFailed() {
+        return documentsFailed;
+    }
+
+    public void setDocumentsFailed(long documentsFailed) {
+        this.documentsFailed = documentsFailed;
+    }
+
+    public Timestamp getStartTime() {
+        return startTime;
+    }
+
+    public Timestamp getCheckpointTime() {
+        return checkpointTime;
+    }
+
+    public void setCheckpointTime(Timestamp checkpointTime) {
+        this.checkpointTime = checkpointTime;
+    }
+
+    public Timestamp getFinishTime() {
+        return finishTime;
+    }
+
+    public void setFinishTime(Timestamp finishTime) {
+        this.finishTime = finishTime;
+    }
+
+    public boolean isFinished() {
+        return finishTime != null;
+    }
+
+    /**
+     * @return The id after which the indexing of this partition is to start
+     * (or resume).
+     */
+    public long getResumeAfterDatasetId() {
+        return (checkpointDatasetId != null) ? checkpointDatasetId : firstDatasetId - 1;
+    }
+}
@@ -8,6 +8,7 @@ import edu.harvard.iq.dataverse.DatasetVersionServiceBean;
 import edu.harvard.iq.dataverse.Dataverse;
 import edu.harvard.iq.dataverse.DataverseFacet;
 import edu.harvard.iq.dataverse.DataverseMetadataBlockFacet;
+import edu.harvard.iq.dataverse.DvObject;
 import edu.harvard.iq.dataverse.DvObjectServiceBean;
 import edu.harvard.iq.dataverse.authorization.groups.Group;
 import edu.harvard.iq.dataverse.authorization.groups.GroupServiceBean;
@@ -18,6 +19,7 @@ import edu.harvard.iq.dataverse.authorization.users.User;
 import edu.harvard.iq.dataverse.engine.command.DataverseRequest;
 import edu.harvard.iq.dataverse.util.BundleUtil;
 import edu.harvard.iq.dataverse.util.SystemConfig;
+import edu.harvard.iq.dataverse.util.cache.CacheFactoryBean;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -26,12 +28,14 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.MissingResourceException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -77,6 +81,8 @@ public class SearchServiceBean {
     SystemConfig systemConfig;
     @EJB
     SolrClientService solrClientService;
+    @EJB
+    CacheFactoryBean cacheFactory;
     
     /**
      * Import note: "onlyDatatRelatedToMe" relies on filterQueries for providing
@@ -473,6 +479,19 @@ public class SearchServiceBean {
         Map<String, String> staticSolrFieldFriendlyNamesBySolrField = new HashMap<>();
         String baseUrl = systemConfig.getDataverseSiteUrl();
 
+        // Look up the entities of all the hits at once, rather than one by one:
+        Map<Long, DvObject> entities = Collections.emptyMap();
+        if (retrieveEntities) {
+            Set<Long> entityIds = new HashSet<>();
+            for (SolrDocument solrDocument : docs) {
+                Long entityid = (Long) solrDocument.getFieldValue(SearchFields.ENTITY_ID);
+                if (entityid != null) {
+                    entityIds.add(entityid);
+                }
+            }
+            entities = dvObjectService.findDvObjects(entityIds);
+        }
+
         //Going through the results
         for (SolrDocument solrDocument : docs) {
             String id = (String) solrDocument.getFieldValue(SearchFields.ID);
@@ -557,7 +576,7 @@ public class SearchServiceBean {
             solrSearchResult.setId(id);
             solrSearchResult.setEntityId(entityid);
             if (retrieveEntities) {
-                solrSearchResult.setEntity(dvObjectService.findDvObject(entityid));
+                solrSearchResult.setEntity(entities.get(entityid));
             }
             solrSearchResult.setIdentifier(identifier);
             solrSearchResult.setPersistentUrl(persistentUrl);
@@ -1003,19 +1022,8 @@ public class SearchServiceBean {
         // Yes, see if GuestUser is part of any groups such as IP Groups.
         // ----------------------------------------------------
         if (user instanceof GuestUser) {
-            String groupsFromProviders = "";
-            Set<Group> groups = groupService.collectAncestors(groupService.groupsFor(dataverseRequest));
-            StringBuilder sb = new StringBuilder();
-            for (Group group : groups) {
-                logger.fine("found group " + group.getIdentifier() + " with alias " + group.getAlias());
-                String groupAlias = group.getAlias();
-                if (groupAlias != null && !groupAlias.isEmpty()) {
-                    sb.append(" OR ");
-                    // i.e. group_builtIn/all-users, ip/ipGroup3
-                    sb.append(IndexServiceBean.getGroupPrefix()).append(groupAlias);
-                }
-            }
-            groupsFromProviders = sb.toString();
+            // i.e. group_builtIn/all-users, ip/ipGroup3
+            String groupsFromProviders = getGroupsFromProviders(dataverseRequest);
             logger.fine("groupsFromProviders:" + groupsFromProviders);
             String guestWithGroups = "{!join from=" + SearchFields.DEFINITION_POINT + " to=id}" + SearchFields.DISCOVERABLE_BY + ":(" + IndexServiceBean.getPublicGroupString() + groupsFromProviders + ")";
             logger.fine(guestWithGroups);
@@ -1096,19 +1104,8 @@ public class SearchServiceBean {
          * A JOIN on "permission documents" will determine if the user can find
          * a given "content document" (dataset version, etc) in Solr.
          */
-        String groupsFromProviders = "";
-        Set<Group> groups = groupService.collectAncestors(groupService.groupsFor(dataverseRequest));
-        StringBuilder sb = new StringBuilder();
-        for (Group group : groups) {
-            logger.fine("found group " + group.getIdentifier() + " with alias " + group.getAlias());
-            String groupAlias = group.getAlias();
-            if (groupAlias != null && !groupAlias.isEmpty()) {
-                sb.append(" OR ");
-                // i.e. group_builtIn/all-users, group_builtIn/authenticated-users, group_1-explictGroup1, group_shib/2
-                sb.append(IndexServiceBean.getGroupPrefix() + groupAlias);
-            }
-        }
-        groupsFromProviders = sb.toString();
+        // i.e. group_builtIn/all-users, group_builtIn/authenticated-users, group_1-explictGroup1, group_shib/2
+        String groupsFromProviders = getGroupsFromProviders(dataverseRequest);
 
         logger.fine(groupsFromProviders);
         if (true) {
@@ -1126,5 +1123,38 @@ public class SearchServiceBean {
 
     }
 
+    /**
+     * Finds all the groups of the request (including the explicit groups that
+     * contain them) and lists them as clauses of the permission filter, i.e.
+     * " OR group_builtIn/all-users OR group_ip/ipGroup3". The groups are
+     * sorted by alias, so that the same groups always give the same filter
+     * query, and the filterCache of Solr gets to be used. The result is cached
+     * for a short while per user and source address, as it is needed for
+     * every search and every facet refresh.
+     */
+    private String getGroupsFromProviders(DataverseRequest dataverseRequest) {
+        String cacheKey = dataverseRequest.getUser().getIdentifier() + "@" + dataverseRequest.getSourceAddress();
+        String groupsFromProviders = cacheFactory.getCachedPermissionFilter(cacheKey);
+        if (groupsFromProviders != null) {
+            return groupsFromProviders;
+        }
+
+        Set<String> groupAliases = new TreeSet<>();
+        for (Group group : groupService.collectAncestors(groupService.groupsFor(dataverseRequest))) {
+            logger.fine("found group " + group.getIdentifier() + " with alias " + group.getAlias());
+            String groupAlias = group.getAlias();
+            if (groupAlias != null && !groupAlias.isEmpty()) {
+                groupAliases.add(groupAlias);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String groupAlias : groupAliases) {
+            sb.append(" OR ").append(IndexServiceBean.getGroupPrefix()).append(groupAlias);
+        }
+        groupsFromProviders = sb.toString();
+        cacheFactory.cachePermissionFilter(cacheKey, groupsFromProviders);
+        return groupsFromProviders;
+    }
+
 }
 
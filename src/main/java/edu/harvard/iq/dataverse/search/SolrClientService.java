@@ -8,35 +8,57 @@ package edu.harvard.iq.dataverse.search;
 import edu.harvard.iq.dataverse.settings.JvmSettings;
 import edu.harvard.iq.dataverse.util.SystemConfig;
 import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.impl.Http2SolrClient;
+import org.apache.solr.client.solrj.impl.LBHttp2SolrClient;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.ejb.EJB;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Named;
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  *
  * @author landreev
  * 
- * This singleton is dedicated to initializing the HttpSolrClient used by the 
+ * This singleton is dedicated to initializing the SolrClient used by the 
  * application to talk to the search engine, and serving it to all the other
  * classes that need it. 
  * This ensures that we are using one client only - as recommended by the 
  * documentation. 
+ *
+ * The client is a {@link SolrRoutingClient}, sending the update requests and
+ * the queries through two separate HTTP/2 clients, each with its own connection
+ * pool and timeouts, so that a long reindex cannot starve the searches (or the
+ * other way around). The updates always go to the Solr node configured with
+ * dataverse.solr.host/port (or :SolrHostColonPort). The queries are balanced
+ * over that node and the nodes listed in dataverse.solr.replicas, if any; the
+ * nodes that fail are taken out of the rotation until they answer again.
  */
 @Named
 @Singleton
 public class SolrClientService {
     private static final Logger logger = Logger.getLogger(SolrClientService.class.getCanonicalName());
     
+    static final int DEFAULT_ALIVE_CHECK_INTERVAL_SECONDS = 60;
+
     @EJB
     SystemConfig systemConfig;
     
     private SolrClient solrClient;
+    private SolrClient queryClient;
+    private SolrClient updateClient;
+    // In the order they have to be closed
+    private final List<Closeable> closeables = new ArrayList<>();
     
     @PostConstruct
     public void init() {
@@ -46,20 +68,65 @@ public class SolrClientService {
         String path = JvmSettings.SOLR_PATH.lookup();
         
         String urlString = protocol + "://" + systemConfig.getSolrHostColonPort() + path;
-        solrClient = new HttpSolrClient.Builder(urlString).build();
+        Http2SolrClient http2UpdateClient = buildHttp2Client(urlString,
+                JvmSettings.SOLR_UPDATE_TIMEOUT, JvmSettings.SOLR_UPDATE_MAX_CONNECTIONS);
+        updateClient = http2UpdateClient;
+        closeables.add(http2UpdateClient);
+
+        Set<String> queryUrls = new LinkedHashSet<>();
+        queryUrls.add(urlString);
+        JvmSettings.SOLR_REPLICAS.lookupOptional(String[].class).ifPresent(replicas ->
+            Arrays.stream(replicas)
+                .map(String::trim)
+                .filter(hostColonPort -> !hostColonPort.isEmpty())
+                .forEach(hostColonPort -> queryUrls.add(protocol + "://" + hostColonPort + path)));
+
+        if (queryUrls.size() == 1) {
+            Http2SolrClient http2QueryClient = buildHttp2Client(urlString,
+                    JvmSettings.SOLR_QUERY_TIMEOUT, JvmSettings.SOLR_QUERY_MAX_CONNECTIONS);
+            queryClient = http2QueryClient;
+            closeables.add(http2QueryClient);
+        } else {
+            // The load balancer passes the URL of the chosen node with every request
+            Http2SolrClient http2QueryClient = buildHttp2Client(null,
+                    JvmSettings.SOLR_QUERY_TIMEOUT, JvmSettings.SOLR_QUERY_MAX_CONNECTIONS);
+            LBHttp2SolrClient lbQueryClient = new LBHttp2SolrClient(http2QueryClient, queryUrls.toArray(new String[0]));
+            lbQueryClient.setAliveCheckInterval((int) TimeUnit.SECONDS.toMillis(
+                    JvmSettings.SOLR_ALIVE_CHECK_INTERVAL.lookupOptional(Integer.class).orElse(DEFAULT_ALIVE_CHECK_INTERVAL_SECONDS)));
+            queryClient = lbQueryClient;
+            // The load balancer does not close the client it was given
+            closeables.add(lbQueryClient);
+            closeables.add(http2QueryClient);
+            logger.info("Balancing the Solr queries over " + queryUrls);
+        }
+
+        solrClient = new SolrRoutingClient(queryClient, updateClient);
+    }
+
+    private Http2SolrClient buildHttp2Client(String baseUrl, JvmSettings requestTimeout, JvmSettings maxConnections) {
+        Http2SolrClient.Builder builder = (baseUrl == null) ? new Http2SolrClient.Builder() : new Http2SolrClient.Builder(baseUrl);
+        JvmSettings.SOLR_CONNECTION_TIMEOUT.lookupOptional(Long.class)
+            .ifPresent(timeout -> builder.withConnectionTimeout(timeout, TimeUnit.MILLISECONDS));
+        requestTimeout.lookupOptional(Long.class)
+            .ifPresent(timeout -> builder.withRequestTimeout(timeout, TimeUnit.MILLISECONDS));
+        maxConnections.lookupOptional(Integer.class)
+            .ifPresent(builder::withMaxConnectionsPerHost);
+        return builder.build();
     }
     
     @PreDestroy
     public void close() {
-        if (solrClient != null) {
+        for (Closeable closeable : closeables) {
             try {
-                solrClient.close();
+                closeable.close();
             } catch (IOException e) {
                 logger.warning("Solr closing error: " + e);
             }
-
-            solrClient = null;
         }
+        closeables.clear();
+        solrClient = null;
+        queryClient = null;
+        updateClient = null;
     }
 
     public SolrClient getSolrClient() {
@@ -70,8 +137,21 @@ public class SolrClientService {
         return solrClient;
     }
 
+    /**
+     * Uses the same client for all the requests, i.e. a mock in tests.
+     */
     public void setSolrClient(SolrClient solrClient) {
         this.solrClient = solrClient;
+        this.queryClient = solrClient;
+        this.updateClient = solrClient;
+    }
+
+    SolrClient getQueryClient() {
+        return queryClient;
+    }
+
+    SolrClient getUpdateClient() {
+        return updateClient;
     }
     
     public void reInitialize() {
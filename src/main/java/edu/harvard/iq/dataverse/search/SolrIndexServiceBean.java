@@ -318,6 +318,10 @@ public class SolrIndexServiceBean {
     }
 
     public IndexResponse indexPermissionsForOneDvObject(DvObject dvObject) {
+        return indexPermissionsForOneDvObject(dvObject, null);
+    }
+
+    private IndexResponse indexPermissionsForOneDvObject(DvObject dvObject, SolrUpdateBatch batch) {
         if (dvObject == null) {
             return new IndexResponse("problem indexing... null DvObject passed in");
         }
@@ -331,7 +335,7 @@ public class SolrIndexServiceBean {
             docs.add(solrInputDocument);
         }
         try {
-            persistToSolr(docs);
+            persistToSolr(docs, batch);
             boolean updatePermissionTimeSuccessful = false;
             if (dvObject != null) {
                 DvObject savedDvObject = dvObjectService.updatePermissionIndexTime(dvObject);
@@ -347,11 +351,23 @@ public class SolrIndexServiceBean {
     }
 
     private void persistToSolr(Collection<SolrInputDocument> docs) throws SolrServerException, IOException {
+        persistToSolr(docs, null);
+    }
+
+    /**
+     * @param batch Where to add the documents; if null, they are sent and
+     * committed right away.
+     */
+    private void persistToSolr(Collection<SolrInputDocument> docs, SolrUpdateBatch batch) throws SolrServerException, IOException {
         if (docs.isEmpty()) {
             // This method is routinely called with an empty list of docs.
             logger.fine("nothing to persist");
             return;
         }
+        if (batch != null) {
+            batch.add(docs);
+            return;
+        }
         logger.fine("persisting to Solr...");
         /**
          * @todo Do something with these responses from Solr.
@@ -375,6 +391,14 @@ public class SolrIndexServiceBean {
      * inheritance
      */
     public IndexResponse indexPermissionsOnSelfAndChildren(DvObject definitionPoint) {
+        return indexPermissionsOnSelfAndChildren(definitionPoint, null);
+    }
+
+    /**
+     * As {@link #indexPermissionsOnSelfAndChildren(edu.harvard.iq.dataverse.DvObject)},
+     * adding the Solr documents to the batch, if not null.
+     */
+    public IndexResponse indexPermissionsOnSelfAndChildren(DvObject definitionPoint, SolrUpdateBatch batch) {
         List<DvObject> dvObjectsToReindexPermissionsFor = new ArrayList<>();
         List<DataFile> filesToReindexAsBatch = new ArrayList<>();
         /**
@@ -413,13 +437,13 @@ public class SolrIndexServiceBean {
          * @todo Should update timestamps, probably, even thought these are
          * files, see https://github.com/IQSS/dataverse/issues/2421
          */
-        String response = reindexFilesInBatches(filesToReindexAsBatch);
+        String response = reindexFilesInBatches(filesToReindexAsBatch, batch);
 
         for (DvObject dvObject : dvObjectsToReindexPermissionsFor) {
             /**
              * @todo do something with this response
              */
-            IndexResponse indexResponse = indexPermissionsForOneDvObject(dvObject);
+            IndexResponse indexResponse = indexPermissionsForOneDvObject(dvObject, batch);
         }
         
         return new IndexResponse("Number of dvObject permissions indexed for " + definitionPoint
@@ -427,7 +451,7 @@ public class SolrIndexServiceBean {
         );
     }
 
-    private String reindexFilesInBatches(List<DataFile> filesToReindexPermissionsFor) {
+    private String reindexFilesInBatches(List<DataFile> filesToReindexPermissionsFor, SolrUpdateBatch batch) {
         List<SolrInputDocument> docs = new ArrayList<>();
         Map<Long, List<Long>> byParentId = new HashMap<>();
         Map<Long, List<String>> permStringByDatasetVersion = new HashMap<>();
@@ -471,7 +495,7 @@ public class SolrIndexServiceBean {
             }
         }
         try {
-            persistToSolr(docs);
+            persistToSolr(docs, batch);
             return " " + filesToReindexPermissionsFor.size() + " files indexed across " + docs.size() + " Solr documents ";
         } catch (SolrServerException | IOException ex) {
             return " tried to reindex " + filesToReindexPermissionsFor.size() + " files indexed across " + docs.size() + " Solr documents but caught exception: " + ex;
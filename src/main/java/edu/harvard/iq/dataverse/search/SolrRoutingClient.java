@@ -0,0 +1,42 @@
+package edu.harvard.iq.dataverse.search;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.IOException;
+
+/**
+ * A SolrClient sending the update requests (adds, deletes, commits) through
+ * one client, and everything else (queries, pings, ...) through another. This
+ * way the rest of the application keeps using a single SolrClient, while the
+ * two kinds of traffic get separate connection pools and timeouts.
+ *
+ * Closing this client does not close the two underlying ones; they are owned
+ * by {@link SolrClientService}.
+ */
+public class SolrRoutingClient extends SolrClient {
+
+    private final SolrClient queryClient;
+    private final SolrClient updateClient;
+
+    public SolrRoutingClient(SolrClient queryClient, SolrClient updateClient) {
+        this.queryClient = queryClient;
+        this.updateClient = updateClient;
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest<?> request, String collection) throws SolrServerException, IOException {
+        return clientFor(request).request(request, collection);
+    }
+
+    SolrClient clientFor(SolrRequest<?> request) {
+        return (request instanceof AbstractUpdateRequest) ? updateClient : queryClient;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,277 @@
+package edu.harvard.iq.dataverse.search;
+
+import edu.harvard.iq.dataverse.settings.JvmSettings;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Collects the Solr documents produced while (re)indexing many objects, and
+ * sends them to Solr in batches, instead of one update request - and one
+ * commit - per object. A batch is sent once it holds the configured number of
+ * documents, or once its oldest document has waited for the configured time.
+ *
+ * The batches are sent with commitWithin, leaving it to Solr to make them
+ * visible (through a soft commit) within that time; {@link #finish()} sends
+ * whatever is left and commits once at the end.
+ *
+ * Meant for the batch reindexing (see {@link IndexBatchServiceBean}); the
+ * objects indexed as a result of a user action are still committed right
+ * away, so that the changes show up in the search results immediately. A batch
+ * may be shared by several threads.
+ *
+ * The datasets whose documents went into the batch are tracked with
+ * {@link #addDataset(Long, long)}: a dataset only counts as indexed once every
+ * batch holding one of its documents has been sent, and as failed as soon as
+ * one of them could not be sent (see {@link #takeSentDatasetIds()} and
+ * {@link #takeFailedDatasetIds()}).
+ */
+public class SolrUpdateBatch {
+
+    private static final Logger logger = Logger.getLogger(SolrUpdateBatch.class.getCanonicalName());
+
+    static final int DEFAULT_MAX_DOCUMENTS = 1000;
+    static final long DEFAULT_MAX_DELAY_MILLIS = 10000;
+    static final int DEFAULT_COMMIT_WITHIN_MILLIS = 30000;
+
+    private final SolrClient solrClient;
+    private final int maxDocuments;
+    private final long maxDelayMillis;
+    private final int commitWithinMillis;
+    private final long startTime = System.currentTimeMillis();
+
+    private List<SolrInputDocument> pending = new ArrayList<>();
+    private long pendingSince;
+
+    // Each batch taken to be sent gets the next generation number; the
+    // generation is the one of the batch being filled
+    private long generation;
+    private final Set<Long> completedGenerations = new HashSet<>();
+    private final Set<Long> failedGenerations = new HashSet<>();
+    private final List<DatasetEntry> datasets = new ArrayList<>();
+    private List<Long> sentDatasetIds = new ArrayList<>();
+    private List<Long> failedDatasetIds = new ArrayList<>();
+
+    private final AtomicLong documentsSent = new AtomicLong();
+    private final AtomicLong documentsFailed = new AtomicLong();
+    private final AtomicLong requestsSent = new AtomicLong();
+
+    public SolrUpdateBatch(SolrClient solrClient, int maxDocuments, long maxDelayMillis, int commitWithinMillis) {
+        this.solrClient = solrClient;
+        this.maxDocuments = maxDocuments;
+        this.maxDelayMillis = maxDelayMillis;
+        this.commitWithinMillis = commitWithinMillis;
+    }
+
+    /**
+     * @return a batch with the limits configured with the
+     * dataverse.solr.batch.* settings
+     */
+    public static SolrUpdateBatch fromSettings(SolrClient solrClient) {
+        return new SolrUpdateBatch(solrClient,
+                JvmSettings.SOLR_BATCH_MAX_DOCUMENTS.lookupOptional(Integer.class).orElse(DEFAULT_MAX_DOCUMENTS),
+                JvmSettings.SOLR_BATCH_MAX_DELAY.lookupOptional(Long.class).orElse(DEFAULT_MAX_DELAY_MILLIS),
+                JvmSettings.SOLR_BATCH_COMMIT_WITHIN.lookupOptional(Integer.class).orElse(DEFAULT_COMMIT_WITHIN_MILLIS));
+    }
+
+    /**
+     * Adds the documents to the batch, and sends the batch if it is full, or
+     * old enough. If sending the batch fails, its documents are dropped, and
+     * counted as failed.
+     */
+    public void add(Collection<SolrInputDocument> docs) throws SolrServerException, IOException {
+        if (docs.isEmpty()) {
+            return;
+        }
+        List<SolrInputDocument> toSend = null;
+        long toSendGeneration = 0;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (pending.isEmpty()) {
+                pendingSince = now;
+            }
+            pending.addAll(docs);
+            if (pending.size() >= maxDocuments || now - pendingSince >= maxDelayMillis) {
+                toSendGeneration = generation;
+                toSend = takePending();
+            }
+        }
+        // Sent outside of the lock, so that the other threads can keep adding
+        if (toSend != null) {
+            send(toSend, toSendGeneration);
+        }
+    }
+
+    /**
+     * @return the generation of the batch being filled; to be passed to
+     * {@link #addDataset(Long, long)} once the documents of a dataset have
+     * been added
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Records that the documents of a dataset have all been added, to the
+     * batches from the given generation (taken before adding the first one)
+     * to the current one.
+     */
+    public synchronized void addDataset(Long datasetId, long firstGeneration) {
+        datasets.add(new DatasetEntry(datasetId, firstGeneration, generation));
+        resolveDatasets();
+    }
+
+    /**
+     * @return the ids of the datasets whose documents have all been sent
+     * since the last call
+     */
+    public synchronized List<Long> takeSentDatasetIds() {
+        List<Long> taken = sentDatasetIds;
+        sentDatasetIds = new ArrayList<>();
+        return taken;
+    }
+
+    /**
+     * @return the ids of the datasets with documents that could not be sent,
+     * since the last call
+     */
+    public synchronized List<Long> takeFailedDatasetIds() {
+        List<Long> taken = failedDatasetIds;
+        failedDatasetIds = new ArrayList<>();
+        return taken;
+    }
+
+    /**
+     * Sends the documents collected so far.
+     */
+    public void flush() throws SolrServerException, IOException {
+        List<SolrInputDocument> toSend;
+        long toSendGeneration;
+        synchronized (this) {
+            toSendGeneration = generation;
+            toSend = takePending();
+            if (toSend.isEmpty()) {
+                // Nothing to send, but the datasets added since are done
+                complete(toSendGeneration, true);
+                return;
+            }
+        }
+        send(toSend, toSendGeneration);
+    }
+
+    /**
+     * Sends the documents collected so far, and commits.
+     */
+    public void finish() throws SolrServerException, IOException {
+        flush();
+        solrClient.commit();
+        logger.info("Finished the Solr update batch: " + this);
+    }
+
+    private List<SolrInputDocument> takePending() {
+        List<SolrInputDocument> taken = pending;
+        pending = new ArrayList<>();
+        generation++;
+        return taken;
+    }
+
+    private void send(List<SolrInputDocument> docs, long docsGeneration) throws SolrServerException, IOException {
+        try {
+            solrClient.add(docs, commitWithinMillis);
+            documentsSent.addAndGet(docs.size());
+            requestsSent.incrementAndGet();
+            logger.fine("Sent " + docs.size() + " documents to Solr. " + this);
+        } catch (SolrServerException | IOException | RuntimeException ex) {
+            documentsFailed.addAndGet(docs.size());
+            logger.warning("Failed to send " + docs.size() + " documents to Solr: " + ex);
+            synchronized (this) {
+                complete(docsGeneration, false);
+            }
+            throw ex;
+        }
+        synchronized (this) {
+            complete(docsGeneration, true);
+        }
+    }
+
+    private void complete(long completedGeneration, boolean sent) {
+        completedGenerations.add(completedGeneration);
+        if (!sent) {
+            failedGenerations.add(completedGeneration);
+        }
+        resolveDatasets();
+    }
+
+    /**
+     * Moves the datasets whose batches have all been sent, or of which one
+     * failed, to the sent or failed ids. The batches may complete out of
+     * order, since they are sent outside of the lock.
+     */
+    private void resolveDatasets() {
+        for (Iterator<DatasetEntry> it = datasets.iterator(); it.hasNext();) {
+            DatasetEntry entry = it.next();
+            boolean done = true;
+            boolean failed = false;
+            for (long g = entry.firstGeneration; g <= entry.lastGeneration; g++) {
+                done &= completedGenerations.contains(g);
+                failed |= failedGenerations.contains(g);
+            }
+            if (failed) {
+                failedDatasetIds.add(entry.datasetId);
+                it.remove();
+            } else if (done) {
+                sentDatasetIds.add(entry.datasetId);
+                it.remove();
+            }
+        }
+    }
+
+    public long getDocumentsSent() {
+        return documentsSent.get();
+    }
+
+    public long getDocumentsFailed() {
+        return documentsFailed.get();
+    }
+
+    public long getRequestsSent() {
+        return requestsSent.get();
+    }
+
+    /**
+     * @return the number of documents sent per second, since the batch was created
+     */
+    public double getDocumentsPerSecond() {
+        long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+        return documentsSent.get() * 1000.0 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return documentsSent.get() + " documents sent to Solr in " + requestsSent.get() + " requests ("
+                + String.format("%.1f", getDocumentsPerSecond()) + " documents/second), "
+                + documentsFailed.get() + " failed";
+    }
+
+    private static class DatasetEntry {
+        private final Long datasetId;
+        private final long firstGeneration;
+        private final long lastGeneration;
+
+        DatasetEntry(Long datasetId, long firstGeneration, long lastGeneration) {
+            this.datasetId = datasetId;
+            this.firstGeneration = firstGeneration;
+            this.lastGeneration = lastGeneration;
+        }
+    }
+}
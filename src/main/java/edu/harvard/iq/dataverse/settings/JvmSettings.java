@@ -51,6 +51,7 @@ public enum JvmSettings {
     DOCROOT_DIRECTORY(SCOPE_FILES, "docroot"),
     GUESTBOOK_AT_REQUEST(SCOPE_FILES, "guestbook-at-request"),
     GLOBUS_CACHE_MAXAGE(SCOPE_FILES, "globus-cache-maxage"),
+    FILES_ZIP_PREFETCH(SCOPE_FILES, "zip-prefetch"),
 
     //STORAGE DRIVER SETTINGS
     SCOPE_DRIVER(SCOPE_FILES),
@@ -63,6 +64,22 @@ public enum JvmSettings {
     SOLR_PROT(SCOPE_SOLR, "protocol"),
     SOLR_CORE(SCOPE_SOLR, "core"),
     SOLR_PATH(SCOPE_SOLR, "path"),
+    SOLR_REPLICAS(SCOPE_SOLR, "replicas"),
+
+    // SOLR CLIENT SETTINGS
+    SCOPE_SOLR_CLIENT(SCOPE_SOLR, "client"),
+    SOLR_CONNECTION_TIMEOUT(SCOPE_SOLR_CLIENT, "connection-timeout"),
+    SOLR_QUERY_TIMEOUT(SCOPE_SOLR_CLIENT, "query-timeout"),
+    SOLR_UPDATE_TIMEOUT(SCOPE_SOLR_CLIENT, "update-timeout"),
+    SOLR_QUERY_MAX_CONNECTIONS(SCOPE_SOLR_CLIENT, "query-max-connections"),
+    SOLR_UPDATE_MAX_CONNECTIONS(SCOPE_SOLR_CLIENT, "update-max-connections"),
+    SOLR_ALIVE_CHECK_INTERVAL(SCOPE_SOLR_CLIENT, "alive-check-interval"),
+
+    // SOLR BATCH INDEXING SETTINGS
+    SCOPE_SOLR_BATCH(SCOPE_SOLR, "batch"),
+    SOLR_BATCH_MAX_DOCUMENTS(SCOPE_SOLR_BATCH, "max-documents"),
+    SOLR_BATCH_MAX_DELAY(SCOPE_SOLR_BATCH, "max-delay"),
+    SOLR_BATCH_COMMIT_WITHIN(SCOPE_SOLR_BATCH, "commit-within"),
 
     // INDEX CONCURENCY
     SCOPE_SOLR_CONCURENCY(SCOPE_SOLR, "concurrency"),
@@ -76,6 +93,22 @@ public enum JvmSettings {
     RSERVE_PASSWORD(SCOPE_RSERVE, "password"),
     RSERVE_TEMPDIR(SCOPE_RSERVE, "tempdir"),
     
+    // INGEST SETTINGS
+    SCOPE_INGEST(PREFIX, "ingest"),
+    INGEST_MAX_VALUES_PER_PASS(SCOPE_INGEST, "max-values-per-pass"),
+    INGEST_STATISTICS_PARALLELISM(SCOPE_INGEST, "statistics-parallelism"),
+    INGEST_COLUMNAR_COPY(SCOPE_INGEST, "columnar-copy"),
+    INGEST_ROW_INDEX_INTERVAL(SCOPE_INGEST, "row-index-interval"),
+    INGEST_PRECONVERT_FORMATS(SCOPE_INGEST, "preconvert-formats"),
+
+    // HARVESTING CLIENT SETTINGS
+    SCOPE_HARVEST(PREFIX, "harvest"),
+    SCOPE_HARVEST_CLIENT(SCOPE_HARVEST, "client"),
+    HARVEST_CLIENT_CONCURRENT_REQUESTS(SCOPE_HARVEST_CLIENT, "concurrent-requests"),
+    HARVEST_CLIENT_REQUESTS_PER_SECOND(SCOPE_HARVEST_CLIENT, "requests-per-second"),
+    HARVEST_CLIENT_USE_LIST_RECORDS(SCOPE_HARVEST_CLIENT, "use-list-records"),
+    HARVEST_CLIENT_IMPORT_BATCH_SIZE(SCOPE_HARVEST_CLIENT, "import-batch-size"),
+    
     // API SETTINGS
     SCOPE_API(PREFIX, "api"),
     API_SIGNING_SECRET(SCOPE_API, "signing-secret"),
@@ -188,6 +221,10 @@ public enum JvmSettings {
     LEGACY_HANDLENET_KEY_PATH(SCOPE_LEGACY_PID_HANDLENET_KEY, "path", "dataverse.handlenet.admcredfile"),
     LEGACY_HANDLENET_KEY_PASSPHRASE(SCOPE_LEGACY_PID_HANDLENET_KEY, "passphrase", "dataverse.handlenet.admprivphrase"),
 
+    // EXPORT SETTINGS
+    SCOPE_EXPORT(PREFIX, "export"),
+    EXPORT_CONCURRENT_EXPORTERS(SCOPE_EXPORT, "concurrent-exporters"),
+    
     // SPI SETTINGS
     SCOPE_SPI(PREFIX, "spi"),
     SCOPE_EXPORTERS(SCOPE_SPI, "exporters"),
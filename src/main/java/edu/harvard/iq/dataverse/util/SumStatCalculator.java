@@ -59,6 +59,28 @@ public class SumStatCalculator {
         double[] newx = prepareForSummaryStatsAlternative(x, x.length - invalid);
         logger.fine("prepared double vector for summary stats calculation ("+newx.length+" double values);");        
         
+        return fillSummaryStatistics(nx, newx);
+    }
+    
+    /**
+     * Same as above, for a vector that has already been reduced to its valid
+     * values; i.e., with the nulls (missing values) and NaNs removed, without
+     * boxing. 
+     * @param validValues the valid values of the vector
+     * @param totalCount the total number of values in the vector, including
+     * the invalid ones
+     */
+    public static double[] calculateSummaryStatistics(double[] validValues, int totalCount) {
+        logger.fine("entering calculate summary statistics ("+validValues.length+" valid double values);");
+        
+        double[] nx = new double[8];
+        nx[4] = totalCount - validValues.length;
+        nx[3] = validValues.length;
+        
+        return fillSummaryStatistics(nx, validValues);
+    }
+    
+    private static double[] fillSummaryStatistics(double[] nx, double[] newx) {
         ////nx[0] = StatUtils.mean(newx);
         nx[0] = calculateMean(newx);
         logger.fine("calculated mean: "+nx[0]);
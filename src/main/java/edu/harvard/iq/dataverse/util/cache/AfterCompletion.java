@@ -0,0 +1,40 @@
+package edu.harvard.iq.dataverse.util.cache;
+
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs code once the current transaction has completed, e.g. to drop again
+ * what was cached from the not yet committed state in the meantime.
+ */
+public class AfterCompletion {
+
+    private AfterCompletion() {
+    }
+
+    /**
+     * @param transactionRegistry The registry of the container; may be null,
+     * e.g. in unit tests.
+     * @param callback Called with the status of the transaction (see
+     * {@link jakarta.transaction.Status}) once it has completed.
+     * @return false, without registering the callback, if there is no current
+     * transaction.
+     */
+    public static boolean register(TransactionSynchronizationRegistry transactionRegistry, IntConsumer callback) {
+        if (transactionRegistry == null || transactionRegistry.getTransactionKey() == null) {
+            return false;
+        }
+        transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status);
+            }
+        });
+        return true;
+    }
+}
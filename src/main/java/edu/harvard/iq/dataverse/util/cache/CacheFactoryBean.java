@@ -1,20 +1,34 @@
 package edu.harvard.iq.dataverse.util.cache;
 
+import edu.harvard.iq.dataverse.authorization.Permission;
+import edu.harvard.iq.dataverse.authorization.groups.impl.explicit.ExplicitGroupGraph;
+import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.IpGroupIndex;
 import edu.harvard.iq.dataverse.authorization.users.User;
 import edu.harvard.iq.dataverse.engine.command.Command;
 import edu.harvard.iq.dataverse.util.SystemConfig;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import jakarta.ejb.EJB;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.ejb.Startup;
 import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 
 import javax.cache.Cache;
 import javax.cache.CacheManager;
 import javax.cache.configuration.CompleteConfiguration;
 import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
 import javax.cache.spi.CachingProvider;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 @Singleton
 @Startup
@@ -22,13 +36,25 @@ public class CacheFactoryBean implements java.io.Serializable {
     private static final Logger logger = Logger.getLogger(CacheFactoryBean.class.getCanonicalName());
     // Retrieved from Hazelcast, implements ConcurrentMap and is threadsafe
     Cache<String, String> rateLimitCache;
+    // Permissions granted by role assignments, see PermissionServiceBean
+    Cache<String, String> permissionCache;
+    // Group part of the Solr permission filter of the searches, see SearchServiceBean
+    Cache<String, String> permissionFilterCache;
+    // Local to this node, rebuilt after a minute even when not invalidated,
+    // to pick up the changes made on the other nodes of a cluster
+    final LocalCachedValue<IpGroupIndex> ipGroupIndex = new LocalCachedValue<>(TimeUnit.MINUTES.toMillis(1));
+    final LocalCachedValue<ExplicitGroupGraph> explicitGroupGraph = new LocalCachedValue<>(TimeUnit.MINUTES.toMillis(1));
     @EJB
     SystemConfig systemConfig;
     @Inject
     CacheManager manager;
     @Inject
     CachingProvider provider;
+    @Resource
+    TransactionSynchronizationRegistry transactionRegistry;
     public final static String RATE_LIMIT_CACHE = "rateLimitCache";
+    public final static String PERMISSION_CACHE = "permissionCache";
+    public final static String PERMISSION_FILTER_CACHE = "permissionFilterCache";
 
     @PostConstruct
     public void init() {
@@ -39,6 +65,26 @@ public class CacheFactoryBean implements java.io.Serializable {
                             .setTypes( String.class, String.class );
             rateLimitCache = manager.createCache(RATE_LIMIT_CACHE, config);
         }
+        permissionCache = manager.getCache(PERMISSION_CACHE);
+        if (permissionCache == null) {
+            // The entries expire on their own as well, as a safety net for the
+            // changes made without going through invalidatePermissions()
+            CompleteConfiguration<String, String> config =
+                    new MutableConfiguration<String, String>()
+                            .setTypes( String.class, String.class )
+                            .setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(Duration.TEN_MINUTES));
+            permissionCache = manager.createCache(PERMISSION_CACHE, config);
+        }
+        permissionFilterCache = manager.getCache(PERMISSION_FILTER_CACHE);
+        if (permissionFilterCache == null) {
+            // Short lived: the groups also depend on things we are not told
+            // about, such as the email address or affiliation of the user
+            CompleteConfiguration<String, String> config =
+                    new MutableConfiguration<String, String>()
+                            .setTypes( String.class, String.class )
+                            .setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(Duration.ONE_MINUTE));
+            permissionFilterCache = manager.createCache(PERMISSION_FILTER_CACHE, config);
+        }
     }
 
     /**
@@ -57,4 +103,119 @@ public class CacheFactoryBean implements java.io.Serializable {
             return (!RateLimitUtil.rateLimited(rateLimitCache, cacheKey, capacity));
         }
     }
+
+    /**
+     * Looks up the permissions granted by the role assignments cached under
+     * the key.
+     * @param key see PermissionServiceBean
+     * @return the permissions, or null if nothing is cached for the key
+     */
+    @Lock(LockType.READ)
+    public Set<Permission> getCachedPermissions(String key) {
+        String value = permissionCache.get(key);
+        if (value == null) {
+            return null;
+        }
+        Set<Permission> permissions = EnumSet.noneOf(Permission.class);
+        for (String name : value.split(",")) {
+            if (!name.isEmpty()) {
+                permissions.add(Permission.valueOf(name));
+            }
+        }
+        return permissions;
+    }
+
+    @Lock(LockType.READ)
+    public void cachePermissions(String key, Set<Permission> permissions) {
+        permissionCache.put(key, permissions.stream().map(Permission::name).collect(Collectors.joining(",")));
+    }
+
+    /**
+     * Drops all the cached permissions, on all the nodes of the cluster. To be
+     * called whenever role assignments, roles or group memberships change.
+     * When called within a transaction, the cache is cleared once more after
+     * the transaction completes, so that the permissions looked up by other
+     * requests in the meantime, from the not yet committed state, don't stay
+     * in the cache.
+     */
+    @Lock(LockType.READ)
+    public void invalidatePermissions() {
+        clearNowAndAfterTransaction(permissionCache);
+    }
+
+    /**
+     * @param key see SearchServiceBean
+     * @return the cached group part of the permission filter, or null if
+     * nothing is cached for the key
+     */
+    @Lock(LockType.READ)
+    public String getCachedPermissionFilter(String key) {
+        return permissionFilterCache.get(key);
+    }
+
+    @Lock(LockType.READ)
+    public void cachePermissionFilter(String key, String filter) {
+        permissionFilterCache.put(key, filter);
+    }
+
+    /**
+     * Drops all the cached search permission filters, on all the nodes of the
+     * cluster. To be called whenever groups or group memberships change; as
+     * with {@link #invalidatePermissions()}, the cache is cleared once more
+     * after the transaction completes.
+     */
+    @Lock(LockType.READ)
+    public void invalidatePermissionFilters() {
+        clearNowAndAfterTransaction(permissionFilterCache);
+    }
+
+    /**
+     * @param builder Builds the index, if it was invalidated, or is too old.
+     * @return The index of the IP groups, see IpGroupsServiceBean
+     */
+    @Lock(LockType.READ)
+    public IpGroupIndex getIpGroupIndex(Supplier<IpGroupIndex> builder) {
+        return ipGroupIndex.get(builder);
+    }
+
+    /**
+     * Drops the index of the IP groups, now and once the current transaction
+     * has completed, so that a rebuild running concurrently with the commit
+     * cannot keep the old ranges.
+     */
+    @Lock(LockType.READ)
+    public void invalidateIpGroupIndex() {
+        invalidateNowAndAfterTransaction(ipGroupIndex);
+    }
+
+    /**
+     * @param builder Loads the graph, if it was invalidated, or is too old.
+     * @return The containment graph of the explicit groups, see
+     * ExplicitGroupServiceBean
+     */
+    @Lock(LockType.READ)
+    public ExplicitGroupGraph getExplicitGroupGraph(Supplier<ExplicitGroupGraph> builder) {
+        return explicitGroupGraph.get(builder);
+    }
+
+    /**
+     * Drops the containment graph of the explicit groups, now and once the
+     * current transaction has completed, as with {@link #invalidateIpGroupIndex()}.
+     */
+    @Lock(LockType.READ)
+    public void invalidateExplicitGroupGraph() {
+        invalidateNowAndAfterTransaction(explicitGroupGraph);
+    }
+
+    private void clearNowAndAfterTransaction(Cache<String, String> cache) {
+        cache.clear();
+        AfterCompletion.register(transactionRegistry, status -> cache.clear());
+    }
+
+    private void invalidateNowAndAfterTransaction(LocalCachedValue<?> value) {
+        if (AfterCompletion.register(transactionRegistry, status -> value.changeCompleted())) {
+            value.changeStarted();
+        }
+        value.drop();
+    }
 }
@@ -0,0 +1,75 @@
+package edu.harvard.iq.dataverse.util.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A value built from the database and kept in memory on this node, such as
+ * the index of the IP groups. It is dropped when the data it is built from
+ * changes (see {@link CacheFactoryBean}), and rebuilt after a maximum age
+ * anyway, to pick up the changes made on the other nodes of a cluster.
+ *
+ * @param <T> The type of the value; must not be modified once built.
+ */
+public class LocalCachedValue<T> {
+
+    private final long maxAgeMillis;
+
+    private volatile Entry<T> entry;
+
+    /** Bumped whenever the value is dropped, so that a rebuild that raced with it is not kept. */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** Transactions that changed the data and have not completed yet; their changes are not visible to the others. */
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+
+    public LocalCachedValue(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * @param builder Builds the value, if there is none, or it is too old.
+     * @return The value.
+     */
+    public T get(Supplier<T> builder) {
+        Entry<T> current = entry;
+        if ( current != null && System.currentTimeMillis() - current.buildTime <= maxAgeMillis ) {
+            return current.value;
+        }
+        long buildGeneration = generation.get();
+        current = new Entry<>(builder.get());
+        // Not cached while a change is being committed: it may have been read
+        // before the commit, or include the uncommitted change itself.
+        if ( pendingChanges.get() == 0 && generation.get() == buildGeneration ) {
+            entry = current;
+        }
+        return current.value;
+    }
+
+    /**
+     * Drops the value; it is rebuilt on the next lookup.
+     */
+    public void drop() {
+        generation.incrementAndGet();
+        entry = null;
+    }
+
+    void changeStarted() {
+        pendingChanges.incrementAndGet();
+    }
+
+    void changeCompleted() {
+        pendingChanges.decrementAndGet();
+        drop();
+    }
+
+    private static class Entry<T> {
+        private final T value;
+        private final long buildTime = System.currentTimeMillis();
+
+        Entry(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- OAI ListRecords/ListIdentifiers pages are read in order of the global id, within a set
+CREATE INDEX IF NOT EXISTS index_oairecord_setname_globalid ON oairecord (setname, globalid);
@@ -9,6 +9,7 @@ import java.net.URI;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -199,4 +200,31 @@ public class DatasetVersionTest {
         assertEquals("LibraScholar", obj.getJsonObject("includedInDataCatalog").getString("name"));
     }
 
+    @Test
+    public void testContainsDataFile() {
+        DatasetVersion datasetVersion = new DatasetVersion();
+        List<FileMetadata> fileMetadatas = new ArrayList<>();
+        for (long id : new long[]{42L, 7L, 19L}) {
+            DataFile dataFile = new DataFile();
+            dataFile.setId(id);
+            FileMetadata fileMetadata = new FileMetadata();
+            fileMetadata.setDataFile(dataFile);
+            fileMetadatas.add(fileMetadata);
+        }
+        datasetVersion.setFileMetadatas(fileMetadatas);
+
+        DataFile inVersion = new DataFile();
+        inVersion.setId(19L);
+        DataFile notInVersion = new DataFile();
+        notInVersion.setId(8L);
+        assertTrue(datasetVersion.containsDataFile(inVersion));
+        assertFalse(datasetVersion.containsDataFile(notInVersion));
+
+        // files added to the version are picked up:
+        FileMetadata added = new FileMetadata();
+        added.setDataFile(notInVersion);
+        datasetVersion.getFileMetadatas().add(added);
+        assertTrue(datasetVersion.containsDataFile(notInVersion));
+    }
+
 }
@@ -0,0 +1,47 @@
+package edu.harvard.iq.dataverse.authorization.groups.impl.explicit;
+
+import edu.harvard.iq.dataverse.authorization.groups.impl.builtin.AuthenticatedUsers;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExplicitGroupGraphTest {
+
+    @Test
+    public void testFindClosure() {
+        ExplicitGroupGraph sut = new ExplicitGroupGraph();
+        // 3 is in 2 and 4, 2 is in 1.
+        sut.addGroupContainment(3L, 2L);
+        sut.addGroupContainment(3L, 4L);
+        sut.addGroupContainment(2L, 1L);
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L), sut.findClosure(List.of(3L)));
+        assertEquals(Set.of(1L, 2L), sut.findClosure(List.of(2L)));
+        assertEquals(Set.of(5L), sut.findClosure(List.of(5L)));
+    }
+
+    @Test
+    public void testFindClosureWithCycle() {
+        ExplicitGroupGraph sut = new ExplicitGroupGraph();
+        sut.addGroupContainment(1L, 2L);
+        sut.addGroupContainment(2L, 1L);
+
+        assertEquals(Set.of(1L, 2L), sut.findClosure(List.of(1L)));
+    }
+
+    @Test
+    public void testFindAncestorIds() {
+        ExplicitGroupGraph sut = new ExplicitGroupGraph();
+        sut.addRoleAssigneeContainment(AuthenticatedUsers.get().getIdentifier(), 2L);
+        sut.addGroupContainment(2L, 1L);
+        ExplicitGroup group = new ExplicitGroup();
+        group.setId(3L);
+        sut.addGroupContainment(3L, 4L);
+
+        assertEquals(Set.of(1L, 2L), sut.findAncestorIds(List.of(AuthenticatedUsers.get())));
+        assertEquals(Set.of(1L, 2L, 4L), sut.findAncestorIds(List.of(AuthenticatedUsers.get(), group)));
+        assertEquals(Set.of(), sut.findAncestorIds(List.of()));
+    }
+}
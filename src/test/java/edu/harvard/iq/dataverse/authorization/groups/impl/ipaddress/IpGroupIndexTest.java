@@ -0,0 +1,79 @@
+package edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress;
+
+import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IpAddress;
+import edu.harvard.iq.dataverse.authorization.groups.impl.ipaddress.ip.IpAddressRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IpGroupIndexTest {
+
+    @Test
+    public void testFindAllIncludingIp() {
+        IpGroup campus = makeGroup(1L,
+                IpAddressRange.make(IpAddress.valueOf("10.0.0.0"), IpAddress.valueOf("10.255.255.255")),
+                IpAddressRange.make(IpAddress.valueOf("2001:db8:0:0:0:0:0:0"), IpAddress.valueOf("2001:db8:ffff:ffff:ffff:ffff:ffff:ffff")));
+        IpGroup library = makeGroup(2L,
+                IpAddressRange.make(IpAddress.valueOf("10.1.2.0"), IpAddress.valueOf("10.1.2.255")));
+        IpGroup single = makeGroup(3L,
+                IpAddressRange.makeSingle(IpAddress.valueOf("192.168.0.1")));
+
+        IpGroupIndex sut = IpGroupIndex.build(List.of(campus, library, single));
+
+        assertEquals(Set.of(campus, library), sut.findAllIncludingIp(IpAddress.valueOf("10.1.2.3")));
+        assertEquals(Set.of(campus), sut.findAllIncludingIp(IpAddress.valueOf("10.1.3.3")));
+        assertEquals(Set.of(campus), sut.findAllIncludingIp(IpAddress.valueOf("10.255.255.255")));
+        assertEquals(Set.of(single), sut.findAllIncludingIp(IpAddress.valueOf("192.168.0.1")));
+        assertEquals(Collections.emptySet(), sut.findAllIncludingIp(IpAddress.valueOf("192.168.0.2")));
+        assertEquals(Set.of(campus), sut.findAllIncludingIp(IpAddress.valueOf("2001:db8:0:0:0:0:0:1")));
+        assertEquals(Collections.emptySet(), sut.findAllIncludingIp(IpAddress.valueOf("2001:db9:0:0:0:0:0:1")));
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        IpGroupIndex sut = IpGroupIndex.build(Collections.emptyList());
+        assertEquals(Collections.emptySet(), sut.findAllIncludingIp(IpAddress.valueOf("10.1.2.3")));
+        assertEquals(Collections.emptySet(), sut.findAllIncludingIp(IpAddress.valueOf("::1")));
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(42);
+        List<IpGroup> groups = new ArrayList<>();
+        for (long id = 0; id < 50; id++) {
+            List<IpAddressRange> ranges = new ArrayList<>();
+            for (int r = random.nextInt(4); r >= 0; r--) {
+                int a = random.nextInt(256);
+                int b = random.nextInt(256);
+                ranges.add(IpAddressRange.make(IpAddress.valueOf("10." + Math.min(a, b) + ".0.0"),
+                        IpAddress.valueOf("10." + Math.max(a, b) + ".255.255")));
+            }
+            groups.add(makeGroup(id, ranges.toArray(IpAddressRange[]::new)));
+        }
+
+        IpGroupIndex sut = IpGroupIndex.build(groups);
+        for (int i = 0; i < 256; i++) {
+            IpAddress address = IpAddress.valueOf("10." + i + ".1.1");
+            Set<IpGroup> expected = groups.stream()
+                    .filter(g -> g.containsAddress(address))
+                    .collect(Collectors.toSet());
+            assertEquals(expected, sut.findAllIncludingIp(address), "Groups for " + address);
+        }
+    }
+
+    private static IpGroup makeGroup(Long id, IpAddressRange... ranges) {
+        IpGroup group = new IpGroup();
+        group.setId(id);
+        group.setPersistedGroupAlias("group-" + id);
+        for (IpAddressRange range : ranges) {
+            group.add(range);
+        }
+        return group;
+    }
+}
@@ -0,0 +1,127 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import edu.harvard.iq.dataverse.DataFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ColumnarTabFileTest {
+
+    private static final String TAB_FILE =
+            "id\tscore\tcount\tlabel\n"
+            + "1\t1.5\t10\t\"foo\"\n"
+            + "2\t\t\t\n"
+            + "3\tinf\t30\t\"bar\\tbaz\"\n"
+            + "4\t-inf\tNA\t\"\"\n";
+
+    private File tabFile;
+    private File columnarFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tabFile = File.createTempFile("columnarTest", ".tab");
+        Files.writeString(tabFile.toPath(), TAB_FILE, StandardCharsets.UTF_8);
+        columnarFile = File.createTempFile("columnarTest", ".columnar");
+        ColumnarTabFile.generate(tabFile, 4, 5, columnarFile);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tabFile.delete();
+        columnarFile.delete();
+    }
+
+    @Test
+    public void testHeaderAndColumns() throws IOException {
+        ColumnarTabFile columnar = ColumnarTabFile.open(columnarFile);
+
+        assertEquals(4, columnar.getNumColumns());
+        assertEquals(5, columnar.getNumRows());
+        assertEquals("score\n1.5\n\ninf\n-inf\n", new String(columnar.openColumn(1).readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals("label\n\"foo\"\n\n\"bar\\tbaz\"\n\"\"\n", new String(columnar.openColumn(3).readAllBytes(), StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> columnar.openColumn(4));
+    }
+
+    @Test
+    public void testNotUsedWithoutRangedReads() throws IOException {
+        @SuppressWarnings("unchecked")
+        StorageIO<DataFile> storageIO = mock(StorageIO.class);
+        when(storageIO.isAuxRangedReadSupported()).thenReturn(false);
+        when(storageIO.isAuxObjectCached(ColumnarTabFile.AUX_TAG)).thenReturn(true);
+
+        assertNull(ColumnarTabFile.open(storageIO));
+        verify(storageIO, never()).getAuxFileAsInputStream(ColumnarTabFile.AUX_TAG);
+    }
+
+    @Test
+    public void testHeaderReadWithRangedReads() throws IOException {
+        @SuppressWarnings("unchecked")
+        StorageIO<DataFile> storageIO = mock(StorageIO.class);
+        when(storageIO.isAuxRangedReadSupported()).thenReturn(true);
+        when(storageIO.isAuxObjectCached(ColumnarTabFile.AUX_TAG)).thenReturn(true);
+        when(storageIO.getAuxRangeInputStream(eq(ColumnarTabFile.AUX_TAG), anyLong(), anyLong())).thenAnswer(invocation -> {
+            byte[] bytes = Files.readAllBytes(columnarFile.toPath());
+            int offset = (int) (long) invocation.getArgument(1, Long.class);
+            int length = (int) (long) invocation.getArgument(2, Long.class);
+            return new ByteArrayInputStream(bytes, offset, length);
+        });
+
+        ColumnarTabFile columnar = ColumnarTabFile.open(storageIO);
+
+        assertEquals(4, columnar.getNumColumns());
+        assertEquals(5, columnar.getNumRows());
+        assertEquals("score\n1.5\n\ninf\n-inf\n", new String(columnar.openColumn(1).readAllBytes(), StandardCharsets.UTF_8));
+        // the whole copy is never requested
+        verify(storageIO, never()).getAuxFileAsInputStream(ColumnarTabFile.AUX_TAG);
+    }
+
+    @Test
+    public void testSubsetFileMatchesTabFileSubsetting() throws IOException {
+        File expected = File.createTempFile("subsetTest", ".tab");
+        File actual = File.createTempFile("subsetTest", ".tab");
+        try {
+            new TabularSubsetGenerator().subsetFile(new ByteArrayInputStream(TAB_FILE.getBytes(StandardCharsets.UTF_8)),
+                    expected.getAbsolutePath(), List.of(3, 1, 0), 5L, "\t");
+            ColumnarTabFile.open(columnarFile).subsetFile(List.of(3, 1, 0), actual.getAbsolutePath());
+
+            assertEquals(Files.readString(expected.toPath(), StandardCharsets.UTF_8), Files.readString(actual.toPath(), StandardCharsets.UTF_8));
+        } finally {
+            expected.delete();
+            actual.delete();
+        }
+    }
+
+    @Test
+    public void testSubsetVectorsMatchesTabFileSubsetting() throws IOException {
+        int[] columns = {2, 3};
+        TabularSubsetGenerator.VectorType[] types = {
+            TabularSubsetGenerator.VectorType.LONG,
+            TabularSubsetGenerator.VectorType.STRING
+        };
+
+        Object[] vectors = ColumnarTabFile.open(columnarFile).subsetVectors(columns, types, 4, true);
+        Object[] expected = TabularSubsetGenerator.subsetVectors(new ByteArrayInputStream(TAB_FILE.getBytes(StandardCharsets.UTF_8)), columns, types, 4, true);
+
+        assertArrayEquals(((NumericColumnVector) expected[0]).toBoxedLongs(), ((NumericColumnVector) vectors[0]).toBoxedLongs());
+        assertArrayEquals((String[]) expected[1], (String[]) vectors[1]);
+    }
+}
@@ -0,0 +1,76 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DelimitedLineReaderTest {
+
+    private static DelimitedLineReader reader(String data, int maxColumn) {
+        return new DelimitedLineReader(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), maxColumn);
+    }
+
+    @Test
+    public void testFieldsAndLines() throws IOException {
+        try (DelimitedLineReader reader = reader("a\tb\tc\n\n\tété\t\r\nlast", 2)) {
+            assertTrue(reader.nextLine());
+            assertEquals(3, reader.getFieldCount());
+            assertEquals("a", reader.getField(0));
+            assertEquals("c", reader.getField(2));
+            assertEquals(0L, reader.getLineOffset());
+
+            assertTrue(reader.nextLine());
+            assertTrue(reader.isLineEmpty());
+            assertEquals(1, reader.getFieldCount());
+            assertEquals(6L, reader.getLineOffset());
+
+            assertTrue(reader.nextLine());
+            assertTrue(reader.isFieldEmpty(0));
+            assertEquals("été", reader.getField(1));
+            assertEquals("\r", reader.getField(2));
+
+            assertTrue(reader.nextLine());
+            assertEquals("last", reader.getLine());
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getField(1));
+
+            assertFalse(reader.nextLine());
+        }
+    }
+
+    @Test
+    public void testOnlyRequestedColumnsAreLocated() throws IOException {
+        try (DelimitedLineReader reader = reader("0\t1\t2\t3\t4\n", 1)) {
+            assertTrue(reader.nextLine());
+            assertEquals(2, reader.getFieldCount());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            reader.writeField(1, out);
+            assertEquals("1", out.toString(StandardCharsets.UTF_8));
+            assertEquals("0\t1\t2\t3\t4", reader.getLine());
+            assertFalse(reader.nextLine());
+        }
+    }
+
+    @Test
+    public void testLinesLongerThanTheBuffer() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            data.append("x".repeat(300000 + i)).append('\t').append(i).append('\n');
+        }
+        try (DelimitedLineReader reader = reader(data.toString(), 1)) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(reader.nextLine());
+                assertEquals(300000 + i, reader.getField(0).length());
+                assertEquals(String.valueOf(i), reader.getField(1));
+            }
+            assertFalse(reader.nextLine());
+        }
+    }
+}
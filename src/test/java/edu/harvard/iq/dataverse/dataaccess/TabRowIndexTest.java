@@ -0,0 +1,92 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TabRowIndexTest {
+
+    private File tabFile;
+    private File indexFile;
+    private String tabData;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        StringBuilder data = new StringBuilder("id\tvalue\n");
+        for (int i = 1; i <= 25; i++) {
+            data.append(i).append('\t').append("x".repeat(i % 4)).append('\n');
+        }
+        tabData = data.toString();
+        tabFile = File.createTempFile("rowIndexTest", ".tab");
+        Files.writeString(tabFile.toPath(), tabData, StandardCharsets.UTF_8);
+        indexFile = File.createTempFile("rowIndexTest", ".rowindex");
+        TabRowIndex.generate(tabFile, 4, indexFile);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tabFile.delete();
+        indexFile.delete();
+    }
+
+    private String readRange(long[] range) throws IOException {
+        return new String(Files.readAllBytes(tabFile.toPath()), StandardCharsets.UTF_8).substring((int) range[0], (int) range[1]);
+    }
+
+    private ColumnarTabFile.RangeOpener tabFileRanges() {
+        return (offset, length) -> {
+            FileChannel channel = new FileInputStream(tabFile).getChannel();
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length);
+        };
+    }
+
+    private String lines(int first, int end) {
+        String[] lines = tabData.split("\n");
+        StringBuilder expected = new StringBuilder();
+        for (int i = first; i < end; i++) {
+            expected.append(lines[i]).append('\n');
+        }
+        return expected.toString();
+    }
+
+    @Test
+    public void testLocateLines() throws IOException {
+        TabRowIndex index = TabRowIndex.read(new FileInputStream(indexFile));
+
+        assertEquals(4, index.getInterval());
+        assertEquals(26, index.getNumLines());
+
+        for (int first = 0; first <= 26; first++) {
+            for (int end = first; end <= 26; end++) {
+                assertEquals(lines(first, end), readRange(index.locateLines(tabFileRanges(), first, end)), "lines " + first + "-" + end);
+            }
+        }
+        assertArrayEquals(new long[]{tabFile.length(), tabFile.length()}, index.locateLines(tabFileRanges(), 26, 26));
+        assertThrows(IOException.class, () -> index.locateLines(tabFileRanges(), 3, 27));
+        assertThrows(IOException.class, () -> index.locateLines(tabFileRanges(), 5, 4));
+    }
+
+    @Test
+    public void testCopyLines() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TabRowIndex.copyLines(new FileInputStream(tabFile), 7, 13, out);
+
+        assertEquals(lines(7, 13), out.toString(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> TabRowIndex.copyLines(new FileInputStream(tabFile), 20, 27, new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,86 @@
+package edu.harvard.iq.dataverse.dataaccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TabularSubsetGeneratorTest {
+
+    private static final String TAB_FILE =
+            "id\tscore\tcount\tlabel\n"
+            + "1\t1.5\t10\t\"foo\"\n"
+            + "2\t\t\t\n"
+            + "3\tinf\t30\t\"bar\\tbaz\"\n"
+            + "4\t-inf\tNA\t\"\"\n";
+
+    private static InputStream tabFile() {
+        return new ByteArrayInputStream(TAB_FILE.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSubsetVectorsMatchesSingleColumnSubsetting() {
+        int[] columns = {1, 1, 2, 3, 0};
+        TabularSubsetGenerator.VectorType[] types = {
+            TabularSubsetGenerator.VectorType.DOUBLE,
+            TabularSubsetGenerator.VectorType.FLOAT,
+            TabularSubsetGenerator.VectorType.LONG,
+            TabularSubsetGenerator.VectorType.STRING,
+            TabularSubsetGenerator.VectorType.LONG
+        };
+
+        Object[] vectors = TabularSubsetGenerator.subsetVectors(tabFile(), columns, types, 4, true);
+
+        assertEquals(5, vectors.length);
+        assertArrayEquals(TabularSubsetGenerator.subsetDoubleVector(tabFile(), 1, 4, true), ((NumericColumnVector) vectors[0]).toBoxedDoubles());
+        assertArrayEquals(TabularSubsetGenerator.subsetFloatVector(tabFile(), 1, 4, true), ((NumericColumnVector) vectors[1]).toBoxedFloats());
+        assertArrayEquals(TabularSubsetGenerator.subsetLongVector(tabFile(), 2, 4, true), ((NumericColumnVector) vectors[2]).toBoxedLongs());
+        assertArrayEquals(TabularSubsetGenerator.subsetStringVector(tabFile(), 3, 4, true), (String[]) vectors[3]);
+        assertArrayEquals(new Long[]{1L, 2L, 3L, 4L}, ((NumericColumnVector) vectors[4]).toBoxedLongs());
+
+        assertArrayEquals(new Double[]{1.5, null, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}, TabularSubsetGenerator.subsetDoubleVector(tabFile(), 1, 4, true));
+        assertArrayEquals(new Long[]{10L, null, 30L, null}, TabularSubsetGenerator.subsetLongVector(tabFile(), 2, 4, true));
+        assertArrayEquals(new String[]{"foo", null, "bar\tbaz", ""}, (String[]) vectors[3]);
+    }
+
+    @Test
+    public void testNumericColumnVector() {
+        NumericColumnVector vector = TabularSubsetGenerator.subsetNumericVector(tabFile(), 1, TabularSubsetGenerator.VectorType.DOUBLE, 4, true);
+
+        assertEquals(4, vector.size());
+        assertEquals(1, vector.getMissingCount());
+        assertTrue(vector.isMissing(1));
+        assertEquals(1.5, vector.getDouble(0));
+        assertArrayEquals(new double[]{1.5, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}, vector.getValidValues());
+    }
+
+    @Test
+    public void testSubsetVectorsChecksNumberOfCases() {
+        int[] columns = {0};
+        TabularSubsetGenerator.VectorType[] types = {TabularSubsetGenerator.VectorType.LONG};
+
+        assertThrows(RuntimeException.class, () -> TabularSubsetGenerator.subsetVectors(tabFile(), columns, types, 5, true));
+        assertThrows(RuntimeException.class, () -> TabularSubsetGenerator.subsetVectors(tabFile(), columns, types, 3, true));
+    }
+
+    @Test
+    public void testSubsetFile() throws IOException {
+        File outFile = File.createTempFile("subsetTest", ".tab");
+        outFile.deleteOnExit();
+
+        new TabularSubsetGenerator().subsetFile(tabFile(), outFile.getAbsolutePath(), List.of(3, 1), 5L, "\t");
+
+        assertEquals("label\tscore\n\"foo\"\t1.5\n\t\n\"bar\\tbaz\"\tinf\n\"\"\t-inf\n",
+                Files.readString(outFile.toPath(), StandardCharsets.UTF_8));
+    }
+}
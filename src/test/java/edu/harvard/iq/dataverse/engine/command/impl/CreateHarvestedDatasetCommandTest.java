@@ -0,0 +1,46 @@
+package edu.harvard.iq.dataverse.engine.command.impl;
+
+import edu.harvard.iq.dataverse.Dataset;
+import edu.harvard.iq.dataverse.engine.TestCommandContext;
+import edu.harvard.iq.dataverse.engine.command.CommandContext;
+import edu.harvard.iq.dataverse.search.IndexServiceBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class CreateHarvestedDatasetCommandTest {
+
+    private IndexServiceBean indexService;
+    private CommandContext ctxt;
+    private Dataset dataset;
+
+    @BeforeEach
+    public void setUp() {
+        indexService = mock(IndexServiceBean.class);
+        ctxt = new TestCommandContext() {
+            @Override
+            public IndexServiceBean index() {
+                return indexService;
+            }
+        };
+        dataset = new Dataset();
+    }
+
+    @Test
+    public void testIndexedByDefault() {
+        new CreateHarvestedDatasetCommand(dataset, null).index(dataset, ctxt);
+
+        verify(indexService).asyncIndexDataset(dataset, true);
+    }
+
+    @Test
+    public void testNotIndexed() {
+        // the harvester indexes the datasets of a batch together, once they are committed
+        new CreateHarvestedDatasetCommand(dataset, null, false).index(dataset, ctxt);
+
+        verify(indexService, never()).asyncIndexDataset(dataset, true);
+    }
+}
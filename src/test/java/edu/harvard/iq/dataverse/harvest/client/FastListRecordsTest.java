@@ -0,0 +1,113 @@
+package edu.harvard.iq.dataverse.harvest.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import javax.xml.stream.XMLStreamException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FastListRecordsTest {
+
+    FastListRecords listRecords = new FastListRecords(null, null, null);
+    Deque<HarvestedRecord> records = new ArrayDeque<>();
+
+    @AfterEach
+    void deleteTempFiles() {
+        for (HarvestedRecord record : records) {
+            if (record.getMetadataFile() != null) {
+                record.getMetadataFile().delete();
+            }
+        }
+    }
+
+    @Test
+    void testParseRecords() throws Exception {
+        String token = listRecords.parseResponse(response(
+                "<ListRecords>"
+                + "<record><header><identifier>doi:10.5072/FK2/A</identifier><datestamp>2024-01-02T03:04:05Z</datestamp></header>"
+                + "<metadata>\n<oai_dc:dc xmlns:oai_dc=\"http://www.openarchives.org/OAI/2.0/oai_dc/\" xmlns:dc=\"http://purl.org/dc/elements/1.1/\">"
+                + "<dc:title>A &amp; B</dc:title><dc:identifier>inner</dc:identifier></oai_dc:dc>\n</metadata></record>"
+                + "<record><header status=\"deleted\"><identifier>doi:10.5072/FK2/B</identifier><datestamp>2024-01-02</datestamp></header></record>"
+                + "<resumptionToken cursor=\"0\">next</resumptionToken>"
+                + "</ListRecords>"), records);
+
+        assertEquals("next", token);
+        assertEquals(2, records.size());
+
+        HarvestedRecord record = records.getFirst();
+        assertEquals("doi:10.5072/FK2/A", record.getIdentifier());
+        assertEquals(Instant.parse("2024-01-02T03:04:05Z"), record.getDateStamp().toInstant());
+        assertFalse(record.isDeleted());
+        String metadata = Files.readString(record.getMetadataFile().toPath());
+        assertTrue(metadata.startsWith("<oai_dc:dc"));
+        assertTrue(metadata.contains("<dc:title>A &amp; B</dc:title>"));
+        assertTrue(metadata.endsWith("</oai_dc:dc>"));
+
+        HarvestedRecord deleted = records.getLast();
+        assertEquals("doi:10.5072/FK2/B", deleted.getIdentifier());
+        assertTrue(deleted.isDeleted());
+        assertNull(deleted.getMetadataFile());
+    }
+
+    @Test
+    void testLastPage() throws Exception {
+        String token = listRecords.parseResponse(response("<ListRecords><resumptionToken completeListSize=\"1\"/></ListRecords>"), records);
+
+        assertNull(token);
+    }
+
+    @Test
+    void testNoRecordsMatch() throws Exception {
+        String token = listRecords.parseResponse(response("<error code=\"noRecordsMatch\">No records</error>"), records);
+
+        assertNull(token);
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    void testError() {
+        assertThrows(IOException.class, () -> listRecords.parseResponse(response("<error code=\"badArgument\">Bad</error>"), records));
+    }
+
+    @Test
+    void testMalformedResponse() throws Exception {
+        String marker = UUID.randomUUID().toString();
+        assertThrows(XMLStreamException.class, () -> listRecords.parseResponse(response(
+                "<ListRecords>"
+                + "<record><header><identifier>doi:10.5072/FK2/A</identifier><datestamp>2024-01-02</datestamp></header>"
+                + "<metadata><dc>" + marker + "</dc></metadata></record>"
+                + "<record><header><identifier>doi:10.5072/FK2/B</identifier><datestamp>2024-01-02</datestamp></header>"
+                + "<metadata><dc>" + marker + "</dc></metadata>"
+                + "</ListRecords>"), records));
+
+        assertTrue(records.isEmpty());
+        // the temp files of both records were deleted
+        File[] tempFiles = new File(System.getProperty("java.io.tmpdir")).listFiles((dir, name) -> name.startsWith("meta") && name.endsWith(".tmp"));
+        for (File tempFile : tempFiles) {
+            assertFalse(Files.readString(tempFile.toPath()).contains(marker));
+        }
+    }
+
+    private static InputStream response(String content) {
+        return new ByteArrayInputStream(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<OAI-PMH xmlns=\"http://www.openarchives.org/OAI/2.0/\"><responseDate>2024-01-02T03:04:05Z</responseDate>"
+                + "<request verb=\"ListRecords\">https://demo.dataverse.org/oai</request>"
+                + content
+                + "</OAI-PMH>").getBytes(StandardCharsets.UTF_8));
+    }
+}
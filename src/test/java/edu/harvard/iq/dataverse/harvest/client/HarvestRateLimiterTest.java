@@ -0,0 +1,75 @@
+package edu.harvard.iq.dataverse.harvest.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HarvestRateLimiterTest {
+
+    @Test
+    void testPacing() throws Exception {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(20);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // the first request right away, then one every 50 ms
+        assertTrue(elapsed >= 190, "5 requests in " + elapsed + " ms");
+    }
+
+    @Test
+    void testPacingAcrossThreads() throws Exception {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(20);
+        List<Thread> threads = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    limiter.acquire();
+                    limiter.acquire();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 8 requests between them
+        assertTrue(elapsed >= 340, "8 requests in " + elapsed + " ms");
+    }
+
+    @Test
+    void testNoLimit() throws Exception {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            limiter.acquire();
+        }
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+    }
+
+    @Test
+    void testOneLimiterPerHost() {
+        HarvestRateLimiter limiter = HarvestRateLimiter.forUrl("https://demo.dataverse.org/oai", 2);
+
+        assertSame(limiter, HarvestRateLimiter.forUrl("https://demo.dataverse.org/api/datasets/export", 2));
+        assertNotSame(limiter, HarvestRateLimiter.forUrl("https://dataverse.harvard.edu/oai", 2));
+    }
+}
@@ -0,0 +1,154 @@
+package edu.harvard.iq.dataverse.harvest.client;
+
+import edu.harvard.iq.dataverse.harvest.client.oai.OaiHandler;
+import edu.harvard.iq.dataverse.harvest.client.oai.OaiHandlerException;
+import io.gdcc.xoai.model.oaipmh.results.record.Header;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HarvestRecordFetcherTest {
+
+    HarvestRateLimiter noLimit = new HarvestRateLimiter(0);
+    Map<String, File> metadataFiles = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void deleteTempFiles() {
+        metadataFiles.values().forEach(File::delete);
+    }
+
+    @Test
+    void testRecordsInListedOrder() throws Exception {
+        // the first records take the longest to retrieve
+        OaiHandler oaiHandler = oaiHandler(identifier -> TimeUnit.MILLISECONDS.sleep(100 - 20 * Integer.parseInt(identifier)));
+        List<String> identifiers = new ArrayList<>();
+
+        try (HarvestRecordFetcher fetcher = new HarvestRecordFetcher(headers("0", "1", "2", "3", "4"), oaiHandler, null, noLimit, 4)) {
+            while (fetcher.hasNext()) {
+                HarvestedRecord record = fetcher.next();
+                assertNull(record.getException());
+                assertEquals(metadataFiles.get(record.getIdentifier()), record.getMetadataFile());
+                identifiers.add(record.getIdentifier());
+            }
+        }
+
+        assertEquals(List.of("0", "1", "2", "3", "4"), identifiers);
+    }
+
+    @Test
+    void testFailedRecord() throws Exception {
+        OaiHandler oaiHandler = oaiHandler(identifier -> {
+            if ("1".equals(identifier)) {
+                throw new OaiHandlerException("IOException executing GetRecord: 503");
+            }
+        });
+
+        try (HarvestRecordFetcher fetcher = new HarvestRecordFetcher(headers("0", "1", "2"), oaiHandler, null, noLimit, 2)) {
+            assertNull(fetcher.next().getException());
+
+            HarvestedRecord failed = fetcher.next();
+            assertEquals("1", failed.getIdentifier());
+            assertTrue(failed.getException() instanceof OaiHandlerException);
+            assertNull(failed.getMetadataFile());
+
+            // the failure doesn't stop the harvest
+            HarvestedRecord next = fetcher.next();
+            assertEquals("2", next.getIdentifier());
+            assertNull(next.getException());
+            assertFalse(fetcher.hasNext());
+        }
+    }
+
+    @Test
+    void testDeletedRecord() throws Exception {
+        OaiHandler oaiHandler = oaiHandler(identifier -> {
+            throw new OaiHandlerException("Not expected to be retrieved: " + identifier);
+        });
+        Header header = header("0");
+        when(header.isDeleted()).thenReturn(true);
+
+        try (HarvestRecordFetcher fetcher = new HarvestRecordFetcher(List.of(header).iterator(), oaiHandler, null, noLimit, 2)) {
+            HarvestedRecord record = fetcher.next();
+            assertTrue(record.isDeleted());
+            assertNull(record.getException());
+        }
+    }
+
+    @Test
+    void testCloseDeletesUnconsumedFiles() throws Exception {
+        CountDownLatch retrieved = new CountDownLatch(3);
+        OaiHandler oaiHandler = oaiHandler(identifier -> retrieved.countDown());
+
+        HarvestRecordFetcher fetcher = new HarvestRecordFetcher(headers("0", "1", "2"), oaiHandler, null, noLimit, 3);
+        HarvestedRecord consumed = fetcher.next();
+        assertTrue(retrieved.await(5, TimeUnit.SECONDS));
+        fetcher.close();
+
+        assertTrue(consumed.getMetadataFile().exists());
+        assertFalse(metadataFiles.get("1").exists());
+        assertFalse(metadataFiles.get("2").exists());
+    }
+
+    interface Retrieval {
+        void run(String identifier) throws Exception;
+    }
+
+    /**
+     * @return A handler whose GetRecord runs {@code retrieval}, then saves the
+     * metadata of the record in a temp file.
+     */
+    private OaiHandler oaiHandler(Retrieval retrieval) {
+        return new OaiHandler("https://demo.dataverse.org/oai", "oai_dc") {
+            @Override
+            public FastGetRecord runGetRecord(String identifier, HttpClient httpClient) throws OaiHandlerException {
+                try {
+                    retrieval.run(identifier);
+                    File metadataFile = File.createTempFile("meta", ".tmp");
+                    metadataFiles.put(identifier, metadataFile);
+                    FastGetRecord getRecord = mock(FastGetRecord.class);
+                    when(getRecord.getMetadataFile()).thenReturn(metadataFile);
+                    return getRecord;
+                } catch (OaiHandlerException ohe) {
+                    throw ohe;
+                } catch (InterruptedException | IOException e) {
+                    throw new OaiHandlerException(e.getMessage());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private static Iterator<Header> headers(String... identifiers) {
+        List<Header> headers = new ArrayList<>();
+        for (String identifier : identifiers) {
+            headers.add(header(identifier));
+        }
+        return headers.iterator();
+    }
+
+    private static Header header(String identifier) {
+        Header header = mock(Header.class);
+        when(header.getIdentifier()).thenReturn(identifier);
+        when(header.getDatestamp()).thenReturn(Instant.parse("2024-01-02T03:04:05Z"));
+        return header;
+    }
+}
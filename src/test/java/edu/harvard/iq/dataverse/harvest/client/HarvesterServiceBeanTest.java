@@ -0,0 +1,107 @@
+package edu.harvard.iq.dataverse.harvest.client;
+
+import edu.harvard.iq.dataverse.Dataset;
+import edu.harvard.iq.dataverse.api.imports.ImportException;
+import edu.harvard.iq.dataverse.api.imports.ImportServiceBean;
+import edu.harvard.iq.dataverse.harvest.client.oai.OaiHandler;
+import edu.harvard.iq.dataverse.search.IndexServiceBean;
+import edu.harvard.iq.dataverse.search.SolrUpdateBatch;
+import jakarta.ejb.EJBException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HarvesterServiceBeanTest {
+
+    HarvesterServiceBean harvesterService = new HarvesterServiceBean();
+    Logger hdLogger = Logger.getLogger(HarvesterServiceBeanTest.class.getCanonicalName());
+    PrintWriter importCleanupLog = new PrintWriter(new StringWriter());
+    OaiHandler oaiHandler = new OaiHandler("https://demo.dataverse.org/oai", "oai_dc");
+    SolrUpdateBatch indexBatch = mock(SolrUpdateBatch.class);
+
+    List<HarvestedRecord> records = new ArrayList<>();
+    List<HarvestedRecord> importBatch;
+    List<String> failedIdentifiers = new ArrayList<>();
+    List<String> deletedIdentifiers = new ArrayList<>();
+    List<Long> harvestedDatasetIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        harvesterService.importService = mock(ImportServiceBean.class);
+        harvesterService.indexService = mock(IndexServiceBean.class);
+        for (String identifier : List.of("doi:10.5072/FK2/A", "doi:10.5072/FK2/B", "doi:10.5072/FK2/C")) {
+            records.add(new HarvestedRecord(identifier, new Date()).withMetadataFile(File.createTempFile("meta", ".tmp")));
+        }
+        importBatch = new ArrayList<>(records);
+    }
+
+    @AfterEach
+    void deleteTempFiles() {
+        for (HarvestedRecord record : records) {
+            record.getMetadataFile().delete();
+        }
+    }
+
+    @Test
+    void testImportBatch() throws Exception {
+        when(harvesterService.importService.doImportHarvestedDatasets(any(), any(), any(), any(), any()))
+                .thenReturn(List.of(dataset(1L), dataset(2L), dataset(3L)));
+
+        harvesterService.importBatch(null, hdLogger, importCleanupLog, oaiHandler, importBatch, indexBatch, failedIdentifiers, deletedIdentifiers, harvestedDatasetIds);
+
+        assertEquals(List.of(1L, 2L, 3L), harvestedDatasetIds);
+        assertTrue(failedIdentifiers.isEmpty());
+        assertTrue(importBatch.isEmpty());
+        verify(harvesterService.indexService).indexDatasetInNewTransaction(2L, indexBatch);
+        verify(indexBatch).flush();
+        verify(harvesterService.importService, never()).doImportHarvestedDataset(any(), any(), anyString(), any(), any(), any(), any());
+        for (HarvestedRecord record : records) {
+            assertFalse(record.getMetadataFile().exists());
+        }
+    }
+
+    @Test
+    void testFailedRecordInBatch() throws Exception {
+        when(harvesterService.importService.doImportHarvestedDatasets(any(), any(), any(), any(), any()))
+                .thenThrow(new EJBException("Failed to import doi:10.5072/FK2/B"));
+        when(harvesterService.importService.doImportHarvestedDataset(any(), any(), eq("doi:10.5072/FK2/A"), any(), any(), any(), any()))
+                .thenReturn(dataset(1L));
+        when(harvesterService.importService.doImportHarvestedDataset(any(), any(), eq("doi:10.5072/FK2/B"), any(), any(), any(), any()))
+                .thenThrow(new ImportException("Failed to process Dublin Core XML record"));
+        when(harvesterService.importService.doImportHarvestedDataset(any(), any(), eq("doi:10.5072/FK2/C"), any(), any(), any(), any()))
+                .thenReturn(dataset(3L));
+
+        harvesterService.importBatch(null, hdLogger, importCleanupLog, oaiHandler, importBatch, indexBatch, failedIdentifiers, deletedIdentifiers, harvestedDatasetIds);
+
+        // the records were imported again one at a time, and only the failing one was lost
+        assertEquals(List.of("doi:10.5072/FK2/B"), failedIdentifiers);
+        assertEquals(List.of(1L, 3L), harvestedDatasetIds);
+        assertTrue(importBatch.isEmpty());
+    }
+
+    private static Dataset dataset(Long id) {
+        Dataset dataset = new Dataset();
+        dataset.setId(id);
+        return dataset;
+    }
+}
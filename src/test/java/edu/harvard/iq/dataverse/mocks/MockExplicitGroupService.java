@@ -2,7 +2,9 @@ package edu.harvard.iq.dataverse.mocks;
 
 import edu.harvard.iq.dataverse.authorization.RoleAssignee;
 import edu.harvard.iq.dataverse.authorization.groups.impl.explicit.ExplicitGroup;
+import edu.harvard.iq.dataverse.authorization.groups.impl.explicit.ExplicitGroupGraph;
 import edu.harvard.iq.dataverse.authorization.groups.impl.explicit.ExplicitGroupServiceBean;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -27,6 +29,21 @@ public class MockExplicitGroupService extends ExplicitGroupServiceBean {
                 .filter( g -> g.getDirectMembers().contains(ra) )
                 .collect(toSet());
     }
+
+    @Override
+    protected ExplicitGroupGraph getGraph() {
+        ExplicitGroupGraph graph = new ExplicitGroupGraph();
+        groups.values().forEach( g -> {
+            g.getContainedExplicitGroups().forEach( c -> graph.addGroupContainment(c.getId(), g.getId()) );
+            g.getContainedRoleAssgineeIdentifiers().forEach( idtf -> graph.addRoleAssigneeContainment(idtf, g.getId()) );
+        });
+        return graph;
+    }
+
+    @Override
+    protected Set<ExplicitGroup> findByIds(Collection<Long> ids) {
+        return ids.stream().map(groups::get).collect(toSet());
+    }
     
     
 }
@@ -0,0 +1,120 @@
+package edu.harvard.iq.dataverse.search;
+
+import edu.harvard.iq.dataverse.DataFile;
+import edu.harvard.iq.dataverse.DatasetVersion;
+import edu.harvard.iq.dataverse.FileMetadata;
+import edu.harvard.iq.dataverse.mocks.MocksFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatasetIndexChangesTest {
+
+    private static final Long VERSION_ID = 42L;
+
+    List<DataFile> files = MocksFactory.makeFiles(3);
+
+    @Test
+    void testNoChanges() {
+        DatasetIndexChanges changes = DatasetIndexChanges.of(makeDraft(files), makeDraft(copies(files)), null);
+
+        assertNotNull(changes);
+        assertEquals(VERSION_ID, changes.getDatasetVersionId());
+        assertTrue(changes.getChangedDataFileIds().isEmpty());
+        assertFalse(changes.isParentFieldsChanged());
+    }
+
+    @Test
+    void testChangedFileMetadata() {
+        DatasetVersion editVersion = makeDraft(files);
+        editVersion.getFileMetadatas().get(1).setDescription("new description");
+
+        DatasetIndexChanges changes = DatasetIndexChanges.of(editVersion, makeDraft(copies(files)), null);
+
+        assertEquals(Set.of(files.get(1).getId()), changes.getChangedDataFileIds());
+        assertFalse(changes.isParentFieldsChanged());
+    }
+
+    @Test
+    void testChangedVariableMetadata() {
+        DatasetVersion editVersion = makeDraft(files);
+
+        DatasetIndexChanges changes = DatasetIndexChanges.of(editVersion, makeDraft(copies(files)), editVersion.getFileMetadatas().get(2));
+
+        assertEquals(Set.of(files.get(2).getId()), changes.getChangedDataFileIds());
+    }
+
+    @Test
+    void testChangedDataFile() {
+        List<DataFile> editedFiles = copies(files);
+        editedFiles.get(0).setRestricted(true);
+        editedFiles.get(2).addUniqueTagByLabel("Survey");
+
+        DatasetIndexChanges changes = DatasetIndexChanges.of(makeDraft(editedFiles), makeDraft(files), null);
+
+        assertEquals(Set.of(files.get(0).getId(), files.get(2).getId()), changes.getChangedDataFileIds());
+    }
+
+    @Test
+    void testNewDraft() {
+        DatasetVersion editVersion = makeDraft(files);
+        editVersion.setId(null);
+
+        assertNull(DatasetIndexChanges.of(editVersion, makeDraft(copies(files)), null));
+    }
+
+    @Test
+    void testFileAdded() {
+        DatasetVersion editVersion = makeDraft(files);
+        addFileMetadata(editVersion, MocksFactory.makeDataFile());
+
+        assertNull(DatasetIndexChanges.of(editVersion, makeDraft(copies(files)), null));
+    }
+
+    @Test
+    void testSameInstance() {
+        DatasetVersion editVersion = makeDraft(files);
+
+        assertNull(DatasetIndexChanges.of(editVersion, editVersion, null));
+    }
+
+    @Test
+    void testSharedDataFiles() {
+        // e.g. a clone: an edit of the DataFiles can't be seen
+        assertNull(DatasetIndexChanges.of(makeDraft(files), makeDraft(files), null));
+    }
+
+    // Other instances of the same DataFiles, as loaded from the database
+    private static List<DataFile> copies(List<DataFile> files) {
+        List<DataFile> copies = MocksFactory.makeFiles(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            copies.get(i).setId(files.get(i).getId());
+        }
+        return copies;
+    }
+
+    private static DatasetVersion makeDraft(List<DataFile> files) {
+        DatasetVersion version = new DatasetVersion();
+        version.setId(VERSION_ID);
+        version.setVersionState(DatasetVersion.VersionState.DRAFT);
+        for (DataFile file : files) {
+            addFileMetadata(version, file);
+        }
+        return version;
+    }
+
+    private static void addFileMetadata(DatasetVersion version, DataFile file) {
+        FileMetadata fileMetadata = new FileMetadata();
+        fileMetadata.setLabel("file" + file.getId() + ".txt");
+        fileMetadata.setDataFile(file);
+        fileMetadata.setDatasetVersion(version);
+        version.getFileMetadatas().add(fileMetadata);
+    }
+}
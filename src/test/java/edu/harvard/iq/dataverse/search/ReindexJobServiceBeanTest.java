@@ -0,0 +1,30 @@
+package edu.harvard.iq.dataverse.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReindexJobServiceBeanTest {
+
+    @Test
+    void testPartitionEvenly() {
+        List<List<Long>> partitions = ReindexJobServiceBean.partition(List.of(1L, 2L, 5L, 7L, 8L, 9L, 10L), 3);
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(5L, 7L), List.of(8L, 9L, 10L)), partitions);
+    }
+
+    @Test
+    void testPartitionFewerIdsThanPartitions() {
+        List<List<Long>> partitions = ReindexJobServiceBean.partition(List.of(3L, 4L), 4);
+
+        assertEquals(List.of(List.of(3L), List.of(4L)), partitions);
+    }
+
+    @Test
+    void testPartitionNoIds() {
+        assertTrue(ReindexJobServiceBean.partition(List.of(), 4).isEmpty());
+    }
+}
@@ -5,7 +5,12 @@ import edu.harvard.iq.dataverse.settings.SettingsServiceBean;
 import edu.harvard.iq.dataverse.util.SystemConfig;
 import edu.harvard.iq.dataverse.util.testing.JvmSetting;
 import edu.harvard.iq.dataverse.util.testing.LocalJvmSettings;
-import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.impl.Http2SolrClient;
+import org.apache.solr.client.solrj.impl.LBHttp2SolrClient;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +19,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @LocalJvmSettings
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +37,11 @@ class SolrClientServiceTest {
         clientService.systemConfig = systemConfig;
     }
     
+    @AfterEach
+    void tearDown() {
+        clientService.close();
+    }
+
     @Test
     void testInitWithDefaults() {
         // given
@@ -39,8 +51,9 @@ class SolrClientServiceTest {
         clientService.init();
         
         // then
-        HttpSolrClient client = (HttpSolrClient) clientService.getSolrClient();
-        assertEquals(url, client.getBaseURL());
+        assertInstanceOf(SolrRoutingClient.class, clientService.getSolrClient());
+        assertEquals(url, ((Http2SolrClient) clientService.getUpdateClient()).getBaseURL());
+        assertEquals(url, ((Http2SolrClient) clientService.getQueryClient()).getBaseURL());
     }
     
     @Test
@@ -55,7 +68,32 @@ class SolrClientServiceTest {
         clientService.init();
         
         // then
-        HttpSolrClient client = (HttpSolrClient) clientService.getSolrClient();
-        assertEquals(url, client.getBaseURL());
+        assertEquals(url, ((Http2SolrClient) clientService.getUpdateClient()).getBaseURL());
+        assertEquals(url, ((Http2SolrClient) clientService.getQueryClient()).getBaseURL());
+    }
+
+    @Test
+    @JvmSetting(key = JvmSettings.SOLR_REPLICAS, value = "replica1:8983,replica2:8983")
+    void testInitWithReplicas() {
+        // given
+        String url = "http://localhost:8983/solr/collection1";
+
+        // when
+        clientService.init();
+
+        // then
+        assertEquals(url, ((Http2SolrClient) clientService.getUpdateClient()).getBaseURL());
+        assertInstanceOf(LBHttp2SolrClient.class, clientService.getQueryClient());
+    }
+
+    @Test
+    void testRouting() {
+        // given
+        clientService.init();
+        SolrRoutingClient client = (SolrRoutingClient) clientService.getSolrClient();
+
+        // then
+        assertSame(clientService.getUpdateClient(), client.clientFor(new UpdateRequest()));
+        assertSame(clientService.getQueryClient(), client.clientFor(new QueryRequest(new SolrQuery("*"))));
     }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package edu.harvard.iq.dataverse.search;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SolrUpdateBatchTest {
+
+    SolrClient solrClient = mock(SolrClient.class);
+
+    @Test
+    void testSendsFullBatches() throws SolrServerException, IOException {
+        SolrUpdateBatch batch = new SolrUpdateBatch(solrClient, 5, Long.MAX_VALUE, 1000);
+
+        batch.add(docs(3));
+        verify(solrClient, never()).add(anyCollection(), anyInt());
+
+        batch.add(docs(3));
+        verify(solrClient, times(1)).add(argThat((Collection<SolrInputDocument> c) -> c.size() == 6), eq(1000));
+
+        batch.add(docs(1));
+        batch.finish();
+        verify(solrClient, times(1)).add(argThat((Collection<SolrInputDocument> c) -> c.size() == 1), eq(1000));
+        verify(solrClient, times(1)).commit();
+
+        assertEquals(7, batch.getDocumentsSent());
+        assertEquals(2, batch.getRequestsSent());
+        assertEquals(0, batch.getDocumentsFailed());
+    }
+
+    @Test
+    void testSendsOldBatches() throws SolrServerException, IOException {
+        SolrUpdateBatch batch = new SolrUpdateBatch(solrClient, 1000, 0, 1000);
+
+        batch.add(docs(2));
+        verify(solrClient, times(1)).add(argThat((Collection<SolrInputDocument> c) -> c.size() == 2), eq(1000));
+    }
+
+    @Test
+    void testIgnoresEmptyAdds() throws SolrServerException, IOException {
+        SolrUpdateBatch batch = new SolrUpdateBatch(solrClient, 1, 0, 1000);
+
+        batch.add(docs(0));
+        batch.flush();
+        verify(solrClient, never()).add(anyCollection(), anyInt());
+    }
+
+    @Test
+    void testCountsFailures() throws SolrServerException, IOException {
+        when(solrClient.add(anyCollection(), anyInt())).thenThrow(new SolrServerException("down"));
+        SolrUpdateBatch batch = new SolrUpdateBatch(solrClient, 2, Long.MAX_VALUE, 1000);
+
+        assertThrows(SolrServerException.class, () -> batch.add(docs(2)));
+        assertEquals(0, batch.getDocumentsSent());
+        assertEquals(2, batch.getDocumentsFailed());
+
+        // the failed documents are not sent again
+        batch.flush();
+        verify(solrClient, times(1)).add(anyCollection(), anyInt());
+    }
+
+    @Test
+    void testTracksSentAndFailedDatasets() throws SolrServerException, IOException {
+        SolrUpdateBatch batch = new SolrUpdateBatch(solrClient, 3, Long.MAX_VALUE, 1000);
+
+        long first = batch.getGeneration();
+        batch.add(docs(2));
+        batch.addDataset(1L, first);
+        // not sent yet
+        assertEquals(List.of(), batch.takeSentDatasetIds());
+
+        // the documents of dataset 2 span two batches
+        first = batch.getGeneration();
+        batch.add(docs(2));
+        batch.add(docs(1));
+        batch.addDataset(2L, first);
+        assertEquals(List.of(1L), batch.takeSentDatasetIds());
+
+        when(solrClient.add(anyCollection(), anyInt())).thenThrow(new SolrServerException("down"));
+        assertThrows(SolrServerException.class, () -> batch.flush());
+        assertEquals(List.of(), batch.takeSentDatasetIds());
+        assertEquals(List.of(2L), batch.takeFailedDatasetIds());
+
+        // a flush with nothing left to send completes the datasets added since
+        first = batch.getGeneration();
+        batch.addDataset(3L, first);
+        batch.flush();
+        assertEquals(List.of(3L), batch.takeSentDatasetIds());
+        assertEquals(List.of(), batch.takeFailedDatasetIds());
+    }
+
+    private static List<SolrInputDocument> docs(int count) {
+        List<SolrInputDocument> docs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SolrInputDocument doc = new SolrInputDocument();
+            doc.addField(SearchFields.ID, "datafile_" + i);
+            docs.add(doc);
+        }
+        return docs;
+    }
+}
@@ -5,6 +5,7 @@ import com.hazelcast.config.Config;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
+import edu.harvard.iq.dataverse.authorization.Permission;
 import edu.harvard.iq.dataverse.authorization.users.AuthenticatedUser;
 import edu.harvard.iq.dataverse.authorization.users.GuestUser;
 import edu.harvard.iq.dataverse.engine.command.Command;
@@ -31,6 +32,7 @@ import javax.cache.processor.EntryProcessor;
 import javax.cache.processor.EntryProcessorException;
 import javax.cache.processor.EntryProcessorResult;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -103,6 +105,12 @@ public class CacheFactoryBeanTest {
             if (cache.rateLimitCache == null) {
                 cache.rateLimitCache = new TestCache(getConfig());
             }
+            if (cache.permissionCache == null) {
+                cache.permissionCache = new TestCache(((TestCache) cache.rateLimitCache).hzInstance, "permissions");
+            }
+            if (cache.permissionFilterCache == null) {
+                cache.permissionFilterCache = new TestCache(((TestCache) cache.rateLimitCache).hzInstance, "permissionFilters");
+            }
 
             // Clear the static data, so it can be reloaded with the new mocked data
             RateLimitUtil.rateLimitMap.clear();
@@ -189,6 +197,34 @@ public class CacheFactoryBeanTest {
         assertEquals(200, cnt);
     }
 
+    @Test
+    public void testPermissionCache() {
+        assertNull(cache.getCachedPermissions("@authUser|1,2"));
+
+        cache.cachePermissions("@authUser|1,2", EnumSet.of(Permission.AddDataset, Permission.DownloadFile));
+        cache.cachePermissions("@authUser|3", EnumSet.noneOf(Permission.class));
+        assertEquals(EnumSet.of(Permission.AddDataset, Permission.DownloadFile), cache.getCachedPermissions("@authUser|1,2"));
+        assertEquals(EnumSet.noneOf(Permission.class), cache.getCachedPermissions("@authUser|3"));
+
+        cache.invalidatePermissions();
+        assertNull(cache.getCachedPermissions("@authUser|1,2"));
+        assertNull(cache.getCachedPermissions("@authUser|3"));
+    }
+
+    @Test
+    public void testPermissionFilterCache() {
+        assertNull(cache.getCachedPermissionFilter("@authUser@127.0.0.1"));
+
+        cache.cachePermissionFilter("@authUser@127.0.0.1", " OR group_builtIn/authenticated-users");
+        cache.cachePermissions("@authUser|3", EnumSet.of(Permission.AddDataset));
+        assertEquals(" OR group_builtIn/authenticated-users", cache.getCachedPermissionFilter("@authUser@127.0.0.1"));
+
+        cache.invalidatePermissionFilters();
+        assertNull(cache.getCachedPermissionFilter("@authUser@127.0.0.1"));
+        // the permissions granted by roles are not affected
+        assertEquals(EnumSet.of(Permission.AddDataset), cache.getCachedPermissions("@authUser|3"));
+    }
+
     private Config getConfig() {
         return getConfig(null);
     }
@@ -216,6 +252,10 @@ public class CacheFactoryBeanTest {
             Address address = hzInstance.getCluster().getLocalMember().getAddress();
             cache.put("memberAddress", String.format("%s:%d", address.getHost(), address.getPort()));
         }
+        TestCache(HazelcastInstance hzInstance, String name) {
+            this.hzInstance = hzInstance;
+            cache = hzInstance.getMap(name);
+        }
         @Override
         public String get(String s) {
             return cache.get(s);
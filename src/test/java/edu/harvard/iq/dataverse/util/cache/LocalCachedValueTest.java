@@ -0,0 +1,60 @@
+package edu.harvard.iq.dataverse.util.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocalCachedValueTest {
+
+    AtomicInteger builds = new AtomicInteger();
+
+    @Test
+    void testKeepsTheValue() {
+        LocalCachedValue<Integer> value = new LocalCachedValue<>(Long.MAX_VALUE);
+
+        assertEquals(1, value.get(builds::incrementAndGet));
+        assertEquals(1, value.get(builds::incrementAndGet));
+    }
+
+    @Test
+    void testRebuildsOldValues() {
+        LocalCachedValue<Integer> value = new LocalCachedValue<>(-1);
+
+        assertEquals(1, value.get(builds::incrementAndGet));
+        assertEquals(2, value.get(builds::incrementAndGet));
+    }
+
+    @Test
+    void testRebuildsAfterDrop() {
+        LocalCachedValue<Integer> value = new LocalCachedValue<>(Long.MAX_VALUE);
+
+        value.get(builds::incrementAndGet);
+        value.drop();
+        assertEquals(2, value.get(builds::incrementAndGet));
+    }
+
+    @Test
+    void testDoesNotKeepValuesBuiltDuringAChange() {
+        LocalCachedValue<Integer> value = new LocalCachedValue<>(Long.MAX_VALUE);
+
+        value.changeStarted();
+        assertEquals(1, value.get(builds::incrementAndGet));
+        assertEquals(2, value.get(builds::incrementAndGet));
+        value.changeCompleted();
+        assertEquals(3, value.get(builds::incrementAndGet));
+        assertEquals(3, value.get(builds::incrementAndGet));
+    }
+
+    @Test
+    void testDoesNotKeepValuesBuiltAcrossADrop() {
+        LocalCachedValue<Integer> value = new LocalCachedValue<>(Long.MAX_VALUE);
+
+        assertEquals(1, value.get(() -> {
+            value.drop();
+            return builds.incrementAndGet();
+        }));
+        assertEquals(2, value.get(builds::incrementAndGet));
+    }
+}